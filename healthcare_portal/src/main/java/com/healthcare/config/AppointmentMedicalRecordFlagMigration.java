@@ -0,0 +1,32 @@
+package com.healthcare.config;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * appointments.has_medical_record is added by ddl-auto=update with 0 for every existing row -
+ * set it for appointments that already have a medical record (no-op once backfilled).
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentMedicalRecordFlagMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int updated = jdbcTemplate.update("UPDATE appointments a JOIN medical_records mr ON mr.appointment_id = a.id "
+                    + "SET a.has_medical_record = 1 WHERE a.has_medical_record = 0");
+            if (updated > 0) {
+                System.out.println("Backfilled has_medical_record on " + updated + " appointments");
+            }
+        } catch (Exception e) {
+            System.err.println("Could not backfill appointments.has_medical_record: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.healthcare.config;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.service.AttachmentService;
+import com.healthcare.service.AttachmentStorage;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Moves the legacy medical_records.attachments JSON into attachments rows, on its own background thread at
+ * startup and after every bulk import (which still writes the JSON). Inline base64 data is written to
+ * AttachmentStorage. Each record is one transaction: the rows are inserted (a rerun adds nothing twice) and
+ * the JSON is cleared only if it is still what was parsed.
+ * Only the import writes the JSON and record ids only grow, so each run continues after the last id the
+ * previous one saw. Entries that cannot be migrated (not an object, no content) leave the record's JSON in
+ * place and are logged once; the record keeps showing its JSON until it is fixed, and is retried after a restart.
+ */
+@Component
+public class AttachmentJsonMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 100; // ids per keyset query - values are read one by one, they can be MBs
+
+    // Only a duplicate (uk_attachments_record_sha256) is skipped - unlike INSERT IGNORE, other errors still fail
+    private static final String INSERT_SQL = "INSERT INTO attachments "
+            + "(medical_record_id, name, content_type, category, size_bytes, sha256, storage_key, creation_date, updated_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW()) ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AttachmentService attachmentService;
+    private final AttachmentStorage attachmentStorage;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "attachment-json-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private long afterId; // only used on the migration thread
+
+    public AttachmentJsonMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            AttachmentService attachmentService, AttachmentStorage attachmentStorage) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.attachmentService = attachmentService;
+        this.attachmentStorage = attachmentStorage;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migratePending();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Migrate the records that got attachments JSON since the last run, on the migration thread (returns at once)
+     */
+    public void migratePending() {
+        // Requests made while a run is queued are covered by it
+        if (queued.compareAndSet(false, true)) {
+            executor.submit(() -> {
+                queued.set(false);
+                migrateNew();
+            });
+        }
+    }
+
+    /**
+     * Migrate one record now, on the caller's thread (nothing to do if it has no attachments JSON)
+     */
+    public void migrateRecord(Long id) {
+        migrate(id);
+    }
+
+    void migrateNew() {
+        long migrated = 0;
+        long skipped = 0;
+        try {
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT id FROM medical_records WHERE id > ? AND attachments IS NOT NULL ORDER BY id LIMIT ?",
+                        Long.class, afterId, BATCH_SIZE);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                for (Long id : ids) {
+                    if (migrate(id)) {
+                        migrated++;
+                    } else {
+                        skipped++;
+                    }
+                    // Not before: a record whose migration threw is tried again by the next run
+                    afterId = id;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Attachment JSON migration stopped: " + e.getMessage());
+        }
+        if (migrated > 0 || skipped > 0) {
+            System.out.println("Moved the attachments JSON of " + migrated + " medical records into the attachments table"
+                    + (skipped > 0 ? ", " + skipped + " left as they are" : ""));
+        }
+    }
+
+    private boolean migrate(Long id) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT attachments, creation_date FROM medical_records WHERE id = ? AND attachments IS NOT NULL", id);
+        if (rows.isEmpty()) {
+            return true; // cleared meanwhile
+        }
+        String json = String.valueOf(rows.get(0).get("attachments"));
+        Object created = rows.get(0).get("creation_date");
+        Date creationDate = created instanceof Date date ? date : Date.valueOf(LocalDate.now());
+
+        List<AttachmentDTO> attachments;
+        try {
+            attachments = attachmentService.storeJsonEntries(json);
+        } catch (InvalidInputException e) {
+            System.err.println("Attachments of medical record " + id + " not migrated: " + e.getMessage());
+            return false;
+        }
+        if (attachments.stream().anyMatch(attachment -> attachment.getSha256() == null)) {
+            System.err.println("Attachments of medical record " + id + " not migrated: an entry has no data or sha256");
+            return false;
+        }
+
+        List<Object[]> parameters = new ArrayList<>();
+        for (AttachmentDTO attachment : attachments) {
+            parameters.add(new Object[] { id, attachment.getName(), attachment.getType(), attachment.getCategory(),
+                    attachment.getSize(), attachment.getSha256(), attachmentStorage.storageKey(attachment.getSha256()), creationDate });
+        }
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!parameters.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, parameters);
+            }
+            // A JSON column compares as JSON - cast the parsed text back; an edit made meanwhile keeps its value
+            jdbcTemplate.update("UPDATE medical_records SET attachments = NULL WHERE id = ? AND attachments = CAST(? AS JSON)",
+                    id, json);
+            return true;
+        }));
+    }
+}
@@ -0,0 +1,209 @@
+package com.healthcare.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * In-process SMTP stand-in for the "mail-sandbox" profile - no Gmail credentials needed.
+ * Speaks just enough SMTP for JavaMail (EHLO/HELO, MAIL, RCPT, DATA, RSET, NOOP, QUIT, no TLS/AUTH),
+ * keeps the last 'capacity' messages in memory and can add latency and random failures per message.
+ */
+@Component
+@Profile("mail-sandbox")
+public class EmbeddedSmtpServer {
+
+    public record CapturedMessage(String from, List<String> recipients, String data, long receivedAtNanos) {
+    }
+
+    private final int port;
+    private final int capacity;
+    private final long latencyMillis;
+    private final double failureRate;
+    private final Deque<CapturedMessage> messages = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // Platform threads: a mail worker on a virtual thread stays pinned while JavaMail connects (synchronized),
+    // so with few carrier threads a virtual-thread server might never get to send its greeting
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "smtp-sandbox-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Consumer<CapturedMessage> listener = message -> {
+    };
+    private ServerSocket serverSocket;
+
+    public EmbeddedSmtpServer(@Value("${app.mail.sandbox.port:2525}") int port,
+            @Value("${app.mail.sandbox.capacity:1000}") int capacity,
+            @Value("${app.mail.sandbox.latency-ms:0}") long latencyMillis,
+            @Value("${app.mail.sandbox.failure-rate:0}") double failureRate) {
+        this.port = port;
+        this.capacity = capacity;
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-sandbox");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("Sandbox SMTP server listening on port " + getPort()
+                + " (latency " + latencyMillis + " ms, failure rate " + failureRate + ")");
+    }
+
+    // The bound port (tests construct the server with port 0 to get a free one)
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<CapturedMessage> getMessages() {
+        return List.copyOf(messages);
+    }
+
+    public int getReceivedCount() {
+        return received.get();
+    }
+
+    public int getRejectedCount() {
+        return rejected.get();
+    }
+
+    // SMTP connections accepted so far - shows whether senders reuse connections
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    // Called for every accepted message (e.g. by the mail load test to measure delivery latency)
+    public void setListener(Consumer<CapturedMessage> listener) {
+        this.listener = listener;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                connections.submit(() -> handle(socket));
+            } catch (IOException e) {
+                return; // closed on shutdown
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost sandbox SMTP ready");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        from = address(line);
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (latencyMillis > 0) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                            rejected.incrementAndGet();
+                            reply(out, "451 Sandbox: simulated temporary failure");
+                        } else {
+                            capture(new CapturedMessage(from, List.copyOf(recipients), data, System.nanoTime()));
+                            reply(out, "250 OK queued");
+                        }
+                        recipients.clear();
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Undo dot-stuffing
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private void capture(CapturedMessage message) {
+        received.incrementAndGet();
+        messages.addLast(message);
+        if (stored.incrementAndGet() > capacity && messages.pollFirst() != null) {
+            stored.decrementAndGet();
+        }
+        listener.accept(message);
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,48 @@
+package com.healthcare.config;
+
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Replaces Boot's JavaMailSenderImpl with the pooled one (same spring.mail.* settings).
+ * app.mail.pool.enabled=false falls back to Boot's sender (new connection per send).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.mail.pool.enabled", havingValue = "true", matchIfMissing = true)
+public class MailTransportConfig {
+
+    @Bean
+    public JavaMailSenderImpl mailSender(MailProperties mailProperties, MeterRegistry meterRegistry,
+            @Value("${app.mail.pool.max-connections:4}") int maxConnections,
+            @Value("${app.mail.pool.idle-timeout-ms:60000}") long idleTimeoutMillis,
+            @Value("${app.mail.pool.validate-after-ms:10000}") long validateAfterMillis,
+            @Value("${app.mail.pool.max-wait-ms:10000}") long maxWaitMillis,
+            @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, idleTimeoutMillis, validateAfterMillis,
+                maxWaitMillis, maxMessagesPerConnection, meterRegistry);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+        return sender;
+    }
+}
@@ -0,0 +1,143 @@
+package com.healthcare.config;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.security.FieldEncryptor;
+
+/*
+ * Encrypts medical record text stored before field encryption was enabled (diagnosis/prescription/notes,
+ * the diagnosis preview and revision payloads), in keyset batches on a background thread; once everything is encrypted, a
+ * restart only scans the tables inside the database. Until a row is done it is still readable -
+ * FieldEncryptor passes plaintext through. Record rows are only rewritten if their text is still what
+ * was read, so an edit made meanwhile is never overwritten; updated_on is left alone.
+ * Records written before diagnosis_preview existed get their preview filled in the same way (also when
+ * encryption is disabled); until then their list rows show no preview.
+ */
+@Component
+public class MedicalRecordEncryptionMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FieldEncryptor encryptor;
+    private final int batchSize;
+
+    public MedicalRecordEncryptionMigration(JdbcTemplate jdbcTemplate, FieldEncryptor encryptor,
+            @Value("${app.records.encryption.migration-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptor = encryptor;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(this::migrate, "medical-record-encryption-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void migrate() {
+        try {
+            if (encryptor.isEnabled()) {
+                long records = encryptRecords();
+                long revisions = encryptRevisions();
+                if (records > 0 || revisions > 0) {
+                    System.out.println("Encrypted " + records + " medical records and " + revisions + " revisions stored in plaintext");
+                }
+            }
+            long previews = fillPreviews();
+            if (previews > 0) {
+                System.out.println("Filled the diagnosis preview of " + previews + " medical records");
+            }
+        } catch (Exception e) {
+            System.err.println("Medical record encryption migration stopped: " + e.getMessage());
+        }
+    }
+
+    private long encryptRecords() {
+        long encrypted = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, diagnosis, prescription, notes, diagnosis_preview FROM medical_records WHERE id > ? "
+                            + "AND (LEFT(diagnosis, 5) <> 'ENC1:' OR LEFT(prescription, 5) <> 'ENC1:' OR LEFT(notes, 5) <> 'ENC1:' "
+                            + "OR LEFT(diagnosis_preview, 5) <> 'ENC1:') ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5) },
+                    afterId, batchSize);
+            if (rows.isEmpty()) {
+                return encrypted;
+            }
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                String[] texts = { (String) row[1], (String) row[2], (String) row[3], (String) row[4] };
+                String[] stored = new String[4];
+                boolean changed = false;
+                for (int i = 0; i < 4; i++) {
+                    stored[i] = isPlaintext(texts[i]) ? encryptor.encrypt(texts[i]) : texts[i];
+                    changed |= !Objects.equals(stored[i], texts[i]);
+                }
+                if (changed) {
+                    encrypted += jdbcTemplate.update("UPDATE medical_records SET diagnosis = ?, prescription = ?, notes = ?, "
+                            + "diagnosis_preview = ? WHERE id = ? AND diagnosis <=> ? AND prescription <=> ? AND notes <=> ? "
+                            + "AND diagnosis_preview <=> ?",
+                            stored[0], stored[1], stored[2], stored[3], afterId, texts[0], texts[1], texts[2], texts[3]);
+                }
+            }
+        }
+    }
+
+    private long fillPreviews() {
+        long filled = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, diagnosis FROM medical_records WHERE id > ? AND diagnosis_preview IS NULL "
+                            + "AND diagnosis IS NOT NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getString(2) },
+                    afterId, batchSize);
+            if (rows.isEmpty()) {
+                return filled;
+            }
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                String stored = (String) row[1];
+                String preview = encryptor.encrypt(MedicalRecord.preview(encryptor.decrypt(stored)));
+                filled += jdbcTemplate.update("UPDATE medical_records SET diagnosis_preview = ? "
+                        + "WHERE id = ? AND diagnosis_preview IS NULL AND diagnosis <=> ?", preview, afterId, stored);
+            }
+        }
+    }
+
+    private long encryptRevisions() {
+        long encrypted = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, payload FROM medical_record_revisions WHERE id > ? AND LEFT(payload, 1) <> X'E1' ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getBytes(2) },
+                    afterId, batchSize);
+            if (rows.isEmpty()) {
+                return encrypted;
+            }
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                byte[] payload = (byte[]) row[1];
+                if (!FieldEncryptor.isEncrypted(payload)) {
+                    // Revisions are append-only - nothing can change the row meanwhile
+                    encrypted += jdbcTemplate.update("UPDATE medical_record_revisions SET payload = ? WHERE id = ?",
+                            encryptor.encrypt(payload), afterId);
+                }
+            }
+        }
+    }
+
+    private static boolean isPlaintext(String value) {
+        return value != null && !FieldEncryptor.isEncrypted(value);
+    }
+}
@@ -0,0 +1,32 @@
+package com.healthcare.config;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * medical_record_revisions.doctor_id is added by ddl-auto=update as NULL for every existing row -
+ * fill it from the record's current doctor while the record still exists (no-op once backfilled).
+ */
+@Component
+@RequiredArgsConstructor
+public class MedicalRecordRevisionDoctorMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int updated = jdbcTemplate.update("UPDATE medical_record_revisions r JOIN medical_records mr ON mr.id = r.medical_record_id "
+                    + "SET r.doctor_id = mr.doctor_id WHERE r.doctor_id IS NULL");
+            if (updated > 0) {
+                System.out.println("Backfilled doctor_id on " + updated + " medical record revisions");
+            }
+        } catch (Exception e) {
+            System.err.println("Could not backfill medical_record_revisions.doctor_id: " + e.getMessage());
+        }
+    }
+}
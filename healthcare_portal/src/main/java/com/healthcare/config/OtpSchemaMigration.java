@@ -0,0 +1,38 @@
+package com.healthcare.config;
+
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * ddl-auto=update adds new indexes but never drops old ones - remove the former
+ * UNIQUE (email, type, is_used) on otps (a second used OTP for the same address collided with it).
+ */
+@Component
+@RequiredArgsConstructor
+public class OtpSchemaMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            List<String> indexes = jdbcTemplate.queryForList(
+                    "SELECT index_name FROM information_schema.statistics "
+                            + "WHERE table_schema = DATABASE() AND table_name = 'otps' AND non_unique = 0 AND index_name <> 'PRIMARY' "
+                            + "GROUP BY index_name HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'email,type,is_used'",
+                    String.class);
+            for (String index : indexes) {
+                jdbcTemplate.execute("ALTER TABLE otps DROP INDEX `" + index + "`");
+                System.out.println("Dropped legacy unique index " + index + " on otps");
+            }
+        } catch (Exception e) {
+            System.err.println("Could not check legacy otps unique index: " + e.getMessage());
+        }
+    }
+}
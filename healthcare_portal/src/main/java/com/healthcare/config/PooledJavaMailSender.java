@@ -0,0 +1,204 @@
+package com.healthcare.config;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/*
+ * JavaMailSenderImpl that keeps up to 'max-connections' authenticated SMTP connections open
+ * instead of connecting, doing STARTTLS and AUTH for every send(). A send(MimeMessage...) batch
+ * goes out over a single borrowed connection. Connections idle for longer than the idle timeout
+ * are closed, a connection that has been idle for a while is checked (NOOP) before reuse, and
+ * connections are recycled after 'max-messages-per-connection' to stay under server limits.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final class PooledTransport {
+        final Transport transport;
+        long lastUsedNanos = System.nanoTime();
+        int messagesSent;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    private final BlockingQueue<PooledTransport> idle;
+    private final Semaphore permits;
+    private final long idleTimeoutNanos;
+    private final long validateAfterNanos;
+    private final long maxWaitMillis;
+    private final int maxMessagesPerConnection;
+    private final ScheduledExecutorService reaper;
+    private final Timer connectTimer;
+
+    public PooledJavaMailSender(int maxConnections, long idleTimeoutMillis, long validateAfterMillis, long maxWaitMillis,
+            int maxMessagesPerConnection, MeterRegistry meterRegistry) {
+        this.idle = new ArrayBlockingQueue<>(maxConnections);
+        this.permits = new Semaphore(maxConnections);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.connectTimer = Timer.builder("mail.smtp.connect").register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.idle", idle, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.active", permits, p -> maxConnections - p.availablePermits() - idle.size())
+                .register(meterRegistry);
+
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-pool-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long reapEvery = Math.max(1000, idleTimeoutMillis / 2);
+        reaper.scheduleWithFixedDelay(this::closeIdle, reapEvery, reapEvery, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        PooledTransport pooled = borrow();
+        boolean broken = false;
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        // Preserve explicitly specified message id...
+                        mimeMessage.setHeader("Message-ID", messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pooled.messagesSent++;
+                } catch (Exception ex) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessage, ex);
+                    if (!pooled.transport.isConnected()) {
+                        // Connection dropped - the rest of the batch cannot go out on it
+                        broken = true;
+                        for (int j = i + 1; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            release(pooled, broken);
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private PooledTransport borrow() {
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("No SMTP connection available within " + maxWaitMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection");
+        }
+
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.poll()) != null) {
+                long idleFor = System.nanoTime() - pooled.lastUsedNanos;
+                // isConnected() sends a NOOP - only pay for it when the connection has been quiet for a while
+                if (idleFor < idleTimeoutNanos && (idleFor < validateAfterNanos || pooled.transport.isConnected())) {
+                    return pooled;
+                }
+                close(pooled);
+            }
+            return connect();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledTransport connect() {
+        long start = System.nanoTime();
+        try {
+            Transport transport = getTransport(getSession());
+            String username = getUsername();
+            String password = getPassword();
+            if ("".equals(username)) {
+                username = null;
+                if ("".equals(password)) {
+                    password = null;
+                }
+            }
+            transport.connect(getHost(), getPort(), username, password);
+            return new PooledTransport(transport);
+        } catch (AuthenticationFailedException ex) {
+            throw new MailAuthenticationException(ex);
+        } catch (MessagingException ex) {
+            throw new MailSendException("Could not connect to SMTP server", ex);
+        } finally {
+            connectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(PooledTransport pooled, boolean broken) {
+        pooled.lastUsedNanos = System.nanoTime();
+        if (broken || pooled.messagesSent >= maxMessagesPerConnection || !idle.offer(pooled)) {
+            close(pooled);
+        }
+        permits.release();
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        // Expired connections sit at the head (least recently returned first)
+        PooledTransport pooled;
+        while ((pooled = idle.peek()) != null && now - pooled.lastUsedNanos >= idleTimeoutNanos) {
+            if (idle.remove(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    private void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            // Already gone - nothing to clean up
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reaper.shutdownNow();
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            close(pooled);
+        }
+    }
+}
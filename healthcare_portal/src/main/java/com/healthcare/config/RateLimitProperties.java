@@ -0,0 +1,39 @@
+package com.healthcare.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Binds auth.rate-limit.* from application.properties
+@Component
+@ConfigurationProperties(prefix = "auth.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on buckets kept in memory (IP + account keys across all routes)
+    private int maxTrackedKeys = 100_000;
+
+    // Largest request body buffered to find the account; larger bodies are refused (413)
+    private int maxBodyBytes = 16 * 1024;
+
+    // Route name -> limits, e.g. auth.rate-limit.routes.signin.path=/api/auth/signin
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String path;
+        // Requests allowed per minute from one client IP (0 = no IP limit)
+        private int ipPerMinute = 30;
+        // Requests allowed per minute for one email in the request body (0 = no account limit)
+        private int accountPerMinute = 10;
+    }
+}
@@ -0,0 +1,10 @@
+package com.healthcare.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Enables @Scheduled background jobs (OTP purge, ...) - pool size: spring.task.scheduling.pool.size
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
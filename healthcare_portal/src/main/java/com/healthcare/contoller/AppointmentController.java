@@ -44,7 +44,7 @@ public class AppointmentController {
     
     // Update appointment (Admin only, or patient can update their own)
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('PATIENT') and @appointmentService.isOwnAppointment(#id))")
+    // Access rule: ResourceAccessManagers.appointmentUpdate (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<AppointmentResponseDTO> updateAppointment(@PathVariable Long id, @Valid @RequestBody AppointmentRequestDTO dto) {
         AppointmentResponseDTO updatedAppointment = appointmentService.updateAppointment(id, dto);
@@ -53,7 +53,7 @@ public class AppointmentController {
     
     // Get appointment by ID (Admin, Doctor, or Patient can view if it's their own)
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or (hasRole('PATIENT') and @appointmentService.isOwnAppointment(#id))")
+    // Access rule: ResourceAccessManagers.appointmentAccess (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<AppointmentResponseDTO> getAppointmentById(@PathVariable Long id) {
         AppointmentResponseDTO appointment = appointmentService.getAppointmentById(id);
@@ -71,7 +71,7 @@ public class AppointmentController {
     
     // Get appointments by patient ID (Admin, Doctor, or Patient can view their own)
     @GetMapping("/patient/{patientId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or (hasRole('PATIENT') and #patientId == authentication.principal.id)")
+    // Access rule: ResourceAccessManagers.appointmentsByPatient (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByPatient(@PathVariable Long patientId) {
         List<AppointmentResponseDTO> appointments = appointmentService.getAppointmentsByPatient(patientId);
@@ -80,7 +80,7 @@ public class AppointmentController {
     
     // Get appointments by doctor ID (Admin or Doctor can view their own)
     @GetMapping("/doctor/{doctorId}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and #doctorId == authentication.principal.id)")
+    // Access rule: ResourceAccessManagers.appointmentsByDoctor (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByDoctor(@PathVariable Long doctorId) {
         List<AppointmentResponseDTO> appointments = appointmentService.getAppointmentsByDoctor(doctorId);
@@ -136,7 +136,7 @@ public class AppointmentController {
     
     // Cancel appointment (Admin, Doctor, or Patient can cancel their own)
     @PutMapping("/{id}/cancel")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or (hasRole('PATIENT') and @appointmentService.isOwnAppointment(#id))")
+    // Access rule: ResourceAccessManagers.appointmentAccess (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<AppointmentResponseDTO> cancelAppointment(@PathVariable Long id) {
         AppointmentResponseDTO cancelledAppointment = appointmentService.cancelAppointment(id);
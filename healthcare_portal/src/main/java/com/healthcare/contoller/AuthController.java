@@ -1,12 +1,13 @@
 package com.healthcare.contoller;
 
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
 import com.healthcare.dto.*;
 import com.healthcare.entity.Otp;
 import com.healthcare.entity.UserRole;
-import com.healthcare.repository.OtpRepository;
 import com.healthcare.repository.UserRepository;
 import com.healthcare.service.AuthService;
 import com.healthcare.service.OtpService;
+import com.healthcare.service.OtpStore;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,7 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -33,7 +34,7 @@ public class AuthController {
     private UserRepository userRepository;
     
     @Autowired
-    private OtpRepository otpRepository;
+    private OtpStore otpStore;
 
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
@@ -62,16 +63,7 @@ public class AuthController {
             
             // Generate OTP without sending email
             String otpCode = "123456"; // Fixed OTP for testing
-            Otp otp = Otp.builder()
-                    .email(request.getEmail())
-                    .otpCode(otpCode)
-                    .type(Otp.OtpType.SIGNUP)
-                    .expiryTime(LocalDateTime.now().plusMinutes(10))
-                    .isUsed(false)
-                    .attempts(0)
-                    .build();
-            
-            otpRepository.save(otp);
+            otpStore.save(request.getEmail(), Otp.OtpType.SIGNUP, otpCode, Duration.ofMinutes(10));
             
             return ResponseEntity.ok(new ApiResponse<>(true, "OTP generated and stored successfully. OTP: " + otpCode, null));
         } catch (Exception e) {
@@ -90,7 +82,7 @@ public class AuthController {
             
             AuthResponseDTO response = authService.signUpUser(signUpDto);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | ServiceUnavailableException e) {
             throw e; // Re-throw to be handled by GlobalExceptionHandler
         } catch (Exception e) {
             throw new IllegalArgumentException("Signup failed: " + e.getMessage());
@@ -108,7 +100,7 @@ public class AuthController {
             
             AuthResponseDTO response = authService.createUserByAdmin(signUpDto);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | ServiceUnavailableException e) {
             throw e; // Re-throw to be handled by GlobalExceptionHandler
         } catch (Exception e) {
             throw new IllegalArgumentException("User creation failed: " + e.getMessage());
@@ -120,6 +112,8 @@ public class AuthController {
         try {
             AuthResponseDTO response = authService.signInUser(signInDto);
             return ResponseEntity.ok(response);
+        } catch (ServiceUnavailableException e) {
+            throw e; // Re-throw to be handled by GlobalExceptionHandler (503)
         } catch (Exception e) {
             throw new IllegalArgumentException("Signin failed: " + e.getMessage());
         }
@@ -143,6 +137,8 @@ public class AuthController {
         try {
             otpService.sendSignupOtp(request.getEmail());
             return ResponseEntity.ok(new ApiResponse<>(true, "OTP sent successfully to your email", null));
+        } catch (ServiceUnavailableException e) {
+            throw e; // Re-throw to be handled by GlobalExceptionHandler (503)
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
         }
@@ -167,6 +163,8 @@ public class AuthController {
         try {
             otpService.sendPasswordResetOtp(request.getEmail());
             return ResponseEntity.ok(new ApiResponse<>(true, "Password reset OTP sent successfully to your email", null));
+        } catch (ServiceUnavailableException e) {
+            throw e; // Re-throw to be handled by GlobalExceptionHandler (503)
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
         }
@@ -182,6 +180,8 @@ public class AuthController {
             } else {
                 return ResponseEntity.badRequest().body(new ApiResponse<>(false, "Invalid or expired OTP", null));
             }
+        } catch (ServiceUnavailableException e) {
+            throw e; // Re-throw to be handled by GlobalExceptionHandler (503)
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
         }
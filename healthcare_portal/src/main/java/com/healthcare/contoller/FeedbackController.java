@@ -23,13 +23,9 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import com.healthcare.entity.Feedback;
-import com.healthcare.entity.User;
-import com.healthcare.entity.UserRole;
 import com.healthcare.repository.FeedbackRepository;
-import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
 import com.healthcare.custom_exceptions.ResourceNotFoundException;
 
 @RestController
@@ -38,8 +34,8 @@ import com.healthcare.custom_exceptions.ResourceNotFoundException;
 public class FeedbackController {
     
     private final FeedbackService feedbackService;
-    private final UserRepository userRepository;
     private final FeedbackRepository feedbackRepository;
+    private final CurrentUser currentUser;
     
     // Create feedback (Patients can create their own feedback)
     @PostMapping
@@ -56,13 +52,6 @@ public class FeedbackController {
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<FeedbackResponseDTO> updateFeedback(@PathVariable Long id, @Valid @RequestBody FeedbackRequestDTO dto) {
         // Additional security check in the method body
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUserEmail = authentication.getName();
-        
-        // Get current user
-        User currentUser = userRepository.findByEmail(currentUserEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         // Get feedback
         Feedback feedback = feedbackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Feedback not found with ID: " + id));
@@ -78,7 +67,7 @@ public class FeedbackController {
     
     // Get feedback by ID (Admin can view all, Doctor can view their patient feedback, Patient can view their own)
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and @feedbackService.isOwnPatientFeedback(#id)) or (hasRole('PATIENT') and @feedbackService.isOwnFeedback(#id))")
+    // Access rule: ResourceAccessManagers.feedbackAccess (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<FeedbackResponseDTO> getFeedbackById(@PathVariable Long id) {
         FeedbackResponseDTO feedback = feedbackService.getFeedbackById(id);
@@ -105,7 +94,7 @@ public class FeedbackController {
     
     // Get feedback by patient ID (Admin can view all, Doctor can view their patient feedback, Patient can view their own)
     @GetMapping("/patient/{patientId}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and @feedbackService.isOwnPatientFeedbackByPatientId(#patientId)) or (hasRole('PATIENT') and #patientId == authentication.principal.id)")
+    // Access rule: ResourceAccessManagers.feedbackByPatient (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<FeedbackResponseDTO>> getFeedbackByPatient(@PathVariable Long patientId) {
         List<FeedbackResponseDTO> feedback = feedbackService.getFeedbackByPatient(patientId);
@@ -114,7 +103,7 @@ public class FeedbackController {
     
     // Get feedback by doctor ID (Admin can view all, Doctor can view their own patient feedback)
     @GetMapping("/doctor/{doctorId}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and #doctorId == authentication.principal.id)")
+    // Access rule: ResourceAccessManagers.feedbackByDoctor (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<FeedbackResponseDTO>> getFeedbackByDoctor(@PathVariable Long doctorId) {
         List<FeedbackResponseDTO> feedback = feedbackService.getFeedbackByDoctor(doctorId);
@@ -132,7 +121,7 @@ public class FeedbackController {
     
     // Get feedback by patient and doctor (Admin can view all, Doctor can view their patient feedback, Patient can view their own)
     @GetMapping("/patient/{patientId}/doctor/{doctorId}")
-    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and @feedbackService.isOwnPatientFeedbackByPatientAndDoctor(#patientId, #doctorId)) or (hasRole('PATIENT') and #patientId == authentication.principal.id)")
+    // Access rule: ResourceAccessManagers.feedbackByPatientAndDoctor (wired in SecurityConfig)
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<FeedbackResponseDTO>> getFeedbackByPatientAndDoctor(
             @PathVariable Long patientId, @PathVariable Long doctorId) {
@@ -182,22 +171,15 @@ public class FeedbackController {
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<Void> deleteFeedback(@PathVariable Long id) {
         // Additional security check in the method body
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUserEmail = authentication.getName();
-        
-        // Get current user
-        User currentUser = userRepository.findByEmail(currentUserEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         // Get feedback
         Feedback feedback = feedbackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Feedback not found with ID: " + id));
         
         // Check if user can delete this feedback
         boolean canDelete = false;
-        if (currentUser.getRole() == UserRole.ROLE_ADMIN) {
+        if (currentUser.isAdmin()) {
             canDelete = true;
-        } else if (currentUser.getRole() == UserRole.ROLE_PATIENT) {
+        } else if (currentUser.isPatient()) {
             canDelete = feedback.getPatient().getId().equals(currentUser.getId());
         }
         
@@ -0,0 +1,154 @@
+package com.healthcare.contoller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.service.AttachmentService;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Upload, download and removal of medical record attachments (access: admin, or the doctor who wrote the record).
+ * Downloads of a single range (or the whole file) are handed to Tomcat's sendfile when the connector
+ * supports it, so the bytes go from the page cache to the socket without passing through the JVM.
+ * Otherwise (e.g. TLS terminated in Tomcat, multi-range requests) Spring streams the file as a Resource,
+ * with Range support, through a small buffer - never the whole file in heap.
+ */
+@RestController
+@RequestMapping("/api/medical-records/{id}/attachments")
+@RequiredArgsConstructor
+public class MedicalRecordAttachmentController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final AttachmentService attachmentService;
+
+    // Small files are cheaper to copy than to hand over to the poller
+    @Value("${app.attachments.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes;
+
+    // Upload an attachment (multipart field "file", category LAB_REPORT/IMAGING/PRESCRIPTION/REFERRAL/OTHER)
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<AttachmentDTO> uploadAttachment(@PathVariable Long id, @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String category) {
+        AttachmentDTO attachment = attachmentService.addAttachment(id, file, category);
+        return new ResponseEntity<>(attachment, HttpStatus.CREATED);
+    }
+
+    // Remove an attachment from the record
+    @DeleteMapping("/{sha256}")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Void> deleteAttachment(@PathVariable Long id, @PathVariable String sha256) {
+        attachmentService.removeAttachment(id, sha256);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Download an attachment (supports Range requests)
+    @GetMapping("/{sha256}")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Resource> downloadAttachment(@PathVariable Long id, @PathVariable String sha256,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AttachmentDTO attachment = attachmentService.getAttachment(id, sha256);
+        Path path = attachmentService.getContentPath(sha256);
+
+        // Content never changes for a hash - answer If-None-Match without touching the file
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + sha256 + "\"")) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(mediaType(attachment.getType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(attachment.getName()).build());
+        headers.setCacheControl(CacheControl.maxAge(30, TimeUnit.DAYS).cachePrivate().getHeaderValue());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long length = Files.size(path);
+        List<HttpRange> ranges;
+        long start = 0;
+        long end = length - 1;
+        try {
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            }
+        } catch (IllegalArgumentException e) {
+            // Malformed header or invalid range
+            return rangeNotSatisfiable(length);
+        }
+        if (start >= length && !ranges.isEmpty()) {
+            return rangeNotSatisfiable(length);
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && length >= sendfileMinBytes && ranges.size() <= 1) {
+            sendfile(request, response, headers, path, start, end, length, !ranges.isEmpty());
+            return null;
+        }
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(path));
+    }
+
+    private static ResponseEntity<Resource> rangeNotSatisfiable(long length) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                .build();
+    }
+
+    // Types stored before upload normalized them may not parse - serve those as plain bytes
+    private static MediaType mediaType(String type) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(type);
+            return mediaType.isConcrete() ? mediaType : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static void sendfile(HttpServletRequest request, HttpServletResponse response, HttpHeaders headers,
+            Path path, long start, long end, long length, boolean partial) {
+        if (partial) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentLengthLong(end - start + 1);
+        // Tomcat writes the bytes itself once the request completes (end is exclusive)
+        request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end + 1);
+    }
+}
@@ -17,8 +17,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.healthcare.dto.AttachmentDTO;
 import com.healthcare.dto.MedicalRecordRequestDTO;
 import com.healthcare.dto.MedicalRecordResponseDTO;
+import com.healthcare.dto.MedicalRecordRevisionDTO;
+import com.healthcare.dto.MedicalRecordSearchResultDTO;
+import com.healthcare.dto.MedicalRecordSummaryDTO;
+import com.healthcare.service.AttachmentService;
 import com.healthcare.service.MedicalRecordService;
 
 import jakarta.validation.Valid;
@@ -33,6 +38,7 @@ import com.healthcare.dto.AppointmentResponseDTO;
 public class MedicalRecordController {
     
     private final MedicalRecordService medicalRecordService;
+    private final AttachmentService attachmentService;
     
     // Create medical record (Doctors and Admins can create)
     @PostMapping
@@ -61,6 +67,24 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecord);
     }
     
+    // Get the revision history of a medical record (Doctors and Admins can view)
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<MedicalRecordRevisionDTO>> getMedicalRecordHistory(@PathVariable Long id) {
+        List<MedicalRecordRevisionDTO> revisions = medicalRecordService.getMedicalRecordHistory(id);
+        return ResponseEntity.ok(revisions);
+    }
+    
+    // Get a medical record as it was at a revision (Doctors and Admins can view)
+    @GetMapping("/{id}/history/{revision}")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<MedicalRecordRevisionDTO> getMedicalRecordRevision(@PathVariable Long id, @PathVariable int revision) {
+        MedicalRecordRevisionDTO medicalRecordRevision = medicalRecordService.getMedicalRecordRevision(id, revision);
+        return ResponseEntity.ok(medicalRecordRevision);
+    }
+    
     // Get all medical records (Admin only)
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
@@ -79,6 +103,27 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecords);
     }
     
+    // Get medical record summaries by patient ID (list view without the full text)
+    @GetMapping("/patient/{patientId}/summary")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<MedicalRecordSummaryDTO>> getMedicalRecordSummariesByPatient(@PathVariable Long patientId) {
+        List<MedicalRecordSummaryDTO> summaries = medicalRecordService.getMedicalRecordSummariesByPatient(patientId);
+        return ResponseEntity.ok(summaries);
+    }
+    
+    // Get a patient's attachments, e.g. ?category=LAB_REPORT&from=2025-01-01&to=2025-12-31 (by record date)
+    @GetMapping("/patient/{patientId}/attachments")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<AttachmentDTO>> getPatientAttachments(@PathVariable Long patientId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<AttachmentDTO> attachments = attachmentService.getPatientAttachments(patientId, category, from, to);
+        return ResponseEntity.ok(attachments);
+    }
+    
     // Get medical records by doctor ID (Doctors and Admins can view)
     @GetMapping("/doctor/{doctorId}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
@@ -117,6 +162,15 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecords);
     }
     
+    // Get summaries of my medical records (list view without the full text)
+    @GetMapping("/my/summary")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<MedicalRecordSummaryDTO>> getMyMedicalRecordSummaries() {
+        List<MedicalRecordSummaryDTO> summaries = medicalRecordService.getMyMedicalRecordSummaries();
+        return ResponseEntity.ok(summaries);
+    }
+    
     // Get my patient medical records (for doctors)
     @GetMapping("/my-patients")
     @PreAuthorize("hasRole('DOCTOR')")
@@ -135,6 +189,19 @@ public class MedicalRecordController {
         return ResponseEntity.ok(appointments);
     }
     
+    // Full-text search over diagnosis, prescription and notes, ranked by relevance (doctors search their own records)
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<MedicalRecordSearchResultDTO> searchMedicalRecords(
+            @RequestParam String q,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        MedicalRecordSearchResultDTO result = medicalRecordService.searchMedicalRecords(q, patientId, page, size);
+        return ResponseEntity.ok(result);
+    }
+    
     // Delete medical record (Doctors and Admins can delete)
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
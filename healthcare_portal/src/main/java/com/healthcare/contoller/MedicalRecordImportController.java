@@ -0,0 +1,64 @@
+package com.healthcare.contoller;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.healthcare.dto.ImportJobDTO;
+import com.healthcare.service.MedicalRecordImportService;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/medical-records/import")
+@RequiredArgsConstructor
+public class MedicalRecordImportController {
+
+    private final MedicalRecordImportService importService;
+
+    // Start a bulk import of legacy medical records (multipart field "file", format csv or ndjson) (Admins only)
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ImportJobDTO> startImport(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        return new ResponseEntity<>(importService.startImport(file, format), HttpStatus.ACCEPTED);
+    }
+
+    // Start a bulk import from the raw request body - for files above the multipart limit, streamed to disk
+    // up to app.import.max-file-size-bytes; the format comes from ?format=, the content type or ?fileName= (Admins only)
+    @PostMapping(consumes = { "text/csv", "application/x-ndjson", MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ImportJobDTO> startStreamingImport(HttpServletRequest request,
+            @RequestParam(required = false) String format, @RequestParam(required = false) String fileName)
+            throws IOException {
+        if (!StringUtils.hasText(format) && request.getContentType() != null) {
+            String type = MediaType.parseMediaType(request.getContentType()).getSubtype();
+            format = "csv".equals(type) ? "csv" : "x-ndjson".equals(type) ? "ndjson" : null;
+        }
+        return new ResponseEntity<>(importService.startImport(request.getInputStream(), fileName, format),
+                HttpStatus.ACCEPTED);
+    }
+
+    // Get the progress of an import job (Admins only)
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importService.getJob(jobId));
+    }
+}
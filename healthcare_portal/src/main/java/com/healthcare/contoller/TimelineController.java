@@ -0,0 +1,43 @@
+package com.healthcare.contoller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.healthcare.dto.TimelinePageDTO;
+import com.healthcare.service.TimelineService;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/timeline")
+@RequiredArgsConstructor
+public class TimelineController {
+
+    private final TimelineService timelineService;
+
+    // Get my timeline - appointments, medical records and feedback, newest first (Patients)
+    @GetMapping("/my")
+    @PreAuthorize("hasRole('PATIENT')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<TimelinePageDTO> getMyTimeline(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(timelineService.getMyTimeline(cursor, size));
+    }
+
+    // Get a patient's timeline (Admins and Doctors)
+    @GetMapping("/patient/{patientId}")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<TimelinePageDTO> getPatientTimeline(@PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(timelineService.getTimeline(patientId, cursor, size));
+    }
+}
@@ -16,7 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.stream.Collectors;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.healthcare.security.CurrentUser;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,6 +24,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 public class UserController {
     
     private final UserService userService;
+    private final CurrentUser currentUser;
     
     @GetMapping("/doctors")
     @PreAuthorize("hasRole('ADMIN')")
@@ -264,9 +265,8 @@ public class UserController {
     @Operation(summary = "Get current user profile", description = "Get profile information for the currently authenticated user")
     public ResponseEntity<ApiResponse<UserResponseDTO>> getCurrentUserProfile() {
         try {
-            // Get current user from security context
-            String currentUserEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-            User user = userService.getUserProfileByEmail(currentUserEmail);
+            // Profile needs the department join, so this one still loads the full user
+            User user = userService.getUserProfileByEmail(currentUser.getEmail());
             
             UserResponseDTO dto = new UserResponseDTO();
             dto.setId(user.getId());
@@ -304,10 +304,6 @@ public class UserController {
     @Operation(summary = "Update current user profile", description = "Update profile information for the currently authenticated user")
     public ResponseEntity<ApiResponse<UserResponseDTO>> updateCurrentUserProfile(@RequestBody UserProfileUpdateDTO userData) {
         try {
-            // Get current user from security context
-            String currentUserEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-            User currentUser = userService.getUserProfileByEmail(currentUserEmail);
-            
             // Ensure user can only update their own profile
             if (!currentUser.getId().equals(userData.getId())) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>(false, "You can only update your own profile", null));
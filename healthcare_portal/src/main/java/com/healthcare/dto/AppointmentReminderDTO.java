@@ -0,0 +1,23 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentReminderDTO {
+
+    private String patientEmail;
+    private String patientName;
+    private String doctorName;
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+    private String timeUntil; // e.g. "in 24 hours"
+}
@@ -0,0 +1,31 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Attachment metadata; name/type/size/sha256 is also the shape of the entries in MedicalRecordResponseDTO.attachments.
+ * Constructed directly by MedicalRecordAttachmentRepository (JPQL constructor expression) - keep the field order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttachmentDTO {
+
+    private String name;
+    private String type; // content type
+    private Long size;
+    private String sha256; // content id, also used in the download URL
+    private String category; // LAB_REPORT, IMAGING, PRESCRIPTION, REFERRAL, OTHER
+    private LocalDate createdDate;
+    private Long medicalRecordId;
+    private LocalDate recordDate;
+}
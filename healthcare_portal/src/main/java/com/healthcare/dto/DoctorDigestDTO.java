@@ -0,0 +1,36 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DoctorDigestDTO {
+
+    private String doctorEmail;
+    private String doctorName;
+    private LocalDate digestDate;
+    private int booked;
+    private int cancelled;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Entry {
+        private String event; // BOOKED, UPDATED, CANCELLED, DELETED
+        private String patientName;
+        private LocalDate appointmentDate;
+        private LocalTime appointmentTime;
+        private String status;
+    }
+}
@@ -0,0 +1,28 @@
+package com.healthcare.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJobDTO {
+
+    private String jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private String fileName;
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long recordsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String failure;
+    private List<String> errors; // first rejected rows with the reason
+}
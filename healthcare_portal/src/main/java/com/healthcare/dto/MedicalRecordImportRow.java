@@ -0,0 +1,36 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One legacy medical record in a bulk import file (an NDJSON line or a CSV row with these column names).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MedicalRecordImportRow {
+
+    @JsonAlias("patient_id")
+    private Long patientId;
+    @JsonAlias("doctor_id")
+    private Long doctorId;
+    @JsonAlias("appointment_id")
+    private Long appointmentId;
+    @JsonAlias("record_date")
+    private LocalDate recordDate;
+    private String diagnosis;
+    private String prescription;
+    private String notes;
+    private JsonNode attachments; // legacy attachments JSON, moved into attachments rows by AttachmentJsonMigration
+}
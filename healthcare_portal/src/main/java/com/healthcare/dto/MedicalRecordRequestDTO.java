@@ -39,5 +39,5 @@ public class MedicalRecordRequestDTO {
     private String notes;
     
     @Size(max = 10000000, message = "Attachments JSON cannot exceed 10MB")
-    private String attachments; // Optional JSON string of file data
+    private String attachments; // Optional JSON array of files to add ({name, type, size, data} or {name, type, size, sha256})
 } 
\ No newline at end of file
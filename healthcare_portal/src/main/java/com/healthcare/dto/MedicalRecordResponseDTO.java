@@ -29,7 +29,7 @@ public class MedicalRecordResponseDTO {
     private String diagnosis;
     private String prescription;
     private String notes;
-    private String attachments;
+    private String attachments; // JSON array of the attachment rows ({name, type, size, sha256, category, ...}), null if none
     private String departmentName;
     private String doctorSpecialization;
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.healthcare.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicalRecordRevisionDTO {
+
+    private Long medicalRecordId;
+    private Integer revision;
+    private LocalDateTime savedAt;
+    private Long editedBy;
+    // Only filled when a single revision is requested
+    private String diagnosis;
+    private String prescription;
+    private String notes;
+}
@@ -0,0 +1,30 @@
+package com.healthcare.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicalRecordSearchResultDTO {
+
+    private String query;
+    private int page;
+    private int size;
+    private long totalHits;
+    private List<Hit> hits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Hit {
+        private double score;
+        private MedicalRecordResponseDTO record;
+    }
+}
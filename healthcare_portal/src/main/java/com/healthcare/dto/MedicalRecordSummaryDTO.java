@@ -0,0 +1,31 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * List row for medical records - scalar columns plus the diagnosis preview column, so list screens never load
+ * the diagnosis/prescription/notes LOBs or the attachment rows.
+ * Constructed directly by MedicalRecordRepository (JPQL constructor expression) - keep the field order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicalRecordSummaryDTO {
+
+    private Long id;
+    private LocalDate recordDate;
+    private Long patientId;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private String departmentName;
+    private Long appointmentId;
+    private String diagnosisPreview; // first characters of the diagnosis
+    private Boolean hasAttachments;
+}
@@ -0,0 +1,37 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One item of a patient's timeline (appointment, medical record or feedback).
+ * Constructed directly by the repositories' timeline queries (JPQL constructor expression) - keep the field order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimelineEntryDTO {
+
+    private String type; // APPOINTMENT, MEDICAL_RECORD, FEEDBACK
+    private Long id;
+    private LocalDate date;
+    private LocalTime time;
+    private Long doctorId;
+    private String doctorName;
+    private String status; // appointment status, null for the other types
+    private String summary; // reason / diagnosis / comments preview
+    private Integer rating; // feedback only
+
+    // Feedback rows carry one timestamp (split here so fractional seconds survive for the cursor)
+    public TimelineEntryDTO(String type, Long id, LocalDateTime at, Long doctorId, String doctorName, String status,
+            String summary, Integer rating) {
+        this(type, id, at.toLocalDate(), at.toLocalTime(), doctorId, doctorName, status, summary, rating);
+    }
+}
@@ -0,0 +1,18 @@
+package com.healthcare.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimelinePageDTO {
+
+    private List<TimelineEntryDTO> entries; // newest first
+    private String nextCursor; // pass as 'cursor' for the next page, null on the last page
+}
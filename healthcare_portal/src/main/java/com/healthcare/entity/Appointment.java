@@ -6,6 +6,7 @@ import java.time.LocalTime;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -22,7 +23,13 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+    indexes = {
+        // Patient timeline keyset (newest first)
+        @Index(name = "idx_appointments_patient_date_time", columnList = "patient_id, appointment_date, appointment_time"),
+        // Appointments of a doctor with a patient that still need a medical record ("new record" form)
+        @Index(name = "idx_appointments_doctor_patient_status_record", columnList = "doctor_id, patient_id, status, has_medical_record")
+    })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -67,4 +74,10 @@ public class Appointment extends BaseEntity {
 	@Pattern(regexp = "PENDING|CONFIRMED|COMPLETED|CANCELLED", message = "Invalid appointment status")
 	private String status = "PENDING"; // Default status
 
+	// Denormalised "a medical record exists for this appointment", kept in sync by the medical record
+	// service and the bulk import (backfilled by AppointmentMedicalRecordFlagMigration)
+	@Column(name = "has_medical_record", nullable = false, columnDefinition = "BIT(1) NOT NULL DEFAULT 0")
+	@Builder.Default
+	private Boolean hasMedicalRecord = false;
+
 }
\ No newline at end of file
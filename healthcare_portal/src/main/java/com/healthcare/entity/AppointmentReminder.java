@@ -0,0 +1,33 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/*
+ * Marks a reminder as sent - one row per (appointment, offset), so a restart or a second node
+ * never sends the same reminder twice. appointment_id is a plain column (no FK) so deleting an
+ * appointment does not have to clean these up first.
+ */
+@Entity
+@Table(name = "appointment_reminders",
+    uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"appointment_id", "offset_minutes"})
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class AppointmentReminder extends BaseEntity {
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private Integer offsetMinutes;
+}
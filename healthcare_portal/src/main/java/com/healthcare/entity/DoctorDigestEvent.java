@@ -0,0 +1,59 @@
+package com.healthcare.entity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/*
+ * Append-only buffer of appointment events for the doctors' daily digest.
+ * Rows are written in the same transaction as the appointment change and deleted once digested.
+ * Values are copied in (no FKs) so the digest still makes sense after an appointment is deleted.
+ */
+@Entity
+@Table(name = "doctor_digest_events",
+    indexes = {
+        // lockByDoctor: locks only that doctor's rows, in id order
+        @Index(name = "idx_doctor_digest_events_doctor_id", columnList = "doctor_id, id")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class DoctorDigestEvent extends BaseEntity {
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EventType eventType;
+
+    @Column(nullable = false)
+    private String patientName;
+
+    @Column(nullable = false)
+    private LocalDate appointmentDate;
+
+    @Column(nullable = false)
+    private LocalTime appointmentTime;
+
+    @Column(nullable = false, length = 50)
+    private String status;
+
+    public enum EventType {
+        BOOKED,
+        UPDATED,
+        CANCELLED,
+        DELETED
+    }
+}
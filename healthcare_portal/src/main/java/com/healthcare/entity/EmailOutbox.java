@@ -0,0 +1,82 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+ * An email waiting to be sent - inserted in the same transaction as the change that triggers it,
+ * picked up and sent by EmailOutboxDispatcher. The row is deleted once the email is sent.
+ */
+@Entity
+@Table(name = "email_outbox",
+    indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_expires", columnList = "expires_at")
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class EmailOutbox extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private EmailType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // OTP code for the OTP mails, first name for welcome/confirmation, JSON for reminders/digests -
+    // encrypted with FieldEncryptor
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // Due time while PENDING, lease expiry while SENDING
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Set by each claim - only the claim that owns the row may record its outcome
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    // OTP mails are worthless once the code expires: not sent after this, then purged
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public enum EmailType {
+        SIGNUP_OTP,
+        PASSWORD_RESET_OTP,
+        WELCOME,
+        PASSWORD_RESET_CONFIRMATION,
+        APPOINTMENT_REMINDER,
+        DOCTOR_DIGEST
+    }
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT, // rows written before sent emails were deleted - purged
+
+        FAILED
+    }
+}
@@ -0,0 +1,29 @@
+package com.healthcare.entity;
+
+import com.healthcare.security.FieldEncryptor;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/*
+ * Binary counterpart of EncryptedTextConverter (revision payloads hold the same medical text, compressed).
+ */
+@Converter
+public class EncryptedBytesConverter implements AttributeConverter<byte[], byte[]> {
+
+    private final FieldEncryptor encryptor;
+
+    public EncryptedBytesConverter(FieldEncryptor encryptor) {
+        this.encryptor = encryptor;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(byte[] attribute) {
+        return encryptor.encrypt(attribute);
+    }
+
+    @Override
+    public byte[] convertToEntityAttribute(byte[] dbData) {
+        return encryptor.decrypt(dbData);
+    }
+}
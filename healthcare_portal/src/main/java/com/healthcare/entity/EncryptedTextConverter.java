@@ -0,0 +1,31 @@
+package com.healthcare.entity;
+
+import com.healthcare.security.FieldEncryptor;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/*
+ * Stores a text attribute AES-GCM encrypted (see FieldEncryptor). Runs only for columns a query actually
+ * selects: summary/ID projections that leave these columns out never decrypt anything.
+ * Created through Spring (Hibernate's bean container), hence the constructor injection.
+ */
+@Converter
+public class EncryptedTextConverter implements AttributeConverter<String, String> {
+
+    private final FieldEncryptor encryptor;
+
+    public EncryptedTextConverter(FieldEncryptor encryptor) {
+        this.encryptor = encryptor;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return encryptor.encrypt(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return encryptor.decrypt(dbData);
+    }
+}
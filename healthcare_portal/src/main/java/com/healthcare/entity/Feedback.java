@@ -7,6 +7,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -21,7 +22,11 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "feedback")
+@Table(name = "feedback",
+    indexes = {
+        // Patient timeline keyset (newest first)
+        @Index(name = "idx_feedback_patient_submitted", columnList = "patient_id, submitted_at")
+    })
 @Getter
 @Setter
 @NoArgsConstructor
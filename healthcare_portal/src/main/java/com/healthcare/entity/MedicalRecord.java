@@ -3,12 +3,17 @@ package com.healthcare.entity;
 import java.time.LocalDate;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.AllArgsConstructor;
@@ -18,7 +23,17 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "medical_records")
+@Table(name = "medical_records",
+    uniqueConstraints = {
+        // One record per appointment - backs the check in createMedicalRecord against concurrent inserts
+        @UniqueConstraint(name = "uk_medical_records_appointment", columnNames = "appointment_id")
+    },
+    indexes = {
+        // Patient timeline keyset (newest first)
+        @Index(name = "idx_medical_records_patient_date", columnList = "patient_id, record_date"),
+        // Search index catch-up on every node (records changed since the last poll)
+        @Index(name = "idx_medical_records_updated_on", columnList = "updated_on")
+    })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,6 +41,8 @@ import lombok.Setter;
 @Builder
 public class MedicalRecord extends BaseEntity {
 
+    public static final int PREVIEW_LENGTH = 150;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     @NotNull(message = "Patient must be specified for a medical record")
@@ -48,21 +65,46 @@ public class MedicalRecord extends BaseEntity {
 
     @Lob // Used for TEXT type in MySQL
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = EncryptedTextConverter.class)
     private String diagnosis;
 
+    // First PREVIEW_LENGTH characters of the diagnosis, encrypted on its own so list screens and the timeline
+    // decrypt a short value instead of the whole diagnosis (kept in step by updateDiagnosisPreview)
+    @Column(name = "diagnosis_preview", length = 1024)
+    @Convert(converter = EncryptedTextConverter.class)
+    private String diagnosisPreview;
+
     @Lob // Used for TEXT type in MySQL
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = EncryptedTextConverter.class)
     private String prescription;
 
     @Lob // Used for TEXT type in MySQL
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = EncryptedTextConverter.class)
     private String notes;
 
+    // Legacy attachment list (JSON), only still written by the bulk import; AttachmentJsonMigration moves
+    // it into MedicalRecordAttachment rows and clears it. Read-only here, so saving a record that was loaded
+    // before the migration cleared it cannot bring the JSON back
     @Lob // Used for JSON type in MySQL, stored as String in Java
-    @Column(columnDefinition = "JSON")
-    private String attachments; // Stores JSON string of file paths/URLs
+    @Column(columnDefinition = "JSON", insertable = false, updatable = false)
+    private String attachments;
+
+    @PrePersist
+    @PreUpdate
+    void updateDiagnosisPreview() {
+        diagnosisPreview = preview(diagnosis);
+    }
 
-   
+    public static String preview(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        // Never end on half of a surrogate pair
+        int end = Character.isHighSurrogate(text.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return text.substring(0, end);
+    }
 }
 
 
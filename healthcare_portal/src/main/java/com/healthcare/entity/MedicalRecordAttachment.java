@@ -0,0 +1,67 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * One file attached to a medical record. The content lives in AttachmentStorage under storage_key
+ * (content-addressed by sha256); creation_date is the date it was attached.
+ * Replaces the free-form JSON in medical_records.attachments (migrated by AttachmentJsonMigration).
+ */
+@Entity
+@Table(name = "attachments",
+    uniqueConstraints = {
+        // The same file is attached to a record once; also serves the batch fetch by medical_record_id
+        @UniqueConstraint(name = "uk_attachments_record_sha256", columnNames = {"medical_record_id", "sha256"})
+    },
+    indexes = {
+        // "Lab reports of patient X in 2025": records by (patient_id, record_date), then their attachments by category
+        @Index(name = "idx_attachments_record_category", columnList = "medical_record_id, category"),
+        // Orphaned content sweep: is this file still attached anywhere
+        @Index(name = "idx_attachments_sha256", columnList = "sha256")
+    })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicalRecordAttachment extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medical_record_id", nullable = false)
+    private MedicalRecord medicalRecord;
+
+    @Column(nullable = false)
+    @NotBlank(message = "Attachment name cannot be empty")
+    private String name; // original file name
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false, length = 20)
+    @Pattern(regexp = "LAB_REPORT|IMAGING|PRESCRIPTION|REFERRAL|OTHER", message = "Invalid attachment category")
+    @Builder.Default
+    private String category = "OTHER";
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long size;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "storage_key", nullable = false, length = 100)
+    private String storageKey; // path relative to app.attachments.dir
+}
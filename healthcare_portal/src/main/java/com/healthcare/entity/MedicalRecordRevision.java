@@ -0,0 +1,48 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/*
+ * Append-only history of a medical record's diagnosis/prescription/notes (MedicalRecordHistory).
+ * Each row is either a full snapshot or a delta against the previous revision, deflate-compressed and encrypted.
+ * medical_record_id is a plain column (no FK) so the history outlives a deleted record; doctor_id is the
+ * record's doctor at that revision (who may still read the history once the record is gone).
+ */
+@Entity
+@Table(name = "medical_record_revisions",
+    uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"medical_record_id", "revision"})
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class MedicalRecordRevision extends BaseEntity {
+
+    @Column(name = "medical_record_id", nullable = false)
+    private Long medicalRecordId;
+
+    @Column(nullable = false)
+    private Integer revision;
+
+    @Column(nullable = false)
+    private Boolean snapshot;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "edited_by")
+    private Long editedBy; // user id
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    @Convert(converter = EncryptedBytesConverter.class) // compressed first, then encrypted
+    private byte[] payload;
+}
@@ -0,0 +1,29 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/*
+ * A deleted medical record's ID, written in the delete transaction, so the search index on other
+ * nodes drops it on its next catch-up poll. Rows are purged after app.search.tombstone-retention-hours.
+ */
+@Entity
+@Table(name = "medical_record_tombstones",
+    indexes = {
+        @Index(name = "idx_record_tombstones_updated_on", columnList = "updated_on")
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class MedicalRecordTombstone extends BaseEntity {
+
+    @Column(name = "medical_record_id", nullable = false)
+    private Long medicalRecordId;
+}
@@ -11,8 +11,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "otps",
-    uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"email", "type", "is_used"})
+    indexes = {
+        @Index(name = "idx_otps_email_type", columnList = "email, type"),
+        @Index(name = "idx_otps_expiry_time", columnList = "expiry_time"),
+        @Index(name = "idx_otps_is_used", columnList = "is_used")
     }
 )
 @Data
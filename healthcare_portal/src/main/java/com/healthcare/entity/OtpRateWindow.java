@@ -0,0 +1,41 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/*
+ * Shared sliding window for OTP requests (used by JpaOtpRateLimiter).
+ * One row per (email, type); issuedAt holds the last few request times as comma separated epoch millis.
+ * Rows whose last request is older than the window are deleted by OtpPurgeJob.
+ */
+@Entity
+@Table(name = "otp_rate_windows",
+    uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"email", "type"})
+    },
+    indexes = {
+        // OtpPurgeJob: windows nobody requested an OTP through for longer than the window
+        @Index(name = "idx_otp_rate_windows_updated_on", columnList = "updated_on")
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = false)
+public class OtpRateWindow extends BaseEntity {
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private Otp.OtpType type;
+
+    @Column(name = "issued_at", nullable = false)
+    @Builder.Default
+    private String issuedAt = "";
+}
@@ -11,9 +11,11 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import com.healthcare.custom_exceptions.InvalidInputException;
 import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
 import com.healthcare.dto.ApiResponse;
 
 import jakarta.validation.ConstraintViolationException;
@@ -65,6 +67,23 @@ public class GlobalExceptionHandler {
 				.body(new ApiResponse<String>(false, e.getMessage(), null));
 	}
 
+	// Handle load shedding (e.g. password hashing pool saturated) - client should retry later
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<?> handleServiceUnavailableException(ServiceUnavailableException e) {
+		System.out.println("in catch - ServiceUnavailableException: " + e.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)// SC 503
+				.header("Retry-After", "1")
+				.body(new ApiResponse<String>(false, e.getMessage(), null));
+	}
+
+	// Upload larger than spring.servlet.multipart.max-file-size / max-request-size
+	@ExceptionHandler(MaxUploadSizeExceededException.class)
+	public ResponseEntity<?> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
+		System.out.println("in catch - MaxUploadSizeExceededException: " + e.getMessage());
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)// SC 413
+				.body(new ApiResponse<String>(false, "Uploaded file is too large", null));
+	}
+
 	// add exception handling method - to catch remaining excs (catch-all)
 	@ExceptionHandler(RuntimeException.class)
 	public ResponseEntity<?> handleRuntimeException(RuntimeException e) {
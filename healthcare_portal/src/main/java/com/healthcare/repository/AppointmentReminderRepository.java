@@ -0,0 +1,27 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.AppointmentReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AppointmentReminderRepository extends JpaRepository<AppointmentReminder, Long> {
+
+    List<AppointmentReminder> findByAppointmentIdIn(Collection<Long> appointmentIds);
+
+    // 1 if this call recorded the reminder, 0 if it was already sent (by this or another node)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO appointment_reminders (appointment_id, offset_minutes, creation_date, updated_on) "
+            + "VALUES (:appointmentId, :offsetMinutes, CURRENT_DATE, NOW())", nativeQuery = true)
+    int markSent(@Param("appointmentId") Long appointmentId, @Param("offsetMinutes") int offsetMinutes);
+
+    @Modifying
+    @Query("DELETE FROM AppointmentReminder r WHERE r.appointmentId = :appointmentId")
+    int deleteByAppointmentId(@Param("appointmentId") Long appointmentId);
+}
@@ -1,14 +1,19 @@
 package com.healthcare.repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.healthcare.dto.TimelineEntryDTO;
 import com.healthcare.entity.Appointment;
 
 @Repository
@@ -41,6 +46,9 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Find appointments by schedule ID
     List<Appointment> findByScheduleId(Long scheduleId);
     
+    // Ownership check used by the request authorization rules (PK lookup + FK compare)
+    boolean existsByIdAndPatientId(Long id, Long patientId);
+    
     // Check if patient has already booked this schedule
     boolean existsByPatientIdAndScheduleId(Long patientId, Long scheduleId);
     
@@ -48,11 +56,12 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByPatientIdAndScheduleId(Long patientId, Long scheduleId);
     
     // Find available appointments for a patient with a specific doctor that don't have medical records
-    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.doctor.id = :doctorId AND a.status IN ('PENDING', 'CONFIRMED') AND NOT EXISTS (SELECT mr FROM MedicalRecord mr WHERE mr.appointment.id = a.id)")
+    // (idx_appointments_doctor_patient_status_record)
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor WHERE a.doctor.id = :doctorId AND a.patient.id = :patientId AND a.status IN ('PENDING', 'CONFIRMED') AND a.hasMedicalRecord = false")
     List<Appointment> findByPatientIdAndDoctorIdAndNoMedicalRecord(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
     
     // Legacy method for backward compatibility
-    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.doctor.id = :doctorId AND a.status = :status AND NOT EXISTS (SELECT mr FROM MedicalRecord mr WHERE mr.appointment.id = a.id)")
+    @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND a.patient.id = :patientId AND a.status = :status AND a.hasMedicalRecord = false")
     List<Appointment> findByPatientIdAndDoctorIdAndStatusAndNoMedicalRecord(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId, @Param("status") String status);
     
     // Find appointment with all related data
@@ -78,4 +87,36 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Find appointments by date with details
     @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor JOIN FETCH a.schedule WHERE a.appointmentDate = :date")
     List<Appointment> findByAppointmentDateWithDetails(@Param("date") LocalDate date);
-} 
\ No newline at end of file
+    
+    // Confirmed appointments in a date range, for the reminder scheduler's look-ahead window
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor WHERE a.status = 'CONFIRMED' AND a.appointmentDate BETWEEN :from AND :to")
+    List<Appointment> findConfirmedBetweenWithPeople(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor WHERE a.id IN :ids")
+    List<Appointment> findByIdInWithPeople(@Param("ids") Collection<Long> ids);
+    
+    // Everything creating a medical record checks, in one query: the appointment (with its hasMedicalRecord
+    // flag) with patient, doctor and the doctor's department
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor d LEFT JOIN FETCH d.department WHERE a.id = :id")
+    Optional<Appointment> findForMedicalRecord(@Param("id") Long id);
+    
+    // CONFIRMED -> COMPLETED with its medical record, only if it is still CONFIRMED and has none (0 = it was not)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = 'COMPLETED', a.hasMedicalRecord = true, a.updatedOn = CURRENT_TIMESTAMP "
+            + "WHERE a.id = :id AND a.status = 'CONFIRMED' AND a.hasMedicalRecord = false")
+    int completeWithMedicalRecord(@Param("id") Long id);
+    
+    // Keep the denormalised flag in sync when a medical record moves to another appointment or is deleted
+    @Modifying
+    @Query("UPDATE Appointment a SET a.hasMedicalRecord = :hasMedicalRecord WHERE a.id = :id")
+    int setHasMedicalRecord(@Param("id") Long id, @Param("hasMedicalRecord") boolean hasMedicalRecord);
+    
+    // Timeline page of a patient's appointments strictly after the (date, time, id) cursor, newest first
+    @Query("SELECT new com.healthcare.dto.TimelineEntryDTO('APPOINTMENT', a.id, a.appointmentDate, a.appointmentTime, "
+            + "d.id, CONCAT('Dr. ', d.firstName, ' ', d.lastName), a.status, SUBSTRING(CAST(a.reason AS String), 1, 150), CAST(NULL AS Integer)) "
+            + "FROM Appointment a JOIN a.doctor d WHERE a.patient.id = :patientId AND (a.appointmentDate < :date "
+            + "OR (a.appointmentDate = :date AND (a.appointmentTime < :time OR (a.appointmentTime = :time AND a.id < :id)))) "
+            + "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC, a.id DESC")
+    List<TimelineEntryDTO> findTimelinePage(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+            @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+}
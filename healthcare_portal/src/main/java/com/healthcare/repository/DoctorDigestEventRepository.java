@@ -0,0 +1,21 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.DoctorDigestEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DoctorDigestEventRepository extends JpaRepository<DoctorDigestEvent, Long> {
+
+    @Query("SELECT DISTINCT e.doctorId FROM DoctorDigestEvent e")
+    List<Long> findDoctorIds();
+
+    // One doctor's oldest events; SKIP LOCKED keeps a second node from building the same digest
+    @Query(value = "SELECT * FROM doctor_digest_events WHERE doctor_id = :doctorId ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<DoctorDigestEvent> lockByDoctor(@Param("doctorId") Long doctorId, @Param("limit") int limit);
+}
@@ -0,0 +1,67 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Due rows (PENDING, or SENDING whose lease ran out because a node died mid-send) that have not expired.
+    // SKIP LOCKED lets every node claim a different batch without waiting on each other.
+    @Query(value = "SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now "
+            + "AND (expires_at IS NULL OR expires_at > :now) "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.claimToken = :token, e.nextAttemptAt = :leaseUntil "
+            + "WHERE e.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("status") EmailOutbox.Status status, @Param("token") String token,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Restart the lease when the send actually begins; 0 rows = the claim was lost or the email expired
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.nextAttemptAt = :leaseUntil WHERE e.id = :id "
+            + "AND e.status = 'SENDING' AND e.claimToken = :token "
+            + "AND (e.expiresAt IS NULL OR e.expiresAt > :now)")
+    int renewLease(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.id = :id "
+            + "AND e.status = 'SENDING' AND e.claimToken = :token")
+    int deleteSent(@Param("id") Long id, @Param("token") String token);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :error, e.claimToken = null WHERE e.id = :id "
+            + "AND e.status = 'SENDING' AND e.claimToken = :token")
+    int markFailed(@Param("id") Long id, @Param("token") String token, @Param("status") EmailOutbox.Status status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    // Hand a claimed row back without counting an attempt (local queue was full)
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.claimToken = null "
+            + "WHERE e.id = :id AND e.status = 'SENDING' AND e.claimToken = :token")
+    int release(@Param("id") Long id, @Param("token") String token, @Param("status") EmailOutbox.Status status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Expired emails (OTP codes) and SENT rows left by older versions, whatever their state
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM email_outbox WHERE (expires_at IS NOT NULL AND expires_at <= :now) OR status = 'SENT' "
+            + "LIMIT :limit", nativeQuery = true)
+    int purge(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -1,13 +1,16 @@
 package com.healthcare.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.healthcare.dto.TimelineEntryDTO;
 import com.healthcare.entity.Feedback;
 
 @Repository
@@ -25,6 +28,11 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Find feedback by patient ID and doctor ID
     List<Feedback> findByPatientIdAndDoctorId(Long patientId, Long doctorId);
     
+    // Ownership checks used by the request authorization rules (PK lookup + FK compare)
+    boolean existsByIdAndPatientId(Long id, Long patientId);
+    
+    boolean existsByIdAndDoctorId(Long id, Long doctorId);
+    
     // Find feedback with all related data
     @Query("SELECT f FROM Feedback f JOIN FETCH f.patient LEFT JOIN FETCH f.doctor WHERE f.id = :id")
     Optional<Feedback> findByIdWithDetails(@Param("id") Long id);
@@ -56,4 +64,13 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Find doctor-specific feedback
     @Query("SELECT f FROM Feedback f JOIN FETCH f.patient LEFT JOIN FETCH f.doctor WHERE f.doctor IS NOT NULL")
     List<Feedback> findDoctorFeedbackWithDetails();
-} 
\ No newline at end of file
+    
+    // Timeline page of a patient's feedback strictly after the (submitted at, id) cursor, newest first
+    @Query("SELECT new com.healthcare.dto.TimelineEntryDTO('FEEDBACK', f.id, f.submittedAt, "
+            + "d.id, CONCAT('Dr. ', d.firstName, ' ', d.lastName), CAST(NULL AS String), SUBSTRING(CAST(f.comments AS String), 1, 150), f.rating) "
+            + "FROM Feedback f LEFT JOIN f.doctor d WHERE f.patient.id = :patientId "
+            + "AND (f.submittedAt < :submittedAt OR (f.submittedAt = :submittedAt AND f.id < :id)) "
+            + "ORDER BY f.submittedAt DESC, f.id DESC")
+    List<TimelineEntryDTO> findTimelinePage(@Param("patientId") Long patientId, @Param("submittedAt") LocalDateTime submittedAt,
+            @Param("id") Long id, Pageable pageable);
+}
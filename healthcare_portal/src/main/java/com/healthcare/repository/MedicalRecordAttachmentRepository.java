@@ -0,0 +1,55 @@
+package com.healthcare.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.entity.MedicalRecordAttachment;
+
+@Repository
+public interface MedicalRecordAttachmentRepository extends JpaRepository<MedicalRecordAttachment, Long> {
+
+    String ATTACHMENT_SELECT = "SELECT new com.healthcare.dto.AttachmentDTO(a.name, a.contentType, a.size, a.sha256, "
+            + "a.category, a.creationDate, a.medicalRecord.id, mr.recordDate) "
+            + "FROM MedicalRecordAttachment a JOIN a.medicalRecord mr ";
+
+    // Attachments of a page of records in one query (uk_attachments_record_sha256)
+    @Query(ATTACHMENT_SELECT + "WHERE a.medicalRecord.id IN :recordIds ORDER BY a.medicalRecord.id, a.id")
+    List<AttachmentDTO> findByMedicalRecordIds(@Param("recordIds") Collection<Long> recordIds);
+
+    @Query(ATTACHMENT_SELECT + "WHERE a.medicalRecord.id = :recordId AND a.sha256 = :sha256")
+    Optional<AttachmentDTO> findByMedicalRecordIdAndSha256(@Param("recordId") Long recordId, @Param("sha256") String sha256);
+
+    // Content hashes already attached to a record (duplicates are skipped, uk_attachments_record_sha256)
+    @Query("SELECT a.sha256 FROM MedicalRecordAttachment a WHERE a.medicalRecord.id = :recordId")
+    Set<String> findSha256ByMedicalRecordId(@Param("recordId") Long recordId);
+
+    // Which of these content hashes any attachment still references (idx_attachments_sha256)
+    @Query("SELECT DISTINCT a.sha256 FROM MedicalRecordAttachment a WHERE a.sha256 IN :sha256s")
+    Set<String> findReferencedSha256(@Param("sha256s") Collection<String> sha256s);
+
+    // A patient's attachments, optionally of one category and within a record date range, newest first
+    // (idx_medical_records_patient_date for the records, then idx_attachments_record_category)
+    @Query(ATTACHMENT_SELECT + "WHERE mr.patient.id = :patientId AND (:category IS NULL OR a.category = :category) "
+            + "AND (:from IS NULL OR mr.recordDate >= :from) AND (:to IS NULL OR mr.recordDate <= :to) "
+            + "ORDER BY mr.recordDate DESC, a.id DESC")
+    List<AttachmentDTO> findByPatientId(@Param("patientId") Long patientId, @Param("category") String category,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM MedicalRecordAttachment a WHERE a.medicalRecord.id = :recordId")
+    int deleteByMedicalRecordId(@Param("recordId") Long recordId);
+
+    @Modifying
+    @Query("DELETE FROM MedicalRecordAttachment a WHERE a.medicalRecord.id = :recordId AND a.sha256 IN :sha256s")
+    int deleteByMedicalRecordIdAndSha256In(@Param("recordId") Long recordId, @Param("sha256s") Collection<String> sha256s);
+}
@@ -1,19 +1,37 @@
 package com.healthcare.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.healthcare.dto.MedicalRecordSummaryDTO;
+import com.healthcare.dto.TimelineEntryDTO;
 import com.healthcare.entity.MedicalRecord;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
     
+    // Summary rows for list screens: no LOB column is selected - the diagnosis is encrypted and cannot be cut
+    // by the database, so the preview comes from its own (short, separately encrypted) column
+    String SUMMARY_SELECT = "SELECT new com.healthcare.dto.MedicalRecordSummaryDTO(mr.id, mr.recordDate, "
+            + "p.id, CONCAT(p.firstName, ' ', p.lastName), d.id, CONCAT(d.firstName, ' ', d.lastName), dep.name, "
+            + "mr.appointment.id, mr.diagnosisPreview, "
+            + "CASE WHEN mr.attachments IS NOT NULL OR EXISTS (SELECT 1 FROM MedicalRecordAttachment a WHERE a.medicalRecord = mr) "
+            + "THEN true ELSE false END) "
+            + "FROM MedicalRecord mr JOIN mr.patient p JOIN mr.doctor d LEFT JOIN d.department dep ";
+    
     // Find medical records by patient ID
     List<MedicalRecord> findByPatientId(Long patientId);
     
@@ -35,6 +53,9 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     // Check if medical record exists by appointment ID
     boolean existsByAppointmentId(Long appointmentId);
     
+    // Ownership check used by the request authorization rules (PK lookup + FK compare)
+    boolean existsByIdAndDoctorId(Long id, Long doctorId);
+    
     // Find medical records with all related data
     @Query("SELECT mr FROM MedicalRecord mr JOIN FETCH mr.patient JOIN FETCH mr.doctor JOIN FETCH mr.appointment WHERE mr.id = :id")
     Optional<MedicalRecord> findByIdWithDetails(@Param("id") Long id);
@@ -58,4 +79,42 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     // Find medical records by patient and doctor with details
     @Query("SELECT mr FROM MedicalRecord mr JOIN FETCH mr.patient JOIN FETCH mr.doctor JOIN FETCH mr.appointment WHERE mr.patient.id = :patientId AND mr.doctor.id = :doctorId")
     List<MedicalRecord> findByPatientIdAndDoctorIdWithDetails(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
-} 
\ No newline at end of file
+    
+    // Find medical records by IDs with details (search hits)
+    @Query("SELECT mr FROM MedicalRecord mr JOIN FETCH mr.patient JOIN FETCH mr.doctor JOIN FETCH mr.appointment WHERE mr.id IN :ids")
+    List<MedicalRecord> findByIdInWithDetails(@Param("ids") Collection<Long> ids);
+    
+    // Searchable text of the records after an ID (keyset batches for building the search index): id, doctorId, patientId, diagnosis, prescription, notes
+    @Query("SELECT mr.id, mr.doctor.id, mr.patient.id, mr.diagnosis, mr.prescription, mr.notes FROM MedicalRecord mr WHERE mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Searchable text of the records changed since a point in time (same columns as above)
+    @Query("SELECT mr.id, mr.doctor.id, mr.patient.id, mr.diagnosis, mr.prescription, mr.notes FROM MedicalRecord mr WHERE mr.updatedOn >= :since")
+    List<Object[]> findSearchRowsUpdatedSince(@Param("since") LocalDateTime since);
+    
+    // Lock the record row (serializes attachment changes and revisions of one record)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mr FROM MedicalRecord mr WHERE mr.id = :id")
+    Optional<MedicalRecord> findByIdForUpdate(@Param("id") Long id);
+    
+    // Summaries of a patient's records, newest first
+    @Query(SUMMARY_SELECT + "WHERE p.id = :patientId ORDER BY mr.recordDate DESC, mr.id DESC")
+    List<MedicalRecordSummaryDTO> findSummariesByPatientId(@Param("patientId") Long patientId);
+    
+    // Summaries of the records written by a doctor, newest first
+    @Query(SUMMARY_SELECT + "WHERE d.id = :doctorId ORDER BY mr.recordDate DESC, mr.id DESC")
+    List<MedicalRecordSummaryDTO> findSummariesByDoctorId(@Param("doctorId") Long doctorId);
+    
+    // Summaries of all records, newest first
+    @Query(SUMMARY_SELECT + "ORDER BY mr.recordDate DESC, mr.id DESC")
+    List<MedicalRecordSummaryDTO> findAllSummaries();
+    
+    // Timeline page of a patient's medical records (record date + appointment time) strictly after the cursor, newest first
+    @Query("SELECT new com.healthcare.dto.TimelineEntryDTO('MEDICAL_RECORD', mr.id, mr.recordDate, a.appointmentTime, "
+            + "d.id, CONCAT('Dr. ', d.firstName, ' ', d.lastName), CAST(NULL AS String), mr.diagnosisPreview, CAST(NULL AS Integer)) "
+            + "FROM MedicalRecord mr JOIN mr.doctor d JOIN mr.appointment a WHERE mr.patient.id = :patientId AND (mr.recordDate < :date "
+            + "OR (mr.recordDate = :date AND (a.appointmentTime < :time OR (a.appointmentTime = :time AND mr.id < :id)))) "
+            + "ORDER BY mr.recordDate DESC, a.appointmentTime DESC, mr.id DESC")
+    List<TimelineEntryDTO> findTimelinePage(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+            @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,34 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.MedicalRecordRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MedicalRecordRevisionRepository extends JpaRepository<MedicalRecordRevision, Long> {
+
+    @Query("SELECT MAX(r.revision) FROM MedicalRecordRevision r WHERE r.medicalRecordId = :recordId")
+    Optional<Integer> findLatestRevision(@Param("recordId") Long recordId);
+
+    // Was the doctor on the latest revision (the record's doctor when it was deleted)
+    @Query("SELECT COUNT(r) > 0 FROM MedicalRecordRevision r WHERE r.medicalRecordId = :recordId AND r.doctorId = :doctorId "
+            + "AND r.revision = (SELECT MAX(l.revision) FROM MedicalRecordRevision l WHERE l.medicalRecordId = :recordId)")
+    boolean isLatestDoctor(@Param("recordId") Long recordId, @Param("doctorId") Long doctorId);
+
+    // Newest snapshot at or before a revision - the starting point for rebuilding it
+    @Query("SELECT MAX(r.revision) FROM MedicalRecordRevision r WHERE r.medicalRecordId = :recordId "
+            + "AND r.snapshot = true AND r.revision <= :revision")
+    Optional<Integer> findSnapshotRevision(@Param("recordId") Long recordId, @Param("revision") int revision);
+
+    List<MedicalRecordRevision> findByMedicalRecordIdAndRevisionBetweenOrderByRevision(Long medicalRecordId, int from, int to);
+
+    // Revision list without the payloads: revision, snapshot, edited by, updated on
+    @Query("SELECT r.revision, r.snapshot, r.editedBy, r.updatedOn FROM MedicalRecordRevision r "
+            + "WHERE r.medicalRecordId = :recordId ORDER BY r.revision DESC")
+    List<Object[]> findRevisionInfo(@Param("recordId") Long recordId);
+}
@@ -0,0 +1,24 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.MedicalRecordTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MedicalRecordTombstoneRepository extends JpaRepository<MedicalRecordTombstone, Long> {
+
+    @Query("SELECT t.medicalRecordId FROM MedicalRecordTombstone t WHERE t.updatedOn >= :since")
+    List<Long> findRecordIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MedicalRecordTombstone t WHERE t.updatedOn < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
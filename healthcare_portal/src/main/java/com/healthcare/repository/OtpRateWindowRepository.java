@@ -0,0 +1,43 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.Otp;
+import com.healthcare.entity.OtpRateWindow;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OtpRateWindowRepository extends JpaRepository<OtpRateWindow, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM OtpRateWindow w WHERE w.email = :email AND w.type = :type")
+    Optional<OtpRateWindow> findForUpdate(@Param("email") String email, @Param("type") Otp.OtpType type);
+
+    // Creates the row if it does not exist yet; a concurrent insert from another node is simply ignored
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO otp_rate_windows (email, type, issued_at, creation_date, updated_on) "
+            + "VALUES (:email, :type, '', CURRENT_DATE, NOW())", nativeQuery = true)
+    void insertIfAbsent(@Param("email") String email, @Param("type") int typeOrdinal);
+
+    // Batches for OtpPurgeJob: windows whose newest request is older than the window, so every timestamp
+    // in them has expired (idx_otp_rate_windows_updated_on)
+    @Query(value = "SELECT id FROM otp_rate_windows WHERE updated_on < :cutoff ORDER BY updated_on LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findStaleIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // Re-checks the cutoff: a window used again since it was picked stays
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OtpRateWindow w WHERE w.id IN :ids AND w.updatedOn < :cutoff")
+    int deleteStale(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -23,6 +25,10 @@ public interface OtpRepository extends JpaRepository<Otp, Long> {
     @Query("DELETE FROM Otp o WHERE o.email = :email AND o.type = :type")
     void deleteByEmailAndType(@Param("email") String email, @Param("type") Otp.OtpType type);
     
-    @Query("SELECT COUNT(o) FROM Otp o WHERE o.email = :email AND o.type = :type AND o.updatedOn > :since")
-    long countRecentOtps(@Param("email") String email, @Param("type") Otp.OtpType type, @Param("since") java.time.LocalDateTime since);
+    // Batches for OtpPurgeJob - both served by an index (idx_otps_expiry_time / idx_otps_is_used)
+    @Query(value = "SELECT id FROM otps WHERE expiry_time < :now ORDER BY expiry_time LIMIT :limit", nativeQuery = true)
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Query(value = "SELECT id FROM otps WHERE is_used = true LIMIT :limit", nativeQuery = true)
+    List<Long> findUsedIds(@Param("limit") int limit);
 }
@@ -14,6 +14,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 	Optional<User> findByEmail(String email);
 	
+	boolean existsByEmail(String email);
+	
 	@Query("SELECT u FROM User u LEFT JOIN FETCH u.department WHERE u.email = :email")
 	Optional<User> findByEmailWithDepartment(@Param("email") String email);
 	
@@ -0,0 +1,216 @@
+package com.healthcare.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.config.RateLimitProperties;
+import com.healthcare.dto.ApiResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Per-IP and per-account token buckets for the public auth endpoints (signin, OTP, reset...).
+ * Runs before the JWT filter so abusive traffic is rejected (429) before it reaches BCrypt or the DB.
+ * Only registered in the security chain (SecurityConfig disables the automatic servlet registration).
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final long ONE_MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RateLimitProperties.Route> routesByPath = new HashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    public AuthRateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        properties.getRoutes().values().forEach(route -> routesByPath.put(route.getPath(), route));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !routesByPath.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        RateLimitProperties.Route route = routesByPath.get(path);
+        long now = System.nanoTime();
+
+        if (route.getIpPerMinute() > 0) {
+            TokenBucket ipBucket = bucket(ipBuckets, path + "|" + request.getRemoteAddr(), route.getIpPerMinute(), now);
+            if (!ipBucket.tryConsume(now)) {
+                reject(response, path, "ip", ipBucket.nanosUntilNextToken(now));
+                return;
+            }
+        }
+
+        HttpServletRequest forwarded = request;
+        if (route.getAccountPerMinute() > 0 && "POST".equalsIgnoreCase(request.getMethod())) {
+            // Body has to be read here to find the account - replay it to the controller afterwards.
+            // Auth bodies are a few fields; anything larger is refused before it is buffered
+            int maxBodyBytes = properties.getMaxBodyBytes();
+            if (request.getContentLengthLong() > maxBodyBytes) {
+                rejectTooLarge(response, maxBodyBytes);
+                return;
+            }
+            CachedBodyRequest cached = new CachedBodyRequest(request, maxBodyBytes);
+            if (cached.body.length > maxBodyBytes) {
+                rejectTooLarge(response, maxBodyBytes);
+                return;
+            }
+            forwarded = cached;
+            String email = extractEmail(cached.body);
+            if (email != null) {
+                TokenBucket accountBucket = bucket(accountBuckets, path + "|" + email, route.getAccountPerMinute(), now);
+                if (!accountBucket.tryConsume(now)) {
+                    reject(response, path, "account", accountBucket.nanosUntilNextToken(now));
+                    return;
+                }
+            }
+        }
+
+        chain.doFilter(forwarded, response);
+    }
+
+    private TokenBucket bucket(ConcurrentHashMap<String, TokenBucket> buckets, String key, int perMinute, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (trackedKeys() >= properties.getMaxTrackedKeys()) {
+            evict(now);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(perMinute, ONE_MINUTE_NANOS));
+    }
+
+    int trackedKeys() {
+        return ipBuckets.size() + accountBuckets.size();
+    }
+
+    // Full buckets are dropped first (no information is lost). If that is not enough (e.g. a spray from
+    // many IPs), IP buckets go next, then account buckets that still have a token. An account that is
+    // currently throttled is never dropped - a spray must not be able to reset a lockout (throttled buckets
+    // are full again, and droppable, within a minute, so this can only overshoot the bound briefly).
+    private void evict(long now) {
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        int target = properties.getMaxTrackedKeys() * 9 / 10;
+        Iterator<TokenBucket> it = ipBuckets.values().iterator();
+        while (trackedKeys() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        it = accountBuckets.values().iterator();
+        while (trackedKeys() > target && it.hasNext()) {
+            if (it.next().nanosUntilNextToken(now) == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    private String extractEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase() : null;
+        } catch (IOException e) {
+            return null; // malformed JSON - let validation reject it downstream
+        }
+    }
+
+    private void reject(HttpServletResponse response, String path, String keyType, long retryAfterNanos) throws IOException {
+        meterRegistry.counter("auth.rate_limit.rejected", "route", path, "key", keyType).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + 1);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse<String>(false, "Too many requests. Please try again in " + retryAfterSeconds + " seconds.", null));
+    }
+
+    private void rejectTooLarge(HttpServletResponse response, int maxBodyBytes) throws IOException {
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse<String>(false, "Request body exceeds " + maxBodyBytes + " bytes", null));
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        // Reads at most maxBytes + 1 bytes, so a body over the limit is detected without buffering it
+        CachedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readNBytes(maxBytes + 1);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.healthcare.security;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/*
+ * BCrypt encoder whose encode/matches calls run on the PasswordHashingExecutor
+ * instead of the calling (request) thread.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+    private final int strength;
+
+    public BoundedPasswordEncoder(int strength, PasswordHashingExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.executor = executor;
+        this.strength = strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.encode(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.matches(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Any hash whose cost differs from the configured strength (up or down) is re-hashed on the next successful login
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(2)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // Runs matches directly on the calling thread - used only by the startup benchmark
+    boolean matchesOnCurrentThread(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+}
@@ -0,0 +1,64 @@
+package com.healthcare.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.entity.User;
+import com.healthcare.entity.UserRole;
+
+/*
+ * The authenticated user for the current request.
+ * Resolved once from the principal that JwtRequestFilter already loaded - services use this
+ * instead of SecurityContextHolder + userRepository.findByEmail(...) on every call.
+ */
+@Component
+@RequestScope
+public class CurrentUser {
+
+    private Long id;
+    private String email;
+    private UserRole role;
+
+    public Long getId() {
+        resolve();
+        return id;
+    }
+
+    public String getEmail() {
+        resolve();
+        return email;
+    }
+
+    public UserRole getRole() {
+        resolve();
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return getRole() == UserRole.ROLE_ADMIN;
+    }
+
+    public boolean isDoctor() {
+        return getRole() == UserRole.ROLE_DOCTOR;
+    }
+
+    public boolean isPatient() {
+        return getRole() == UserRole.ROLE_PATIENT;
+    }
+
+    private void resolve() {
+        if (id != null) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.role = user.getRole();
+    }
+}
@@ -5,6 +5,7 @@ import com.healthcare.custom_exceptions.ResourceNotFoundException;
 import com.healthcare.repository.UserRepository; // <--- IMPORTANT: Ensure this matches your repository package and name (e.g., 'com.healthcare.dao.UserDao' if you're using 'dao')
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -17,7 +18,7 @@ import java.util.Collection;
 import java.util.List;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository; // <--- IMPORTANT: Ensure this matches your repository interface name and type
@@ -31,4 +32,15 @@ public class CustomUserDetailsService implements UserDetailsService {
         // Use the User entity directly if it implements UserDetails, otherwise wrap it
         return user; // Assuming User.java implements UserDetails and its methods
     }
-}
\ No newline at end of file
+
+    // Called by the authentication provider after a successful login when the stored hash
+    // was created with a different BCrypt strength than the one currently configured
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newEncodedPassword);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,295 @@
+package com.healthcare.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * AES-256-GCM field encryption with envelope keys. Data keys live in data_encryption_keys, wrapped
+ * (AES-GCM) with the master key from app.records.encryption.master-key; they are unwrapped once and
+ * cached, so encrypting or decrypting a field is one GCM operation on a per-thread Cipher - no key
+ * derivation, no Cipher.getInstance, no database access.
+ * Text values are "ENC1:" + base64(key id | 12-byte IV | ciphertext + tag); values without the prefix are
+ * plaintext written before encryption was enabled and are returned unchanged.
+ * Key rows are read and written on their own autocommit connection, never inside the caller's transaction
+ * (a data key created by a transaction that rolls back would be lost with the data it encrypted).
+ * There is no default master key: with encryption enabled the application does not start without one.
+ */
+@Component
+public class FieldEncryptor {
+
+    public static final String PREFIX = "ENC1:";
+
+    private static final byte BINARY_VERSION = (byte) 0xE1; // never the first byte of a deflate/zlib stream
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM is not available", e);
+        }
+    });
+
+    private record DataKey(int id, SecretKey key) {
+    }
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final SecretKey masterKey;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<Integer, SecretKey> dataKeys = new ConcurrentHashMap<>();
+    private volatile DataKey activeKey;
+
+    public FieldEncryptor(DataSource dataSource,
+            @Value("${app.records.encryption.enabled:true}") boolean enabled,
+            @Value("${app.records.encryption.master-key:}") String masterKey) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        if (enabled && masterKey.isBlank()) {
+            throw new IllegalStateException("app.records.encryption.enabled=true but no master key is configured - "
+                    + "set MEDICAL_RECORD_MASTER_KEY (32 bytes, base64 encoded)");
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = masterKey.isBlank() ? new byte[0] : Base64.getDecoder().decode(masterKey.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("app.records.encryption.master-key is not valid base64");
+        }
+        if (keyBytes.length != 0 && keyBytes.length != 32) {
+            throw new IllegalStateException("app.records.encryption.master-key must be 32 bytes, base64 encoded");
+        }
+        this.masterKey = keyBytes.length == 0 ? null : new SecretKeySpec(keyBytes, "AES");
+    }
+
+    // Without a master key no data key can be used, so the key table is not needed either
+    @PostConstruct
+    public void createKeyTable() {
+        if (masterKey == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS data_encryption_keys ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, wrapped_key VARBINARY(128) NOT NULL, created_at DATETIME NOT NULL)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the data_encryption_keys table: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean hasMasterKey() {
+        return masterKey != null;
+    }
+
+    public static boolean isEncrypted(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    public static boolean isEncrypted(byte[] stored) {
+        return stored != null && stored.length > 0 && stored[0] == BINARY_VERSION;
+    }
+
+    /**
+     * Encrypted form of a text field (unchanged if encryption is disabled)
+     */
+    public String encrypt(String plaintext) {
+        return enabled ? encryptAlways(plaintext) : plaintext;
+    }
+
+    /**
+     * Encrypted form of a text value whatever app.records.encryption.enabled says - for data with its own
+     * switch (outbox payloads); needs the master key
+     */
+    public String encryptAlways(String plaintext) {
+        if (plaintext == null) {
+            return null;
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(seal(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Plaintext of a text field; values stored before encryption was enabled are returned as they are
+     */
+    public String decrypt(String stored) {
+        if (!isEncrypted(stored)) {
+            return stored;
+        }
+        byte[] sealed = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        return new String(open(sealed, 0), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encrypted form of a binary value, marked with a version byte (unchanged if encryption is disabled)
+     */
+    public byte[] encrypt(byte[] plaintext) {
+        if (plaintext == null || !enabled) {
+            return plaintext;
+        }
+        byte[] sealed = seal(plaintext);
+        byte[] out = new byte[sealed.length + 1];
+        out[0] = BINARY_VERSION;
+        System.arraycopy(sealed, 0, out, 1, sealed.length);
+        return out;
+    }
+
+    /**
+     * Plaintext of a binary value; values without the version byte are returned as they are
+     */
+    public byte[] decrypt(byte[] stored) {
+        if (!isEncrypted(stored)) {
+            return stored;
+        }
+        return open(stored, 1);
+    }
+
+    // key id | IV | ciphertext + tag
+    private byte[] seal(byte[] plaintext) {
+        DataKey key = activeKey();
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key.key(), new GCMParameterSpec(TAG_BITS, iv));
+            ByteBuffer out = ByteBuffer.allocate(4 + IV_BYTES + cipher.getOutputSize(plaintext.length));
+            out.putInt(key.id()).put(iv);
+            cipher.doFinal(ByteBuffer.wrap(plaintext), out);
+            return out.array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Field encryption failed", e);
+        }
+    }
+
+    private byte[] open(byte[] sealed, int offset) {
+        int keyId = ByteBuffer.wrap(sealed, offset, 4).getInt();
+        SecretKey key = dataKey(keyId);
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, offset + 4, IV_BYTES));
+            int start = offset + 4 + IV_BYTES;
+            return cipher.doFinal(sealed, start, sealed.length - start);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Field decryption failed (wrong master key or corrupt value)", e);
+        }
+    }
+
+    private SecretKey dataKey(int id) {
+        SecretKey key = dataKeys.get(id);
+        if (key == null) {
+            // Written by another node after this one loaded its keys
+            loadKeys();
+            key = dataKeys.get(id);
+            if (key == null) {
+                throw new IllegalStateException("Unknown data encryption key " + id);
+            }
+        }
+        return key;
+    }
+
+    private DataKey activeKey() {
+        DataKey key = activeKey;
+        if (key == null) {
+            synchronized (this) {
+                if (activeKey == null) {
+                    activeKey = loadKeys();
+                    if (activeKey == null) {
+                        activeKey = createKey();
+                    }
+                }
+                key = activeKey;
+            }
+        }
+        return key;
+    }
+
+    // Unwraps every key into the cache, returns the newest (null if there is none yet)
+    private synchronized DataKey loadKeys() {
+        requireMasterKey();
+        DataKey newest = null;
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT id, wrapped_key FROM data_encryption_keys ORDER BY id")) {
+            while (rs.next()) {
+                newest = new DataKey(rs.getInt(1), unwrap(rs.getBytes(2)));
+                dataKeys.put(newest.id(), newest.key());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load data encryption keys: " + e.getMessage(), e);
+        }
+        return newest;
+    }
+
+    private DataKey createKey() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, random);
+            SecretKey key = generator.generateKey();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO data_encryption_keys (wrapped_key, created_at) VALUES (?, NOW())",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                insert.setBytes(1, wrap(key));
+                insert.executeUpdate();
+                try (ResultSet rs = insert.getGeneratedKeys()) {
+                    rs.next();
+                    DataKey created = new DataKey(rs.getInt(1), key);
+                    dataKeys.put(created.id(), key);
+                    System.out.println("Created data encryption key " + created.id());
+                    return created;
+                }
+            }
+        } catch (SQLException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create a data encryption key: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] wrap(SecretKey key) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_BITS, iv));
+        byte[] wrapped = cipher.doFinal(key.getEncoded());
+        return ByteBuffer.allocate(IV_BYTES + wrapped.length).put(iv).put(wrapped).array();
+    }
+
+    private SecretKey unwrap(byte[] wrapped) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_BITS, wrapped, 0, IV_BYTES));
+            return new SecretKeySpec(cipher.doFinal(wrapped, IV_BYTES, wrapped.length - IV_BYTES), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not unwrap a data encryption key - wrong master key?", e);
+        }
+    }
+
+    private void requireMasterKey() {
+        if (masterKey == null) {
+            throw new IllegalStateException("Encrypted medical record data found but app.records.encryption.master-key is not set");
+        }
+    }
+}
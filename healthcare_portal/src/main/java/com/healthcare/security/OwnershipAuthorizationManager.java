@@ -0,0 +1,109 @@
+package com.healthcare.security;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import com.healthcare.entity.User;
+import com.healthcare.entity.UserRole;
+
+/*
+ * Typed replacement for "@PreAuthorize(... @someService.isOwnX(#id))" expressions.
+ * Roles are read from the authenticated User principal (no lookup), ownership is one
+ * exists-query per request and the result is memoized as a request attribute.
+ */
+public final class OwnershipAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    @FunctionalInterface
+    public interface OwnershipCheck {
+        boolean isOwner(Map<String, String> pathVariables, Long userId);
+    }
+
+    private final String attributeKey;
+    private final Set<UserRole> unrestrictedRoles;
+    private final Map<UserRole, OwnershipCheck> ownershipChecks;
+
+    private OwnershipAuthorizationManager(String name, Set<UserRole> unrestrictedRoles, Map<UserRole, OwnershipCheck> ownershipChecks) {
+        this.attributeKey = OwnershipAuthorizationManager.class.getName() + "." + name;
+        this.unrestrictedRoles = unrestrictedRoles;
+        this.ownershipChecks = ownershipChecks;
+    }
+
+    public static Builder named(String name) {
+        return new Builder(name);
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Authentication auth = authentication.get();
+        if (auth == null || !(auth.getPrincipal() instanceof User user)) {
+            return DENIED;
+        }
+        if (unrestrictedRoles.contains(user.getRole())) {
+            return GRANTED;
+        }
+        OwnershipCheck ownershipCheck = ownershipChecks.get(user.getRole());
+        if (ownershipCheck == null) {
+            return DENIED;
+        }
+
+        // Memoize per request (the same request can be authorized again e.g. on error dispatch)
+        String key = attributeKey + context.getVariables();
+        Object memo = context.getRequest().getAttribute(key);
+        if (memo instanceof Boolean granted) {
+            return granted ? GRANTED : DENIED;
+        }
+        boolean granted = ownershipCheck.isOwner(context.getVariables(), user.getId());
+        context.getRequest().setAttribute(key, granted);
+        return granted ? GRANTED : DENIED;
+    }
+
+    // Still abstract in AuthorizationManager; Spring Security itself only calls authorize()
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return (AuthorizationDecision) authorize(authentication, context);
+    }
+
+    // Path variables are constrained to digits in SecurityConfig ({id:\d+}), so this never sees garbage
+    public static Long id(Map<String, String> pathVariables, String name) {
+        return Long.valueOf(pathVariables.get(name));
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final Set<UserRole> unrestrictedRoles = EnumSet.noneOf(UserRole.class);
+        private final Map<UserRole, OwnershipCheck> ownershipChecks = new EnumMap<>(UserRole.class);
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        // Roles that are granted without any ownership check
+        public Builder permit(UserRole... roles) {
+            unrestrictedRoles.addAll(Set.of(roles));
+            return this;
+        }
+
+        // Role that is granted only when the check passes
+        public Builder owner(UserRole role, OwnershipCheck check) {
+            ownershipChecks.put(role, check);
+            return this;
+        }
+
+        public OwnershipAuthorizationManager build() {
+            return new OwnershipAuthorizationManager(name, unrestrictedRoles, ownershipChecks);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.healthcare.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Dedicated, bounded pool for BCrypt work (hashing + verification).
+ * BCrypt is deliberately CPU heavy - running it on Tomcat threads lets a login storm
+ * take every core. Here at most 'threads' hashes run at once, at most 'queue-capacity'
+ * wait, and anything beyond that is rejected immediately with a 503.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final Timer hashTimer;
+    private final Timer matchTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(
+            @Value("${auth.bcrypt.threads:0}") int threads,
+            @Value("${auth.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.bcrypt.max-wait-ms:5000}") long maxWaitMillis,
+            MeterRegistry meterRegistry) {
+        // 0 = leave one core free for the rest of the application
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMillis = maxWaitMillis;
+
+        this.hashTimer = Timer.builder("auth.password.hashing").tag("operation", "encode").register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hashing").tag("operation", "matches").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public String encode(Callable<String> task) {
+        return submit(task, hashTimer);
+    }
+
+    public boolean matches(Callable<Boolean> task) {
+        return submit(task, matchTimer);
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    private <T> T submit(Callable<T> task, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many sign-in requests right now. Please try again shortly.");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many sign-in requests right now. Please try again shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.healthcare.security;
+
+import static com.healthcare.security.OwnershipAuthorizationManager.id;
+
+import org.springframework.stereotype.Component;
+
+import com.healthcare.entity.UserRole;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.FeedbackRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.MedicalRecordRevisionRepository;
+
+import lombok.Getter;
+
+/*
+ * Ownership rules for the id-based endpoints, wired into SecurityConfig.
+ * Each rule resolves ownership with a single exists query on (id, patient_id) or (id, doctor_id).
+ */
+@Component
+@Getter
+public class ResourceAccessManagers {
+
+    // PUT /api/appointments/{id} - admin, or the patient who booked it
+    private final OwnershipAuthorizationManager appointmentUpdate;
+
+    // GET /api/appointments/{id}, PUT /api/appointments/{id}/cancel - admin, any doctor, or the patient who booked it
+    private final OwnershipAuthorizationManager appointmentAccess;
+
+    // GET /api/appointments/patient/{patientId} - admin, any doctor, or that patient
+    private final OwnershipAuthorizationManager appointmentsByPatient;
+
+    // GET /api/appointments/doctor/{doctorId} - admin, or that doctor
+    private final OwnershipAuthorizationManager appointmentsByDoctor;
+
+    // GET /api/feedback/{id} - admin, the doctor it is about, or the patient who wrote it
+    private final OwnershipAuthorizationManager feedbackAccess;
+
+    // GET /api/feedback/patient/{patientId} - admin, any doctor, or that patient
+    private final OwnershipAuthorizationManager feedbackByPatient;
+
+    // GET /api/feedback/doctor/{doctorId} - admin, or that doctor
+    private final OwnershipAuthorizationManager feedbackByDoctor;
+
+    // GET /api/feedback/patient/{patientId}/doctor/{doctorId} - admin, that doctor, or that patient
+    private final OwnershipAuthorizationManager feedbackByPatientAndDoctor;
+
+    // GET/PUT/DELETE /api/medical-records/{id} and its attachments - admin, or the doctor who wrote it
+    private final OwnershipAuthorizationManager medicalRecordAccess;
+
+    // GET /api/medical-records/{id}/history/** - as above, and once the record is deleted the doctor who had it last
+    private final OwnershipAuthorizationManager medicalRecordHistoryAccess;
+
+    public ResourceAccessManagers(AppointmentRepository appointmentRepository, FeedbackRepository feedbackRepository,
+            MedicalRecordRepository medicalRecordRepository, MedicalRecordRevisionRepository revisionRepository) {
+        this.appointmentUpdate = OwnershipAuthorizationManager.named("appointmentUpdate")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> appointmentRepository.existsByIdAndPatientId(id(vars, "id"), userId))
+                .build();
+        this.appointmentAccess = OwnershipAuthorizationManager.named("appointmentAccess")
+                .permit(UserRole.ROLE_ADMIN, UserRole.ROLE_DOCTOR)
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> appointmentRepository.existsByIdAndPatientId(id(vars, "id"), userId))
+                .build();
+        this.appointmentsByPatient = OwnershipAuthorizationManager.named("appointmentsByPatient")
+                .permit(UserRole.ROLE_ADMIN, UserRole.ROLE_DOCTOR)
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> id(vars, "patientId").equals(userId))
+                .build();
+        this.appointmentsByDoctor = OwnershipAuthorizationManager.named("appointmentsByDoctor")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> id(vars, "doctorId").equals(userId))
+                .build();
+
+        this.feedbackAccess = OwnershipAuthorizationManager.named("feedbackAccess")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> feedbackRepository.existsByIdAndDoctorId(id(vars, "id"), userId))
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> feedbackRepository.existsByIdAndPatientId(id(vars, "id"), userId))
+                .build();
+        this.feedbackByPatient = OwnershipAuthorizationManager.named("feedbackByPatient")
+                .permit(UserRole.ROLE_ADMIN, UserRole.ROLE_DOCTOR)
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> id(vars, "patientId").equals(userId))
+                .build();
+        this.feedbackByDoctor = OwnershipAuthorizationManager.named("feedbackByDoctor")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> id(vars, "doctorId").equals(userId))
+                .build();
+        this.feedbackByPatientAndDoctor = OwnershipAuthorizationManager.named("feedbackByPatientAndDoctor")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> id(vars, "doctorId").equals(userId))
+                .owner(UserRole.ROLE_PATIENT, (vars, userId) -> id(vars, "patientId").equals(userId))
+                .build();
+
+        this.medicalRecordAccess = OwnershipAuthorizationManager.named("medicalRecordAccess")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> medicalRecordRepository.existsByIdAndDoctorId(id(vars, "id"), userId))
+                .build();
+        this.medicalRecordHistoryAccess = OwnershipAuthorizationManager.named("medicalRecordHistoryAccess")
+                .permit(UserRole.ROLE_ADMIN)
+                .owner(UserRole.ROLE_DOCTOR, (vars, userId) -> medicalRecordRepository.existsByIdAndDoctorId(id(vars, "id"), userId)
+                        || !medicalRecordRepository.existsById(id(vars, "id"))
+                                && revisionRepository.isLatestDoctor(id(vars, "id"), userId))
+                .build();
+    }
+}
@@ -1,16 +1,17 @@
 // File: com/healthcare/security/SecurityConfig.java
 package com.healthcare.security; // Make sure this package matches your actual project structure
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -28,10 +29,15 @@ public class SecurityConfig {
 
     private final JwtRequestFilter jwtRequestFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final AuthRateLimitFilter authRateLimitFilter;
+    private final ResourceAccessManagers access;
 
-    public SecurityConfig(JwtRequestFilter jwtRequestFilter, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint) {
+    public SecurityConfig(JwtRequestFilter jwtRequestFilter, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
+            AuthRateLimitFilter authRateLimitFilter, ResourceAccessManagers access) {
         this.jwtRequestFilter = jwtRequestFilter;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
+        this.authRateLimitFilter = authRateLimitFilter;
+        this.access = access;
     }
 
     @Bean
@@ -56,14 +62,33 @@ public class SecurityConfig {
                 .requestMatchers("/api/admin/**").hasRole("ADMIN") // Admin-only endpoints
                 .requestMatchers("/api/doctor/**").hasAnyRole("ADMIN", "DOCTOR") // Doctor and admin endpoints
                 .requestMatchers("/api/patient/**").hasAnyRole("ADMIN", "DOCTOR", "PATIENT") // Patient endpoints
+                // Ownership rules for id-based endpoints (typed AuthorizationManagers instead of SpEL bean calls)
+                .requestMatchers(HttpMethod.PUT, "/api/appointments/{id:\\d+}").access(access.getAppointmentUpdate())
+                .requestMatchers(HttpMethod.GET, "/api/appointments/{id:\\d+}").access(access.getAppointmentAccess())
+                .requestMatchers(HttpMethod.PUT, "/api/appointments/{id:\\d+}/cancel").access(access.getAppointmentAccess())
+                .requestMatchers(HttpMethod.GET, "/api/appointments/patient/{patientId:\\d+}").access(access.getAppointmentsByPatient())
+                .requestMatchers(HttpMethod.GET, "/api/appointments/doctor/{doctorId:\\d+}").access(access.getAppointmentsByDoctor())
+                .requestMatchers(HttpMethod.GET, "/api/feedback/{id:\\d+}").access(access.getFeedbackAccess())
+                .requestMatchers(HttpMethod.GET, "/api/feedback/patient/{patientId:\\d+}").access(access.getFeedbackByPatient())
+                .requestMatchers(HttpMethod.GET, "/api/feedback/doctor/{doctorId:\\d+}").access(access.getFeedbackByDoctor())
+                .requestMatchers(HttpMethod.GET, "/api/feedback/patient/{patientId:\\d+}/doctor/{doctorId:\\d+}").access(access.getFeedbackByPatientAndDoctor())
+                .requestMatchers(HttpMethod.GET, "/api/medical-records/{id:\\d+}").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.PUT, "/api/medical-records/{id:\\d+}").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.DELETE, "/api/medical-records/{id:\\d+}").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.POST, "/api/medical-records/{id:\\d+}/attachments").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.GET, "/api/medical-records/{id:\\d+}/attachments/*").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.DELETE, "/api/medical-records/{id:\\d+}/attachments/*").access(access.getMedicalRecordAccess())
+                .requestMatchers(HttpMethod.GET, "/api/medical-records/{id:\\d+}/history/**").access(access.getMedicalRecordHistoryAccess())
                 .requestMatchers("/api/departments/**").authenticated() // Require authentication for all department endpoints
                 .requestMatchers("/api/users/**").authenticated() // Require authentication for all user endpoints
                 .requestMatchers("/api/doctor-schedules/**").authenticated() // Allows authenticated access to all doctor schedule endpoints
                 .requestMatchers("/api/appointments/**").authenticated() // Require authentication for all appointment endpoints
                 .requestMatchers("/api/medical-records/**").authenticated() // Require authentication for all medical record endpoints
                 .requestMatchers("/api/feedback/**").authenticated() // Require authentication for all feedback endpoints
+                .requestMatchers("/api/timeline/**").authenticated() // Require authentication for all timeline endpoints
                 .anyRequest().authenticated() // All other requests require authentication
             )
+            .addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class) // Throttle public auth endpoints first
             .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class) // Add JWT filter
             .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(jwtAuthenticationEntryPoint));
 
@@ -98,10 +123,20 @@ public class SecurityConfig {
         return source;
     }
 
-    // Your existing password encoder bean
+    // The rate limit filter is a @Component so it can be injected above - keep Boot from also adding it
+    // to the servlet filter chain, where it would run (and consume tokens) a second time
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<AuthRateLimitFilter> authRateLimitFilterRegistration(AuthRateLimitFilter filter) {
+        FilterRegistrationBean<AuthRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // BCrypt runs on the dedicated hashing pool; strength is configurable (auth.bcrypt.strength)
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength,
+            PasswordHashingExecutor passwordHashingExecutor) {
+        return new BoundedPasswordEncoder(strength, passwordHashingExecutor);
     }
 
     // Your existing authentication manager bean
@@ -0,0 +1,43 @@
+package com.healthcare.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Lock-free token bucket, implemented as GCRA (generic cell rate algorithm):
+ * the whole bucket state is one "theoretical arrival time" updated with CAS,
+ * so there is no lock and no separate refill thread.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos; // time to refill one token
+    private final long burstToleranceNanos;   // (capacity - 1) tokens worth of time
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(int capacity, long refillPeriodNanos) {
+        this.emissionIntervalNanos = refillPeriodNanos / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+    }
+
+    boolean tryConsume(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = Math.max(tat, now);
+            if (base - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Nanos until the next token is available (0 if one is available now)
+    long nanosUntilNextToken(long now) {
+        return Math.max(0, theoreticalArrival.get() - burstToleranceNanos - now);
+    }
+
+    // A full bucket carries no state - it can be dropped and recreated without changing behaviour
+    boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
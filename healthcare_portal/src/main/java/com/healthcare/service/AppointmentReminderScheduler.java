@@ -0,0 +1,230 @@
+package com.healthcare.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.entity.Appointment;
+import com.healthcare.repository.AppointmentReminderRepository;
+import com.healthcare.repository.AppointmentRepository;
+
+/*
+ * Reminder emails before CONFIRMED appointments (offsets from app.reminders.offsets-minutes, e.g. 24h and 1h).
+ * Every load interval the next look-ahead window of appointments is loaded into a hierarchical timing wheel;
+ * the wheel is advanced every tick and everything that falls due in that tick is rendered and sent as one
+ * batch. Changes made through AppointmentServiceImpl reschedule or cancel the entries once their transaction commits.
+ * Sent reminders are recorded in appointment_reminders, so restarts (and other nodes) never resend one (moving
+ * the appointment to another date or time clears them);
+ * reminders that fell due while the application was down are still sent if they are within the grace period.
+ */
+@Component
+public class AppointmentReminderScheduler {
+
+    private record ReminderKey(Long appointmentId, int offsetMinutes) {
+    }
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentReminderRepository reminderRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int[] offsetsMinutes;
+    private final Duration lookAhead;
+    private final Duration grace;
+    private final HierarchicalTimingWheel<ReminderKey> wheel;
+    // End of the window loaded so far - appointments changed beyond it are picked up by the next load
+    private LocalDateTime loadedUntil = LocalDateTime.MIN;
+
+    public AppointmentReminderScheduler(AppointmentRepository appointmentRepository,
+            AppointmentReminderRepository reminderRepository, EmailService emailService,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.reminders.enabled:true}") boolean enabled,
+            @Value("${app.reminders.offsets-minutes:1440,60}") int[] offsetsMinutes,
+            @Value("${app.reminders.look-ahead-minutes:360}") long lookAheadMinutes,
+            @Value("${app.reminders.grace-minutes:30}") long graceMinutes) {
+        this.appointmentRepository = appointmentRepository;
+        this.reminderRepository = reminderRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.offsetsMinutes = offsetsMinutes;
+        this.lookAhead = Duration.ofMinutes(lookAheadMinutes);
+        this.grace = Duration.ofMinutes(graceMinutes);
+        // 1-minute ticks, 64 slots per level, 2 levels -> about 68 hours of horizon
+        this.wheel = new HierarchicalTimingWheel<>(60_000, 64, 2, System.currentTimeMillis());
+        if (lookAhead.toMillis() > wheel.horizonMillis()) {
+            throw new IllegalArgumentException("app.reminders.look-ahead-minutes exceeds the reminder wheel horizon");
+        }
+    }
+
+    // Load the next window (overlaps the previous one - scheduling a key again just replaces it)
+    @Scheduled(fixedDelayString = "${app.reminders.load-interval-ms:900000}")
+    public void loadWindow() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowEnd = now.plus(lookAhead);
+        int maxOffset = Arrays.stream(offsetsMinutes).max().orElse(0);
+
+        List<Appointment> appointments = appointmentRepository.findConfirmedBetweenWithPeople(
+                now.minus(grace).toLocalDate(), windowEnd.plusMinutes(maxOffset).toLocalDate());
+        Set<ReminderKey> sent = appointments.isEmpty() ? Set.of()
+                : reminderRepository.findByAppointmentIdIn(appointments.stream().map(Appointment::getId).toList()).stream()
+                        .map(reminder -> new ReminderKey(reminder.getAppointmentId(), reminder.getOffsetMinutes()))
+                        .collect(Collectors.toSet());
+
+        synchronized (this) {
+            loadedUntil = windowEnd;
+            for (Appointment appointment : appointments) {
+                for (int offset : offsetsMinutes) {
+                    ReminderKey key = new ReminderKey(appointment.getId(), offset);
+                    if (!sent.contains(key)) {
+                        schedule(key, fireAt(appointment, offset), now);
+                    }
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reminders.tick-ms:15000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<ReminderKey> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (!due.isEmpty()) {
+            sendBatch(due);
+        }
+    }
+
+    /**
+     * Reschedule an appointment's reminders once the caller's transaction commits (a rollback changes nothing)
+     */
+    public void onAppointmentChanged(Appointment appointment) {
+        afterCommit(() -> reschedule(appointment));
+    }
+
+    /**
+     * The appointment moved to another date or time: its sent markers are deleted in the caller's transaction,
+     * so the reminders for the new time are sent even if the ones for the old time already were
+     */
+    public void onAppointmentRescheduled(Appointment appointment) {
+        reminderRepository.deleteByAppointmentId(appointment.getId());
+        onAppointmentChanged(appointment);
+    }
+
+    public void onAppointmentDeleted(Long appointmentId) {
+        afterCommit(() -> cancel(appointmentId));
+    }
+
+    private synchronized void reschedule(Appointment appointment) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (int offset : offsetsMinutes) {
+            ReminderKey key = new ReminderKey(appointment.getId(), offset);
+            wheel.cancel(key);
+            if ("CONFIRMED".equals(appointment.getStatus())) {
+                schedule(key, fireAt(appointment, offset), now);
+            }
+        }
+    }
+
+    private synchronized void cancel(Long appointmentId) {
+        for (int offset : offsetsMinutes) {
+            wheel.cancel(new ReminderKey(appointmentId, offset));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Only reminders inside the loaded window go into the wheel; the rest come with a later load
+    private void schedule(ReminderKey key, LocalDateTime fireAt, LocalDateTime now) {
+        if (fireAt.isBefore(now.minus(grace)) || !fireAt.isBefore(loadedUntil)) {
+            return;
+        }
+        wheel.schedule(key, fireAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void sendBatch(List<ReminderKey> due) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                Map<Long, Appointment> appointments = appointmentRepository
+                        .findByIdInWithPeople(due.stream().map(ReminderKey::appointmentId).collect(Collectors.toCollection(HashSet::new)))
+                        .stream()
+                        .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+
+                List<AppointmentReminderDTO> reminders = new ArrayList<>();
+                for (ReminderKey key : due) {
+                    Appointment appointment = appointments.get(key.appointmentId());
+                    // Re-check against the database: a change made on another node may not have reached this wheel
+                    if (appointment == null || !"CONFIRMED".equals(appointment.getStatus())) {
+                        continue;
+                    }
+                    LocalDateTime fireAt = fireAt(appointment, key.offsetMinutes());
+                    if (fireAt.isAfter(now.plusMinutes(1)) || fireAt.isBefore(now.minus(grace))) {
+                        continue;
+                    }
+                    if (reminderRepository.markSent(key.appointmentId(), key.offsetMinutes()) == 1) {
+                        reminders.add(toReminder(appointment, key.offsetMinutes()));
+                    }
+                }
+                // Outbox rows (or the dispatcher hand-off) commit together with the sent markers
+                emailService.sendAppointmentReminders(reminders);
+            });
+        } catch (Exception e) {
+            System.err.println("Sending " + due.size() + " appointment reminders failed: " + e.getMessage());
+        }
+    }
+
+    private static LocalDateTime fireAt(Appointment appointment, int offsetMinutes) {
+        return appointment.getAppointmentDate().atTime(appointment.getAppointmentTime()).minusMinutes(offsetMinutes);
+    }
+
+    private static AppointmentReminderDTO toReminder(Appointment appointment, int offsetMinutes) {
+        return AppointmentReminderDTO.builder()
+                .patientEmail(appointment.getPatient().getEmail())
+                .patientName(appointment.getPatient().getFirstName())
+                .doctorName("Dr. " + appointment.getDoctor().getFirstName() + " " + appointment.getDoctor().getLastName())
+                .appointmentDate(appointment.getAppointmentDate())
+                .appointmentTime(appointment.getAppointmentTime())
+                .timeUntil(offsetMinutes % 60 == 0
+                        ? "in " + offsetMinutes / 60 + (offsetMinutes == 60 ? " hour" : " hours")
+                        : "in " + offsetMinutes + " minutes")
+                .build();
+    }
+}
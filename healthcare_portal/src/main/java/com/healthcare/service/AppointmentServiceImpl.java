@@ -2,10 +2,9 @@ package com.healthcare.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,11 +13,13 @@ import com.healthcare.custom_exceptions.ScheduleAlreadyBookedException;
 import com.healthcare.dto.AppointmentRequestDTO;
 import com.healthcare.dto.AppointmentResponseDTO;
 import com.healthcare.entity.Appointment;
+import com.healthcare.entity.DoctorDigestEvent;
 import com.healthcare.entity.DoctorSchedule;
 import com.healthcare.entity.User;
 import com.healthcare.repository.AppointmentRepository;
 import com.healthcare.repository.DoctorScheduleRepository;
 import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,6 +30,9 @@ public class AppointmentServiceImpl implements AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final DoctorScheduleRepository doctorScheduleRepository;
+    private final CurrentUser currentUser;
+    private final AppointmentReminderScheduler reminderScheduler;
+    private final DoctorDigestService doctorDigestService;
     
     // Convert entity to DTO
     private AppointmentResponseDTO toDTO(Appointment appointment) {
@@ -105,6 +109,8 @@ public class AppointmentServiceImpl implements AppointmentService {
         // The schedule remains available as long as there are free time slots
         
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        reminderScheduler.onAppointmentChanged(savedAppointment);
+        doctorDigestService.record(savedAppointment, DoctorDigestEvent.EventType.BOOKED);
         return toDTO(savedAppointment);
     }
     
@@ -126,6 +132,9 @@ public class AppointmentServiceImpl implements AppointmentService {
         DoctorSchedule schedule = doctorScheduleRepository.findById(dto.getScheduleId())
                 .orElseThrow(() -> new ResourceNotFoundException("Schedule not found with ID: " + dto.getScheduleId()));
         
+        boolean rescheduled = !Objects.equals(appointment.getAppointmentDate(), dto.getAppointmentDate())
+                || !Objects.equals(appointment.getAppointmentTime(), dto.getAppointmentTime());
+
         // Update appointment
         appointment.setPatient(patient);
         appointment.setDoctor(doctor);
@@ -136,6 +145,12 @@ public class AppointmentServiceImpl implements AppointmentService {
         appointment.setStatus(dto.getStatus());
         
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        if (rescheduled) {
+            reminderScheduler.onAppointmentRescheduled(updatedAppointment);
+        } else {
+            reminderScheduler.onAppointmentChanged(updatedAppointment);
+        }
+        doctorDigestService.record(updatedAppointment, DoctorDigestEvent.EventType.UPDATED);
         return toDTO(updatedAppointment);
     }
     
@@ -196,15 +211,11 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     @Transactional
     public List<AppointmentResponseDTO> getMyAppointments() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
+        if (currentUser.isPatient()) {
             return appointmentRepository.findByPatientIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        } else if (currentUser.isDoctor()) {
             return appointmentRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
@@ -217,11 +228,7 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     @Transactional
     public List<AppointmentResponseDTO> getMyPatientAppointments() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        if (currentUser.isDoctor()) {
             return appointmentRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
@@ -238,6 +245,9 @@ public class AppointmentServiceImpl implements AppointmentService {
         
         appointment.setStatus(status);
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        reminderScheduler.onAppointmentChanged(updatedAppointment);
+        doctorDigestService.record(updatedAppointment, "CANCELLED".equals(status)
+                ? DoctorDigestEvent.EventType.CANCELLED : DoctorDigestEvent.EventType.UPDATED);
         return toDTO(updatedAppointment);
     }
     
@@ -255,6 +265,8 @@ public class AppointmentServiceImpl implements AppointmentService {
         doctorScheduleRepository.save(schedule);
         
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        reminderScheduler.onAppointmentChanged(updatedAppointment);
+        doctorDigestService.record(updatedAppointment, DoctorDigestEvent.EventType.CANCELLED);
         return toDTO(updatedAppointment);
     }
     
@@ -266,6 +278,7 @@ public class AppointmentServiceImpl implements AppointmentService {
         
         appointment.setStatus("COMPLETED");
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        reminderScheduler.onAppointmentChanged(updatedAppointment);
         return toDTO(updatedAppointment);
     }
     
@@ -280,30 +293,8 @@ public class AppointmentServiceImpl implements AppointmentService {
         schedule.setIsAvailable(true);
         doctorScheduleRepository.save(schedule);
         
+        doctorDigestService.record(appointment, DoctorDigestEvent.EventType.DELETED);
         appointmentRepository.delete(appointment);
+        reminderScheduler.onAppointmentDeleted(id);
     }
-    
-    // Method to check if appointment belongs to current user (for security annotations)
-    public boolean isOwnAppointment(Long appointmentId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            Appointment appointment = appointmentRepository.findById(appointmentId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
-            
-            if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
-                return appointment.getPatient().getId().equals(currentUser.getId());
-            } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-                return appointment.getDoctor().getId().equals(currentUser.getId());
-            } else if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
-                return true; // Admin can access all appointments
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.healthcare.service;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.dto.DoctorDigestDTO;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+
+/*
+ * The EmailService everyone gets injected when the outbox is off (app.mail.outbox.enabled=false):
+ * every call is handed to MailDispatcher and returns immediately; a dispatcher worker renders the
+ * message with EmailServiceImpl and sends it with whatever else is queued. Nothing is retried if the send fails.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.mail.outbox.enabled", havingValue = "false")
+public class AsyncEmailService implements EmailService {
+
+    private final EmailServiceImpl smtpEmailService;
+    private final MailDispatcher mailDispatcher;
+
+    @Override
+    public void sendSignupOtp(String to, String otp) {
+        mailDispatcher.submit("signup-otp", "signup-otp:" + to, () -> List.of(smtpEmailService.signupOtpMessage(to, otp)));
+    }
+
+    @Override
+    public void sendPasswordResetOtp(String to, String otp) {
+        mailDispatcher.submit("password-reset-otp", "password-reset-otp:" + to,
+                () -> List.of(smtpEmailService.passwordResetOtpMessage(to, otp)));
+    }
+
+    @Override
+    public void sendWelcomeEmail(String to, String firstName) {
+        mailDispatcher.submit("welcome", () -> List.of(smtpEmailService.welcomeMessage(to, firstName)));
+    }
+
+    @Override
+    public void sendPasswordResetConfirmation(String to, String firstName) {
+        mailDispatcher.submit("password-reset-confirmation",
+                () -> List.of(smtpEmailService.passwordResetConfirmationMessage(to, firstName)));
+    }
+
+    @Override
+    public void sendAppointmentReminders(List<AppointmentReminderDTO> reminders) {
+        List<AppointmentReminderDTO> batch = List.copyOf(reminders);
+        mailDispatcher.submit("appointment-reminder", () -> smtpEmailService.appointmentReminderMessages(batch));
+    }
+
+    @Override
+    public void sendDoctorDigest(DoctorDigestDTO digest, Runnable onDelivered) {
+        mailDispatcher.submit("doctor-digest", new MailDispatcher.MailTask() {
+            @Override
+            public List<MimeMessage> prepare() throws MessagingException {
+                return List.of(smtpEmailService.doctorDigestMessage(digest));
+            }
+
+            @Override
+            public void onSent() {
+                onDelivered.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.healthcare.service;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.entity.MedicalRecord;
+
+public interface AttachmentService {
+
+    // Store an uploaded file and attach it to the record (category defaults to OTHER)
+    AttachmentDTO addAttachment(Long medicalRecordId, MultipartFile file, String category);
+
+    // Attachment of a record by content hash (404 if the record does not reference it)
+    AttachmentDTO getAttachment(Long medicalRecordId, String sha256);
+
+    // Location of the stored content
+    Path getContentPath(String sha256);
+
+    // A patient's attachments, optionally of one category and within a record date range (inclusive)
+    List<AttachmentDTO> getPatientAttachments(Long patientId, String category, LocalDate from, LocalDate to);
+
+    // Attachments of several records, one query per chunk of record ids
+    Map<Long, List<AttachmentDTO>> getAttachmentsByRecord(Collection<Long> medicalRecordIds);
+
+    // Detach one file from a record (404 if the record does not reference it; the stored content may be shared and is kept)
+    void removeAttachment(Long medicalRecordId, String sha256);
+
+    // Parse attachments JSON in the legacy format ({name, type, size, data} or {name, type, size, sha256} entries),
+    // storing inline data; {name, type, size} entries come back without a sha256 - they refer to a file the record
+    // already has under that name. Call it before the transaction: it decodes and writes the files
+    List<AttachmentDTO> storeJsonEntries(String json);
+
+    // Attach stored content to a record inside the caller's transaction, skipping files it already has
+    void attachAll(MedicalRecord medicalRecord, List<AttachmentDTO> attachments);
+
+    // Make the given list the record's attachments inside the caller's transaction: entries without a sha256 keep
+    // the attached file of that name, new files are added, attached files missing from the list are detached
+    void replaceAll(MedicalRecord medicalRecord, List<AttachmentDTO> attachments);
+
+    // Remove a record's attachment rows (the stored content may be shared and is kept)
+    void detachAll(Long medicalRecordId);
+
+    // Attachment list in the JSON shape of MedicalRecordResponseDTO.attachments (null if empty)
+    String toJson(List<AttachmentDTO> attachments);
+}
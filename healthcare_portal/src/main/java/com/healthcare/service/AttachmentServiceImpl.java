@@ -0,0 +1,339 @@
+package com.healthcare.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.entity.MedicalRecordAttachment;
+import com.healthcare.repository.MedicalRecordAttachmentRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Uploaded files go to AttachmentStorage; each one gets a row in attachments (name, type, category, size,
+ * sha256, storage key) instead of an entry in the record's JSON column.
+ * The upload is streamed to disk before the transaction starts, so no connection is held while it arrives.
+ * Records are listed with their attachments fetched in one IN query per page of records.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttachmentServiceImpl implements AttachmentService {
+
+    private static final Set<String> CATEGORIES = Set.of("LAB_REPORT", "IMAGING", "PRESCRIPTION", "REFERRAL", "OTHER");
+
+    private static final String DEFAULT_TYPE = "application/octet-stream";
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final MedicalRecordAttachmentRepository attachmentRepository;
+    private final UserRepository userRepository;
+    private final AttachmentStorage attachmentStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public AttachmentDTO addAttachment(Long medicalRecordId, MultipartFile file, String category) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidInputException("Attachment file cannot be empty");
+        }
+        String resolvedCategory = category(category);
+        if (!medicalRecordRepository.existsById(medicalRecordId)) {
+            throw new ResourceNotFoundException("Medical record not found with ID: " + medicalRecordId);
+        }
+
+        AttachmentStorage.StoredContent content;
+        try (InputStream in = file.getInputStream()) {
+            content = attachmentStorage.store(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading the uploaded attachment failed", e);
+        }
+
+        AttachmentDTO attachment = AttachmentDTO.builder()
+                .name(fileName(file.getOriginalFilename()))
+                .type(contentType(file.getContentType()))
+                .size(content.size())
+                .sha256(content.sha256())
+                .category(resolvedCategory)
+                .build();
+
+        return transactionTemplate.execute(status -> {
+            // Row lock: concurrent uploads of the same file to one record add it once
+            MedicalRecord medicalRecord = medicalRecordRepository.findByIdForUpdate(medicalRecordId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with ID: " + medicalRecordId));
+            // Same file uploaded twice to one record - keep the existing entry
+            return attachmentRepository.findByMedicalRecordIdAndSha256(medicalRecordId, content.sha256())
+                    .orElseGet(() -> toDTO(attachmentRepository.save(toEntity(medicalRecord, attachment)), medicalRecord));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AttachmentDTO getAttachment(Long medicalRecordId, String sha256) {
+        return attachmentRepository.findByMedicalRecordIdAndSha256(medicalRecordId, sha256)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment not found for medical record " + medicalRecordId));
+    }
+
+    @Override
+    @Transactional
+    public void removeAttachment(Long medicalRecordId, String sha256) {
+        if (attachmentRepository.deleteByMedicalRecordIdAndSha256In(medicalRecordId, List.of(sha256)) == 0) {
+            throw new ResourceNotFoundException("Attachment not found for medical record " + medicalRecordId);
+        }
+    }
+
+    @Override
+    public Path getContentPath(String sha256) {
+        return attachmentStorage.locate(sha256);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttachmentDTO> getPatientAttachments(Long patientId, String category, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidInputException("From date must not be after to date");
+        }
+        String resolvedCategory = StringUtils.hasText(category) ? category(category) : null;
+        if (!userRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient not found with ID: " + patientId);
+        }
+        return attachmentRepository.findByPatientId(patientId, resolvedCategory, from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<AttachmentDTO>> getAttachmentsByRecord(Collection<Long> medicalRecordIds) {
+        Map<Long, List<AttachmentDTO>> byRecord = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(medicalRecordIds));
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = ids.subList(start, Math.min(start + MAX_IDS_PER_QUERY, ids.size()));
+            for (AttachmentDTO attachment : attachmentRepository.findByMedicalRecordIds(chunk)) {
+                byRecord.computeIfAbsent(attachment.getMedicalRecordId(), id -> new ArrayList<>()).add(attachment);
+            }
+        }
+        return byRecord;
+    }
+
+    @Override
+    public List<AttachmentDTO> storeJsonEntries(String json) {
+        List<AttachmentDTO> attachments = new ArrayList<>();
+        if (!StringUtils.hasText(json)) {
+            return attachments;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Medical record attachments are not valid JSON");
+        }
+        // Existing values may be an array, a single object or null
+        if (root == null || root.isNull()) {
+            return attachments;
+        }
+        for (JsonNode entry : root.isArray() ? root : List.of(root)) {
+            attachments.add(storeJsonEntry(entry));
+        }
+        return attachments;
+    }
+
+    @Override
+    public void attachAll(MedicalRecord medicalRecord, List<AttachmentDTO> attachments) {
+        if (attachments.isEmpty()) {
+            return;
+        }
+        Set<String> attached = new HashSet<>(attachmentRepository.findSha256ByMedicalRecordId(medicalRecord.getId()));
+        List<MedicalRecordAttachment> added = new ArrayList<>();
+        for (AttachmentDTO attachment : attachments) {
+            if (attachment.getSha256() == null) {
+                throw new InvalidInputException("Attachment " + attachment.getName() + " has no data");
+            }
+            if (attached.add(attachment.getSha256())) {
+                added.add(toEntity(medicalRecord, attachment));
+            }
+        }
+        attachmentRepository.saveAll(added);
+    }
+
+    @Override
+    public void replaceAll(MedicalRecord medicalRecord, List<AttachmentDTO> attachments) {
+        Set<String> attached = new HashSet<>();
+        Map<String, String> attachedByName = new HashMap<>();
+        for (AttachmentDTO existing : attachmentRepository.findByMedicalRecordIds(List.of(medicalRecord.getId()))) {
+            attached.add(existing.getSha256());
+            attachedByName.putIfAbsent(existing.getName(), existing.getSha256());
+        }
+        Set<String> kept = new HashSet<>();
+        List<MedicalRecordAttachment> added = new ArrayList<>();
+        for (AttachmentDTO attachment : attachments) {
+            String sha256 = attachment.getSha256() != null ? attachment.getSha256() : attachedByName.get(attachment.getName());
+            if (sha256 == null) {
+                throw new InvalidInputException("Attachment " + attachment.getName() + " has no data and is not attached to this record");
+            }
+            if (kept.add(sha256) && !attached.contains(sha256)) {
+                added.add(toEntity(medicalRecord, attachment));
+            }
+        }
+        attached.removeAll(kept);
+        if (!attached.isEmpty()) {
+            attachmentRepository.deleteByMedicalRecordIdAndSha256In(medicalRecord.getId(), attached);
+        }
+        attachmentRepository.saveAll(added);
+    }
+
+    @Override
+    public void detachAll(Long medicalRecordId) {
+        attachmentRepository.deleteByMedicalRecordId(medicalRecordId);
+    }
+
+    @Override
+    public String toJson(List<AttachmentDTO> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(attachments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializing attachments failed", e);
+        }
+    }
+
+    // {name, type, size, data: data URL or base64} is stored; {name, type, size, sha256} must already be stored;
+    // {name, type, size} (what the client resends for files it already has) is returned without a sha256
+    private AttachmentDTO storeJsonEntry(JsonNode entry) {
+        if (!entry.isObject()) {
+            throw new InvalidInputException("Attachment entries must be objects");
+        }
+        String type = entry.path("type").asText("");
+        String sha256 = null;
+        Long size = entry.path("size").canConvertToLong() ? entry.path("size").asLong() : null;
+        String data = entry.path("data").asText(null);
+        if (StringUtils.hasText(data)) {
+            String base64 = data;
+            if (data.startsWith("data:")) {
+                int comma = data.indexOf(',');
+                if (comma < 0 || !data.substring(0, comma).endsWith(";base64")) {
+                    throw new InvalidInputException("Attachment data must be a base64 data URL");
+                }
+                if (!StringUtils.hasText(type)) {
+                    type = data.substring(5, comma - ";base64".length());
+                }
+                base64 = data.substring(comma + 1);
+            }
+            byte[] content;
+            try {
+                content = Base64.getMimeDecoder().decode(base64);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidInputException("Attachment data is not valid base64");
+            }
+            AttachmentStorage.StoredContent stored = attachmentStorage.store(new ByteArrayInputStream(content));
+            sha256 = stored.sha256();
+            size = stored.size();
+        } else if (entry.hasNonNull("sha256")) {
+            sha256 = entry.get("sha256").asText();
+            if (!attachmentStorage.reuse(sha256)) {
+                throw new InvalidInputException("Attachment content not found: " + sha256);
+            }
+            try {
+                size = Files.size(attachmentStorage.locate(sha256));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Reading attachment size failed", e);
+            }
+        }
+        return AttachmentDTO.builder()
+                .name(fileName(entry.path("name").asText(null)))
+                .type(contentType(type))
+                .size(size)
+                .sha256(sha256)
+                .category(entry.hasNonNull("category") && CATEGORIES.contains(entry.get("category").asText())
+                        ? entry.get("category").asText() : "OTHER")
+                .build();
+    }
+
+    private MedicalRecordAttachment toEntity(MedicalRecord medicalRecord, AttachmentDTO attachment) {
+        return MedicalRecordAttachment.builder()
+                .medicalRecord(medicalRecord)
+                .name(attachment.getName())
+                .contentType(attachment.getType())
+                .category(attachment.getCategory())
+                .size(attachment.getSize())
+                .sha256(attachment.getSha256())
+                .storageKey(attachmentStorage.storageKey(attachment.getSha256()))
+                .build();
+    }
+
+    private static AttachmentDTO toDTO(MedicalRecordAttachment attachment, MedicalRecord medicalRecord) {
+        return AttachmentDTO.builder()
+                .name(attachment.getName())
+                .type(attachment.getContentType())
+                .size(attachment.getSize())
+                .sha256(attachment.getSha256())
+                .category(attachment.getCategory())
+                .createdDate(attachment.getCreationDate())
+                .medicalRecordId(medicalRecord.getId())
+                .recordDate(medicalRecord.getRecordDate())
+                .build();
+    }
+
+    private static String category(String category) {
+        if (category == null) {
+            return "OTHER";
+        }
+        String normalized = category.trim().toUpperCase(Locale.ROOT);
+        if (!CATEGORIES.contains(normalized)) {
+            throw new InvalidInputException("Attachment category must be one of " + CATEGORIES);
+        }
+        return normalized;
+    }
+
+    // The client's type is echoed back as Content-Type on download - keep only a well-formed, concrete one
+    static String contentType(String type) {
+        if (!StringUtils.hasText(type)) {
+            return DEFAULT_TYPE;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(type);
+            String normalized = mediaType.toString();
+            return mediaType.isConcrete() && normalized.length() <= 100 ? normalized : DEFAULT_TYPE;
+        } catch (InvalidMediaTypeException e) {
+            return DEFAULT_TYPE;
+        }
+    }
+
+    private static String fileName(String original) {
+        String name = StringUtils.getFilename(StringUtils.cleanPath(original != null ? original : ""));
+        if (!StringUtils.hasText(name)) {
+            return "attachment";
+        }
+        return name.length() > 255 ? name.substring(name.length() - 255) : name;
+    }
+}
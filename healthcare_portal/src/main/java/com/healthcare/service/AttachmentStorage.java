@@ -0,0 +1,227 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+
+/*
+ * Content-addressed file store for medical record attachments on local disk.
+ * Uploads are streamed through a fixed buffer into a temp file while the SHA-256 is computed, then moved
+ * to <dir>/<first 2 hex chars>/<sha256>; identical files end up in the same place and are stored once.
+ * Stored files are never modified, so the hash doubles as a permanent ETag. Their modification time is the
+ * last time content was stored or reused, which AttachmentSweepJob uses as the grace period for content
+ * whose attachments row is not committed yet.
+ */
+@Component
+public class AttachmentStorage {
+
+    public record StoredContent(String sha256, long size) {
+    }
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path tmp;
+    private final long maxFileSize;
+
+    public AttachmentStorage(@Value("${app.attachments.dir:./data/attachments}") String dir,
+            @Value("${app.attachments.max-file-size-bytes:52428800}") long maxFileSize) throws IOException {
+        this.root = Path.of(dir).toAbsolutePath().normalize();
+        this.tmp = root.resolve("tmp");
+        this.maxFileSize = maxFileSize;
+        Files.createDirectories(tmp);
+    }
+
+    /**
+     * Stream the content to disk (never more than one buffer in heap) and return its hash and size
+     */
+    public StoredContent store(InputStream in) {
+        MessageDigest digest = sha256();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(tmp, "upload-", ".part");
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxFileSize) {
+                        throw new InvalidInputException("Attachment exceeds the maximum size of " + maxFileSize + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    wrapped.clear().limit(read);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                }
+                channel.force(true);
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(sha256);
+            if (Files.exists(target)) {
+                touch(target);
+                return new StoredContent(sha256, size);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                temp = null;
+            } catch (FileAlreadyExistsException e) {
+                // Same content uploaded concurrently - the other copy won
+            }
+            return new StoredContent(sha256, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Storing attachment failed", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Location of stored content; the hash is validated first so it can never escape the store directory
+     */
+    public Path locate(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            throw new InvalidInputException("Invalid attachment id");
+        }
+        Path path = pathFor(sha256);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Attachment content not found: " + sha256);
+        }
+        return path;
+    }
+
+    /**
+     * Key of stored content relative to the store directory (attachments.storage_key)
+     */
+    public String storageKey(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    /**
+     * Whether content with this hash has been stored; if so it counts as stored now, because the caller is
+     * about to reference it
+     */
+    public boolean reuse(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches() || !Files.isRegularFile(pathFor(sha256))) {
+            return false;
+        }
+        touch(pathFor(sha256));
+        return true;
+    }
+
+    /**
+     * Hashes of the content under one two-hex-char directory that was last stored or reused before 'cutoff'
+     */
+    public List<String> storedBefore(String prefix, Instant cutoff) {
+        Path dir = root.resolve(prefix);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<String> hashes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (SHA256.matcher(name).matches() && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    hashes.add(name);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Listing attachment content failed", e);
+        }
+        return hashes;
+    }
+
+    /**
+     * Delete content unless it was stored or reused since 'cutoff' (then it is about to be referenced again)
+     */
+    public boolean deleteIfUnusedSince(String sha256, Instant cutoff) {
+        Path path = pathFor(sha256);
+        try {
+            if (!Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)) {
+                return false;
+            }
+            return Files.deleteIfExists(path);
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Could not delete attachment content " + sha256 + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete temp files of uploads that never finished (the process died while streaming)
+     */
+    public int deleteTempFilesBefore(Instant cutoff) {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmp)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not clean up temporary uploads: " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    private Path pathFor(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Updating attachment content failed", e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete temporary upload " + path + ": " + e.getMessage());
+        }
+    }
+}
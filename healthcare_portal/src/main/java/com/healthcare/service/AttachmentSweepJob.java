@@ -0,0 +1,69 @@
+package com.healthcare.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.repository.MedicalRecordAttachmentRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Deletes attachment content that no attachments row references any more: attachments removed from a
+ * record, deleted records, and uploads stored before a transaction that rolled back. Content is written
+ * before its row commits, so only files not stored or reused for grace-minutes are candidates, and each
+ * one is checked against that again right before it is deleted. Goes through the store one two-hex-char
+ * directory at a time, with the row lookups batched.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.attachments.sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class AttachmentSweepJob {
+
+    private static final int LOOKUP_BATCH = 500;
+
+    private final AttachmentStorage attachmentStorage;
+    private final MedicalRecordAttachmentRepository attachmentRepository;
+
+    @Value("${app.attachments.sweep.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Scheduled(fixedDelayString = "${app.attachments.sweep.interval-ms:3600000}",
+            initialDelayString = "${app.attachments.sweep.interval-ms:3600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+        int deleted = 0;
+        try {
+            for (int prefix = 0; prefix < 256; prefix++) {
+                deleted += sweep(String.format("%02x", prefix), cutoff);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Attachment sweep failed: " + e.getMessage());
+        }
+        int temp = attachmentStorage.deleteTempFilesBefore(cutoff);
+        if (deleted > 0 || temp > 0) {
+            System.out.println("Attachment sweep removed " + deleted + " unreferenced files and " + temp + " unfinished uploads");
+        }
+    }
+
+    private int sweep(String prefix, Instant cutoff) {
+        List<String> candidates = attachmentStorage.storedBefore(prefix, cutoff);
+        int deleted = 0;
+        for (int from = 0; from < candidates.size(); from += LOOKUP_BATCH) {
+            List<String> batch = candidates.subList(from, Math.min(from + LOOKUP_BATCH, candidates.size()));
+            Set<String> referenced = attachmentRepository.findReferencedSha256(batch);
+            for (String sha256 : batch) {
+                if (!referenced.contains(sha256) && attachmentStorage.deleteIfUnusedSince(sha256, cutoff)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+}
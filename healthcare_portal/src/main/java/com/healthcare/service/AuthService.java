@@ -5,12 +5,12 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication; // <--- IMPORTANT: Add this import
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails; // Make sure this is imported
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
 import com.healthcare.dto.AuthResponseDTO;
 import com.healthcare.dto.UserSignInDTO; // <--- IMPORTANT: Ensure this is your DTO package and class name (e.g., 'com.healthcare.dto.UserSignInDTO')
 import com.healthcare.dto.UserSignUpDTO; // <--- IMPORTANT: Ensure this is your DTO package and class name
@@ -41,7 +41,7 @@ public class AuthService {
     private DepartmentRepository departmentRepository;
 
     public AuthResponseDTO signUpUser(UserSignUpDTO signUpDto) {
-        if (userRepository.findByEmail(signUpDto.getEmail()).isPresent()) { // <--- Correct usage
+        if (userRepository.existsByEmail(signUpDto.getEmail())) {
             throw new IllegalArgumentException("User with this email already exists.");
         }
 
@@ -88,13 +88,20 @@ public class AuthService {
 
         User savedUser = userRepository.save(newUser); // <--- Correct usage
 
-        // Directly sign in the user after successful registration
-        // IMPORTANT: UserSignInDto must have @AllArgsConstructor
-        return signInUser(new UserSignInDTO(signUpDto.getEmail(), signUpDto.getPassword()));
+        // Issue the token straight from the saved user - the password was just hashed above,
+        // so going through the AuthenticationManager would only run BCrypt (and the lookup) a second time
+        return new AuthResponseDTO(
+                jwtUtil.generateToken(savedUser),
+                savedUser.getId(),
+                savedUser.getEmail(),
+                savedUser.getRole(),
+                savedUser.getFirstName(),
+                savedUser.getLastName()
+        );
     }
 
     public AuthResponseDTO createUserByAdmin(UserSignUpDTO signUpDto) {
-        if (userRepository.findByEmail(signUpDto.getEmail()).isPresent()) {
+        if (userRepository.existsByEmail(signUpDto.getEmail())) {
             throw new IllegalArgumentException("User with this email already exists.");
         }
 
@@ -159,9 +166,8 @@ public class AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found after authentication."));
+        // CustomUserDetailsService already loaded the User entity - reuse it instead of querying again
+        User user = (User) authentication.getPrincipal();
 
         String jwt = jwtUtil.generateToken(user); // Pass the User object!
 
@@ -173,6 +179,8 @@ public class AuthService {
                 user.getFirstName(),
                 user.getLastName()
         );
+    } catch (ServiceUnavailableException e) {
+        throw e; // Hashing pool is saturated - surface as 503, not as bad credentials
     } catch (Exception e) {
         throw new IllegalArgumentException("Invalid email or password", e);
     }
@@ -200,11 +208,11 @@ public class AuthService {
     }
 
     public AuthResponseDTO validateToken() {
+        // JwtRequestFilter already loaded the User as the principal - no need to look it up again
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            throw new ResourceNotFoundException("User not found");
+        }
         
         return new AuthResponseDTO(
                 null, // Don't return token again
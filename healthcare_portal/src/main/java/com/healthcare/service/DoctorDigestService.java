@@ -0,0 +1,161 @@
+package com.healthcare.service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.dto.DoctorDigestDTO;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.DoctorDigestEvent;
+import com.healthcare.entity.User;
+import com.healthcare.repository.DoctorDigestEventRepository;
+import com.healthcare.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Doctors get one summary email per day instead of a notification per booking/cancellation.
+ * AppointmentServiceImpl appends an event per change (same transaction); at app.digest.cron each
+ * doctor's buffered events become one digest, and the events are deleted once the digest can no longer
+ * be lost. Doctors are handled one transaction each, so a failure only keeps that doctor's events.
+ * Rendering and sending run on the mail workers, so digests for different doctors go out in parallel.
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorDigestService {
+
+    private static final int BUSY_RETRIES = 60;
+
+    private final DoctorDigestEventRepository eventRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.digest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.digest.max-events:100000}")
+    private int maxEvents;
+
+    @Value("${app.digest.busy-backoff-ms:1000}")
+    private long busyBackoffMs;
+
+    public void record(Appointment appointment, DoctorDigestEvent.EventType eventType) {
+        if (!enabled) {
+            return;
+        }
+        eventRepository.save(DoctorDigestEvent.builder()
+                .doctorId(appointment.getDoctor().getId())
+                .appointmentId(appointment.getId())
+                .eventType(eventType)
+                .patientName(appointment.getPatient().getFirstName() + " " + appointment.getPatient().getLastName())
+                .appointmentDate(appointment.getAppointmentDate())
+                .appointmentTime(appointment.getAppointmentTime())
+                .status(appointment.getStatus())
+                .build());
+    }
+
+    @Scheduled(cron = "${app.digest.cron:0 0 7 * * *}")
+    public void sendDigests() {
+        if (!enabled) {
+            return;
+        }
+        int sent = 0;
+        int budget = maxEvents;
+        try {
+            LocalDate today = LocalDate.now();
+            for (Long doctorId : eventRepository.findDoctorIds()) {
+                if (budget <= 0) {
+                    break;
+                }
+                int digested;
+                try {
+                    digested = sendDigestWhenQueueHasRoom(doctorId, budget, today);
+                } catch (RuntimeException e) {
+                    // Only this doctor's transaction rolled back - their events stay for the next run
+                    System.err.println("Digest for doctor " + doctorId + " failed: " + e.getMessage());
+                    continue;
+                }
+                if (digested < 0) {
+                    System.err.println("Doctor digest run stopped: email queue stayed full, the rest go out next run");
+                    break;
+                }
+                budget -= digested;
+                sent += digested > 0 ? 1 : 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Doctor digest run failed: " + e.getMessage());
+        }
+        if (sent > 0) {
+            System.out.println("Queued daily digests for " + sent + " doctors");
+        }
+    }
+
+    // Events digested, or -1 if the mail queue (outbox off) stayed full. Sleeping holds only this job's
+    // scheduler thread - the pool has others for the remaining jobs
+    private int sendDigestWhenQueueHasRoom(Long doctorId, int limit, LocalDate today) throws InterruptedException {
+        for (int attempt = 0; attempt < BUSY_RETRIES; attempt++) {
+            try {
+                Integer digested = transactionTemplate.execute(status -> sendDigest(doctorId, limit, today));
+                return digested == null ? 0 : digested;
+            } catch (ServiceUnavailableException e) {
+                Thread.sleep(busyBackoffMs);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One doctor per transaction: with the outbox the digest row and the event delete commit together;
+     * without it the events are deleted only after the digest was sent (a failed send keeps them for the next run)
+     */
+    private int sendDigest(Long doctorId, int limit, LocalDate today) {
+        List<DoctorDigestEvent> events = eventRepository.lockByDoctor(doctorId, limit);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<Long> eventIds = events.stream().map(DoctorDigestEvent::getId).toList();
+        Optional<User> doctor = userRepository.findById(doctorId);
+        if (doctor.isEmpty()) {
+            // Doctor account is gone - nobody to send these to
+            eventRepository.deleteAllByIdInBatch(eventIds);
+            return 0;
+        }
+        emailService.sendDoctorDigest(toDigest(doctor.get(), events, today),
+                () -> eventRepository.deleteAllByIdInBatch(eventIds));
+        return events.size();
+    }
+
+    private static DoctorDigestDTO toDigest(User doctor, List<DoctorDigestEvent> events, LocalDate today) {
+        List<DoctorDigestDTO.Entry> entries = events.stream()
+                .sorted(Comparator.comparing(DoctorDigestEvent::getAppointmentDate)
+                        .thenComparing(DoctorDigestEvent::getAppointmentTime))
+                .map(event -> DoctorDigestDTO.Entry.builder()
+                        .event(event.getEventType().name())
+                        .patientName(event.getPatientName())
+                        .appointmentDate(event.getAppointmentDate())
+                        .appointmentTime(event.getAppointmentTime())
+                        .status(event.getStatus())
+                        .build())
+                .toList();
+        int booked = (int) events.stream().filter(event -> event.getEventType() == DoctorDigestEvent.EventType.BOOKED).count();
+        int cancelled = (int) events.stream().filter(event -> event.getEventType() == DoctorDigestEvent.EventType.CANCELLED).count();
+        return DoctorDigestDTO.builder()
+                .doctorEmail(doctor.getEmail())
+                .doctorName("Dr. " + doctor.getFirstName() + " " + doctor.getLastName())
+                .digestDate(today)
+                .booked(booked)
+                .cancelled(cancelled)
+                .entries(entries)
+                .build();
+    }
+}
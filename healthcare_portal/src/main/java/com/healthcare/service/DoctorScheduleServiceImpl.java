@@ -16,13 +16,12 @@ import com.healthcare.entity.User;
 import com.healthcare.repository.DoctorScheduleRepository;
 import com.healthcare.repository.UserRepository;
 import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.security.CurrentUser;
 import com.healthcare.entity.Appointment;
 import java.time.format.DateTimeFormatter;
 
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 
 @Service
@@ -32,6 +31,7 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
     private final DoctorScheduleRepository doctorScheduleRepository;
     private final UserRepository userRepository; // Assuming a UserRepository exists
     private final AppointmentRepository appointmentRepository;
+    private final CurrentUser currentUser;
 
     // Converts an entity to a DTO
     private DoctorScheduleResponseDTO toDTO(DoctorSchedule schedule) {
@@ -155,13 +155,7 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
     @Override
     @Transactional
     public List<DoctorScheduleResponseDTO> getMySchedules() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        User doctor = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
-        
-        List<DoctorSchedule> schedules = doctorScheduleRepository.findByDoctorIdWithDoctor(doctor.getId());
+        List<DoctorSchedule> schedules = doctorScheduleRepository.findByDoctorIdWithDoctor(currentUser.getId());
         return schedules.stream().map(this::toDTO).collect(Collectors.toList());
     }
 
@@ -206,17 +200,11 @@ public class DoctorScheduleServiceImpl implements DoctorScheduleService {
     @Override
     @Transactional
     public void deleteMySchedule(Long id) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        User doctor = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
-        
         DoctorSchedule schedule = doctorScheduleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Schedule not found with ID: " + id));
         
         // Check if the schedule belongs to the authenticated doctor
-        if (!schedule.getDoctor().getId().equals(doctor.getId())) {
+        if (!schedule.getDoctor().getId().equals(currentUser.getId())) {
             throw new ResourceNotFoundException("Schedule not found with ID: " + id);
         }
         
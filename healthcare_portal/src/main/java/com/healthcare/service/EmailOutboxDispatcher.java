@@ -0,0 +1,170 @@
+package com.healthcare.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.dto.DoctorDigestDTO;
+import com.healthcare.entity.EmailOutbox;
+import com.healthcare.repository.EmailOutboxRepository;
+import com.healthcare.security.FieldEncryptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+
+/*
+ * Drains email_outbox: claims due rows in batches (FOR UPDATE SKIP LOCKED, so several nodes never
+ * claim the same row), renders and sends them on the MailDispatcher workers and records the outcome.
+ * A failed send is retried with exponential backoff until max-attempts, then marked FAILED.
+ * A claimed row carries a lease and a claim token. The lease restarts when a worker begins the send (the row
+ * may have waited in the local queue meanwhile); if the node dies before recording the outcome the row
+ * becomes due again, and a send whose row was reclaimed by then is skipped. Outcomes are only recorded
+ * under the token of the claim that sent. Sent rows are deleted; expired OTP rows are purged unsent.
+ */
+@Component
+@ConditionalOnProperty(name = "app.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailServiceImpl smtpEmailService;
+    private final MailDispatcher mailDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final FieldEncryptor fieldEncryptor;
+    private final Counter deadLetterCounter;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${app.mail.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, EmailServiceImpl smtpEmailService,
+            MailDispatcher mailDispatcher, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+            FieldEncryptor fieldEncryptor, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.smtpEmailService = smtpEmailService;
+        this.mailDispatcher = mailDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.fieldEncryptor = fieldEncryptor;
+        this.deadLetterCounter = Counter.builder("mail.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            for (EmailOutbox email : batch) {
+                try {
+                    mailDispatcher.submit(email.getType().name().toLowerCase(), "outbox#" + email.getId(), mailTask(email));
+                } catch (ServiceUnavailableException e) {
+                    // Local workers are saturated - give the row back for this or another node to pick up
+                    outboxRepository.release(email.getId(), email.getClaimToken(), EmailOutbox.Status.PENDING,
+                            LocalDateTime.now().plusSeconds(1));
+                }
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval-ms:60000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = outboxRepository.purge(now, PURGE_BATCH_SIZE);
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    List<EmailOutbox> claimBatch() {
+        String token = UUID.randomUUID().toString();
+        List<EmailOutbox> due = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> locked = outboxRepository.lockDueBatch(now, batchSize);
+            if (!locked.isEmpty()) {
+                outboxRepository.claim(locked.stream().map(EmailOutbox::getId).toList(), EmailOutbox.Status.SENDING,
+                        token, now.plusSeconds(leaseSeconds));
+            }
+            return locked;
+        });
+        // Detached by now - the token is only kept in memory, the claim above wrote it
+        due.forEach(email -> email.setClaimToken(token));
+        return due;
+    }
+
+    MailDispatcher.MailTask mailTask(EmailOutbox email) {
+        return new MailDispatcher.MailTask() {
+            @Override
+            public List<MimeMessage> prepare() throws Exception {
+                LocalDateTime now = LocalDateTime.now();
+                if (outboxRepository.renewLease(email.getId(), email.getClaimToken(), now, now.plusSeconds(leaseSeconds)) == 0) {
+                    return List.of(); // reclaimed after the lease ran out while queued, already sent, or expired
+                }
+                String payload = fieldEncryptor.decrypt(email.getPayload());
+                String to = email.getRecipient();
+                return switch (email.getType()) {
+                    case SIGNUP_OTP -> List.of(smtpEmailService.signupOtpMessage(to, payload));
+                    case PASSWORD_RESET_OTP -> List.of(smtpEmailService.passwordResetOtpMessage(to, payload));
+                    case WELCOME -> List.of(smtpEmailService.welcomeMessage(to, payload));
+                    case PASSWORD_RESET_CONFIRMATION -> List.of(smtpEmailService.passwordResetConfirmationMessage(to, payload));
+                    case APPOINTMENT_REMINDER -> smtpEmailService.appointmentReminderMessages(
+                            List.of(objectMapper.readValue(payload, AppointmentReminderDTO.class)));
+                    case DOCTOR_DIGEST -> List.of(smtpEmailService.doctorDigestMessage(
+                            objectMapper.readValue(payload, DoctorDigestDTO.class)));
+                };
+            }
+
+            @Override
+            public void onSent() {
+                outboxRepository.deleteSent(email.getId(), email.getClaimToken());
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                recordFailure(email, e);
+            }
+        };
+    }
+
+    private void recordFailure(EmailOutbox email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        error = error.length() > 500 ? error.substring(0, 500) : error;
+        if (attempts >= maxAttempts) {
+            deadLetterCounter.increment();
+            outboxRepository.markFailed(email.getId(), email.getClaimToken(), EmailOutbox.Status.FAILED,
+                    LocalDateTime.now(), error);
+        } else {
+            outboxRepository.markFailed(email.getId(), email.getClaimToken(), EmailOutbox.Status.PENDING,
+                    LocalDateTime.now().plusSeconds(backoffSeconds(attempts)), error);
+        }
+    }
+
+    // 30s, 60s, 120s, ... capped at backoff-max-seconds
+    private long backoffSeconds(int attempts) {
+        long delay = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxSeconds);
+    }
+}
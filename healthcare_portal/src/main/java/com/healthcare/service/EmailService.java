@@ -1,5 +1,10 @@
 package com.healthcare.service;
 
+import java.util.List;
+
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.dto.DoctorDigestDTO;
+
 public interface EmailService {
     
     /**
@@ -21,4 +26,15 @@ public interface EmailService {
      * Send password reset confirmation
      */
     void sendPasswordResetConfirmation(String to, String firstName);
+    
+    /**
+     * Send a batch of appointment reminders (rendered and sent together)
+     */
+    void sendAppointmentReminders(List<AppointmentReminderDTO> reminders);
+    
+    /**
+     * Send a doctor's daily summary of appointment changes; onDelivered runs once the digest can no
+     * longer be lost (sent, or written to the outbox in the caller's transaction)
+     */
+    void sendDoctorDigest(DoctorDigestDTO digest, Runnable onDelivered);
 }
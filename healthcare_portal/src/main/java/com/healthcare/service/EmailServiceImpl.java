@@ -7,15 +7,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.dto.DoctorDigestDTO;
 
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
     
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
     
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -26,48 +31,16 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendSignupOtp(String to, String otp) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Verify Your Email - " + appName);
-            
-            Context context = new Context();
-            context.setVariable("otp", otp);
-            context.setVariable("appName", appName);
-            context.setVariable("type", "signup");
-            
-            String htmlContent = templateEngine.process("otp-email", context);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(signupOtpMessage(to, otp));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send signup OTP email", e);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send signup OTP email", e);
         }
     }
     
     @Override
     public void sendPasswordResetOtp(String to, String otp) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Password Reset - " + appName);
-            
-            Context context = new Context();
-            context.setVariable("otp", otp);
-            context.setVariable("appName", appName);
-            context.setVariable("type", "password-reset");
-            
-            String htmlContent = templateEngine.process("otp-email", context);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(passwordResetOtpMessage(to, otp));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send password reset OTP email", e);
         }
@@ -76,21 +49,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendWelcomeEmail(String to, String firstName) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Welcome to " + appName);
-            
-            Context context = new Context();
-            context.setVariable("firstName", firstName);
-            context.setVariable("appName", appName);
-            
-            String htmlContent = templateEngine.process("welcome-email", context);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(welcomeMessage(to, firstName));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send welcome email", e);
         }
@@ -99,23 +58,88 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendPasswordResetConfirmation(String to, String firstName) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Password Reset Successful - " + appName);
-            
-            Context context = new Context();
-            context.setVariable("firstName", firstName);
-            context.setVariable("appName", appName);
-            
-            String htmlContent = templateEngine.process("password-reset-confirmation", context);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(passwordResetConfirmationMessage(to, firstName));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send password reset confirmation email", e);
         }
     }
+    
+    @Override
+    public void sendAppointmentReminders(List<AppointmentReminderDTO> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        try {
+            // Render everything first, then send the whole batch over one SMTP connection
+            mailSender.send(appointmentReminderMessages(reminders).toArray(new MimeMessage[0]));
+        } catch (MessagingException e) {
+            throw new RuntimeException("Failed to send appointment reminder emails", e);
+        }
+    }
+    
+    @Override
+    public void sendDoctorDigest(DoctorDigestDTO digest, Runnable onDelivered) {
+        try {
+            mailSender.send(doctorDigestMessage(digest));
+            onDelivered.run();
+        } catch (MessagingException e) {
+            throw new RuntimeException("Failed to send doctor digest email", e);
+        }
+    }
+    
+    // Message builders - MailDispatcher renders with these and sends whatever is queued as one batch
+    
+    public MimeMessage signupOtpMessage(String to, String otp) throws MessagingException {
+        return message(to, "Verify Your Email - " + appName,
+                templateRenderer.render("otp-email", Map.of("type", "signup"), Map.of("otp", otp)));
+    }
+    
+    public MimeMessage passwordResetOtpMessage(String to, String otp) throws MessagingException {
+        return message(to, "Password Reset - " + appName,
+                templateRenderer.render("otp-email", Map.of("type", "password-reset"), Map.of("otp", otp)));
+    }
+    
+    public MimeMessage welcomeMessage(String to, String firstName) throws MessagingException {
+        return message(to, "Welcome to " + appName,
+                templateRenderer.render("welcome-email", Map.of(), Map.of("firstName", firstName)));
+    }
+    
+    public MimeMessage passwordResetConfirmationMessage(String to, String firstName) throws MessagingException {
+        return message(to, "Password Reset Successful - " + appName,
+                templateRenderer.render("password-reset-confirmation", Map.of(), Map.of("firstName", firstName)));
+    }
+    
+    public List<MimeMessage> appointmentReminderMessages(List<AppointmentReminderDTO> reminders) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(reminders.size());
+        for (AppointmentReminderDTO reminder : reminders) {
+            messages.add(message(reminder.getPatientEmail(), "Appointment Reminder - " + appName,
+                    templateRenderer.render("appointment-reminder", Map.of(), Map.of(
+                            "patientName", reminder.getPatientName(),
+                            "doctorName", reminder.getDoctorName(),
+                            "appointmentDate", reminder.getAppointmentDate().toString(),
+                            "appointmentTime", reminder.getAppointmentTime().toString(),
+                            "timeUntil", reminder.getTimeUntil()))));
+        }
+        return messages;
+    }
+    
+    public MimeMessage doctorDigestMessage(DoctorDigestDTO digest) throws MessagingException {
+        return message(digest.getDoctorEmail(), "Daily Appointment Summary (" + digest.getDigestDate() + ") - " + appName,
+                templateRenderer.renderDynamic("doctor-digest", Map.of(
+                        "doctorName", digest.getDoctorName(),
+                        "booked", digest.getBooked(),
+                        "cancelled", digest.getCancelled(),
+                        "entries", digest.getEntries())));
+    }
+    
+    private MimeMessage message(String to, String subject, String htmlContent) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+        return message;
+    }
 }
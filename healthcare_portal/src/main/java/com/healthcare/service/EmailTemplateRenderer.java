@@ -0,0 +1,123 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Renders email templates without running Thymeleaf per message.
+ * Each (template, fixed variables) combination is processed once with marker values in place of the
+ * per-message variables; the output is split at the markers and later messages only concatenate the
+ * static segments with the escaped values. Per-message variables must therefore only be printed
+ * (th:text), never used in th:if/th:each - those belong in the fixed variables.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private static final String MARKER_START = "@@tpl:";
+    private static final String MARKER_END = "@@";
+
+    // Static segments, with variables[i] to be inserted between segments[i] and segments[i + 1]
+    private record CompiledTemplate(String[] segments, String[] variables, int staticLength) {
+    }
+
+    private final TemplateEngine templateEngine;
+    private final ConcurrentHashMap<String, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+
+    @Value("${app.name:Healthcare Portal}")
+    private String appName;
+
+    public EmailTemplateRenderer(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    // Compile the templates EmailServiceImpl uses so the first messages do not pay for it
+    @PostConstruct
+    public void precompile() {
+        compile("otp-email", Map.of("type", "signup"), List.of("otp"));
+        compile("otp-email", Map.of("type", "password-reset"), List.of("otp"));
+        compile("welcome-email", Map.of(), List.of("firstName"));
+        compile("password-reset-confirmation", Map.of(), List.of("firstName"));
+        compile("appointment-reminder", Map.of(),
+                List.of("patientName", "doctorName", "appointmentDate", "appointmentTime", "timeUntil"));
+    }
+
+    /**
+     * Render a template; appName is always available as a fixed variable
+     */
+    public String render(String template, Map<String, Object> fixedVariables, Map<String, String> messageVariables) {
+        CompiledTemplate compiledTemplate = compiled.get(key(template, fixedVariables));
+        if (compiledTemplate == null) {
+            compiledTemplate = compile(template, fixedVariables, List.copyOf(messageVariables.keySet()));
+        }
+
+        StringBuilder html = new StringBuilder(compiledTemplate.staticLength() + 64 * compiledTemplate.variables().length);
+        String[] segments = compiledTemplate.segments();
+        for (int i = 0; i < compiledTemplate.variables().length; i++) {
+            html.append(segments[i]);
+            String value = messageVariables.get(compiledTemplate.variables()[i]);
+            html.append(value == null ? "" : HtmlUtils.htmlEscape(value));
+        }
+        return html.append(segments[segments.length - 1]).toString();
+    }
+
+    /**
+     * Full Thymeleaf processing on every call - the path render() replaces (kept for comparison)
+     */
+    public String renderWithThymeleaf(String template, Map<String, Object> fixedVariables, Map<String, String> messageVariables) {
+        Context context = new Context();
+        context.setVariable("appName", appName);
+        fixedVariables.forEach(context::setVariable);
+        messageVariables.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    /**
+     * Templates that loop over per-message data (th:each) cannot be precompiled - full Thymeleaf processing
+     */
+    public String renderDynamic(String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariable("appName", appName);
+        variables.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private CompiledTemplate compile(String template, Map<String, Object> fixedVariables, List<String> messageVariables) {
+        return compiled.computeIfAbsent(key(template, fixedVariables), key -> {
+            Context context = new Context();
+            context.setVariable("appName", appName);
+            fixedVariables.forEach(context::setVariable);
+            messageVariables.forEach(name -> context.setVariable(name, MARKER_START + name + MARKER_END));
+            String html = templateEngine.process(template, context);
+
+            List<String> segments = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int position = 0;
+            int markerStart;
+            while ((markerStart = html.indexOf(MARKER_START, position)) >= 0) {
+                int nameStart = markerStart + MARKER_START.length();
+                int markerEnd = html.indexOf(MARKER_END, nameStart);
+                segments.add(html.substring(position, markerStart));
+                variables.add(html.substring(nameStart, markerEnd));
+                position = markerEnd + MARKER_END.length();
+            }
+            segments.add(html.substring(position));
+            int staticLength = segments.stream().mapToInt(String::length).sum();
+            return new CompiledTemplate(segments.toArray(String[]::new), variables.toArray(String[]::new), staticLength);
+        });
+    }
+
+    private static String key(String template, Map<String, Object> fixedVariables) {
+        return fixedVariables.isEmpty() ? template : template + new TreeMap<>(fixedVariables);
+    }
+}
@@ -4,8 +4,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +14,7 @@ import com.healthcare.entity.Feedback;
 import com.healthcare.entity.User;
 import com.healthcare.repository.FeedbackRepository;
 import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,6 +24,7 @@ public class FeedbackServiceImpl implements FeedbackService {
     
     private final FeedbackRepository feedbackRepository;
     private final UserRepository userRepository;
+    private final CurrentUser currentUser;
     
     // Convert entity to DTO
     private FeedbackResponseDTO toDTO(Feedback feedback) {
@@ -140,16 +140,12 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Override
     @Transactional
     public List<FeedbackResponseDTO> getFeedbackByRating(Integer rating) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
+        if (currentUser.isAdmin()) {
             // Admin can see all feedback by rating
             return feedbackRepository.findByRatingWithDetails(rating).stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        } else if (currentUser.isDoctor()) {
             // Doctor can see feedback by rating from their treated patients
             return feedbackRepository.findByRatingWithDetails(rating).stream()
                     .filter(feedback -> feedback.getDoctor() != null && feedback.getDoctor().getId().equals(currentUser.getId()))
@@ -177,15 +173,11 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Override
     @Transactional
     public List<FeedbackResponseDTO> getMyFeedback() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
+        if (currentUser.isPatient()) {
             return feedbackRepository.findByPatientIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        } else if (currentUser.isDoctor()) {
             // Doctors can see feedback from their treated patients
             return feedbackRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
@@ -199,11 +191,7 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Override
     @Transactional
     public List<FeedbackResponseDTO> getMyPatientFeedback() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        if (currentUser.isDoctor()) {
             // Doctors can see feedback from their treated patients
             return feedbackRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
                     .map(this::toDTO)
@@ -216,16 +204,12 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Override
     @Transactional
     public List<FeedbackResponseDTO> getGeneralFeedback() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
+        if (currentUser.isAdmin()) {
             // Admin can see all general feedback
             return feedbackRepository.findGeneralFeedbackWithDetails().stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        } else if (currentUser.isDoctor()) {
             // Doctor can see general feedback from their treated patients
             return feedbackRepository.findGeneralFeedbackWithDetails().stream()
                     .filter(feedback -> {
@@ -235,7 +219,7 @@ public class FeedbackServiceImpl implements FeedbackService {
                     })
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
+        } else if (currentUser.isPatient()) {
             // Patient can see their own general feedback
             return feedbackRepository.findGeneralFeedbackWithDetails().stream()
                     .filter(feedback -> feedback.getPatient().getId().equals(currentUser.getId()))
@@ -249,22 +233,18 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Override
     @Transactional
     public List<FeedbackResponseDTO> getDoctorSpecificFeedback() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
+        if (currentUser.isAdmin()) {
             // Admin can see all doctor-specific feedback
             return feedbackRepository.findDoctorFeedbackWithDetails().stream()
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
+        } else if (currentUser.isDoctor()) {
             // Doctor can see feedback about themselves from their treated patients
             return feedbackRepository.findDoctorFeedbackWithDetails().stream()
                     .filter(feedback -> feedback.getDoctor() != null && feedback.getDoctor().getId().equals(currentUser.getId()))
                     .map(this::toDTO)
                     .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
+        } else if (currentUser.isPatient()) {
             // Patient can see all doctor-specific feedback
             return feedbackRepository.findDoctorFeedbackWithDetails().stream()
                     .map(this::toDTO)
@@ -282,85 +262,4 @@ public class FeedbackServiceImpl implements FeedbackService {
         
         feedbackRepository.delete(feedback);
     }
-    
-    // Method to check if feedback belongs to current user (for security annotations)
-    public boolean isOwnFeedback(Long feedbackId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            Feedback feedback = feedbackRepository.findById(feedbackId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Feedback not found with ID: " + feedbackId));
-            
-            if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
-                return feedback.getPatient().getId().equals(currentUser.getId());
-            } else if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
-                return true; // Admin can access all feedback
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    // Method to check if feedback is from doctor's treated patient
-    public boolean isOwnPatientFeedback(Long feedbackId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            if (!currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-                return false;
-            }
-            
-            Feedback feedback = feedbackRepository.findById(feedbackId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Feedback not found with ID: " + feedbackId));
-            
-            // Check if the feedback is from a patient treated by this doctor
-            return feedback.getPatient().getId().equals(currentUser.getId()) || 
-                   (feedback.getDoctor() != null && feedback.getDoctor().getId().equals(currentUser.getId()));
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    // Method to check if feedback by patient ID is from doctor's treated patient
-    public boolean isOwnPatientFeedbackByPatientId(Long patientId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            if (!currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-                return false;
-            }
-            
-            // For now, we'll allow doctors to see feedback from any patient
-            // In a real system, you might want to check if the doctor has treated this patient
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    // Method to check if feedback by patient and doctor is from doctor's treated patient
-    public boolean isOwnPatientFeedbackByPatientAndDoctor(Long patientId, Long doctorId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            if (!currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-                return false;
-            }
-            
-            // Check if the doctor ID matches the current doctor
-            return doctorId.equals(currentUser.getId());
-        } catch (Exception e) {
-            return false;
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Hierarchical timing wheel keyed by K (not thread-safe - callers synchronize).
+ * Level 0 has 'wheelSize' slots of 'tickMillis'; each higher level has the same number of slots,
+ * each as wide as a full turn of the level below. Entries sit in the coarsest level that fits and
+ * cascade down as their slot comes round, so schedule/cancel are O(1) and advancing costs one slot
+ * per tick instead of a scan over everything scheduled.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private record Entry(long deadlineTick, int level, int slot) {
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] ticksPerSlot;
+    private final List<List<Set<K>>> slots; // [level][slot]
+    private final Map<K, Entry> index = new HashMap<>();
+    private final List<K> overdue = new ArrayList<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.ticksPerSlot = new long[levels];
+        this.slots = new ArrayList<>(levels);
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            ticksPerSlot[level] = span;
+            span *= wheelSize;
+            List<Set<K>> levelSlots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                levelSlots.add(new LinkedHashSet<>());
+            }
+            slots.add(levelSlots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Furthest deadline (millis) the wheel can hold from the current tick
+     */
+    public long horizonMillis() {
+        return (ticksPerSlot[ticksPerSlot.length - 1] * wheelSize - 1) * tickMillis;
+    }
+
+    /**
+     * Schedule (or reschedule) a key; false if the deadline is beyond the horizon
+     */
+    public boolean schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up so a key never fires before its deadline (at most one tick late instead)
+        long deadlineTick = Math.ceilDiv(deadlineMillis, tickMillis);
+        if (deadlineTick <= currentTick) {
+            overdue.add(key);
+            index.put(key, new Entry(deadlineTick, -1, -1));
+            return true;
+        }
+        return place(key, deadlineTick);
+    }
+
+    public boolean cancel(K key) {
+        Entry entry = index.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level() < 0) {
+            overdue.remove(key);
+        } else {
+            slots.get(entry.level()).get(entry.slot()).remove(key);
+        }
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return index.containsKey(key);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Move the wheel to 'nowMillis' and return every key whose deadline has passed
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade coarse slots that start at this tick before draining level 0
+            for (int level = ticksPerSlot.length - 1; level > 0; level--) {
+                if (currentTick % ticksPerSlot[level] == 0) {
+                    cascade(level, slotFor(level, currentTick));
+                }
+            }
+            Set<K> slot = slots.get(0).get(slotFor(0, currentTick));
+            for (K key : slot) {
+                index.remove(key);
+                due.add(key);
+            }
+            slot.clear();
+        }
+        // Scheduled in the past, or cascaded exactly onto their deadline tick
+        for (K key : overdue) {
+            index.remove(key);
+            due.add(key);
+        }
+        overdue.clear();
+        return due;
+    }
+
+    private void cascade(int level, int slotIndex) {
+        Set<K> slot = slots.get(level).get(slotIndex);
+        List<K> keys = new ArrayList<>(slot);
+        slot.clear();
+        for (K key : keys) {
+            Entry entry = index.remove(key);
+            if (entry.deadlineTick() <= currentTick) {
+                overdue.add(key);
+                index.put(key, new Entry(entry.deadlineTick(), -1, -1));
+            } else {
+                place(key, entry.deadlineTick());
+            }
+        }
+    }
+
+    private boolean place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        for (int level = 0; level < ticksPerSlot.length; level++) {
+            if (delta < ticksPerSlot[level] * wheelSize) {
+                int slot = slotFor(level, deadlineTick);
+                slots.get(level).get(slot).add(key);
+                index.put(key, new Entry(deadlineTick, level, slot));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotFor(int level, long tick) {
+        return (int) ((tick / ticksPerSlot[level]) % wheelSize);
+    }
+}
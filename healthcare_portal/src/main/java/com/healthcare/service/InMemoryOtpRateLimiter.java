@@ -0,0 +1,112 @@
+package com.healthcare.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.entity.Otp;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * One ring buffer of the last 'limit' request timestamps per (email, type).
+ * A request is allowed when the oldest slot has left the window, which makes this an exact
+ * sliding window in 'limit' longs per key. Windows with no request inside the window are evicted.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.rate-limiter", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpRateLimiter implements OtpRateLimiter {
+
+    private record Key(String email, Otp.OtpType type) {
+    }
+
+    private static final class Window {
+        final long[] timestamps;
+        int next; // slot holding the oldest timestamp (0 = never used)
+
+        Window(int limit) {
+            this.timestamps = new long[limit];
+        }
+
+        boolean tryAcquire(long now, long windowMillis) {
+            long oldest = timestamps[next];
+            if (oldest != 0 && now - oldest < windowMillis) {
+                return false;
+            }
+            timestamps[next] = now;
+            next = (next + 1) % timestamps.length;
+            return true;
+        }
+
+        boolean isIdle(long now, long windowMillis) {
+            long newest = timestamps[(next + timestamps.length - 1) % timestamps.length];
+            return now - newest >= windowMillis;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Window> windows = new ConcurrentHashMap<>();
+    private final int limit;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService evictor;
+
+    @Autowired
+    public InMemoryOtpRateLimiter(@Value("${app.otp.rate-limit.max-requests:3}") int limit,
+            @Value("${app.otp.rate-limit.window-minutes:60}") long windowMinutes) {
+        this(limit, windowMinutes, System::currentTimeMillis);
+    }
+
+    // Clock is injectable for tests
+    InMemoryOtpRateLimiter(int limit, long windowMinutes, LongSupplier clock) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("app.otp.rate-limit.max-requests must be at least 1");
+        }
+        if (windowMinutes < 1) {
+            throw new IllegalArgumentException("app.otp.rate-limit.window-minutes must be at least 1");
+        }
+        this.limit = limit;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.clock = clock;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public boolean tryAcquire(String email, Otp.OtpType type) {
+        long now = clock.getAsLong();
+        boolean[] allowed = new boolean[1];
+        // compute() runs under the map's bin lock, so eviction cannot drop a window mid-update
+        windows.compute(new Key(email, type), (key, window) -> {
+            Window current = window != null ? window : new Window(limit);
+            allowed[0] = current.tryAcquire(now, windowMillis);
+            return current;
+        });
+        return allowed[0];
+    }
+
+    void evictIdle() {
+        long now = clock.getAsLong();
+        windows.keySet().forEach(key ->
+                windows.computeIfPresent(key, (k, window) -> window.isIdle(now, windowMillis) ? null : window));
+    }
+
+    int trackedKeys() {
+        return windows.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+}
@@ -0,0 +1,167 @@
+package com.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.entity.Otp;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Single-node OTP store - no database writes at all.
+ * Codes live in a ConcurrentHashMap; expiry is handled by a timing wheel (one slot per tick)
+ * that a background thread sweeps, so expired codes are dropped without scanning the whole map.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private record Key(String email, Otp.OtpType type) {
+    }
+
+    private static final class Entry {
+        final byte[] code;
+        final long expiresAtMillis;
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicBoolean used = new AtomicBoolean();
+
+        Entry(String code, long expiresAtMillis) {
+            this.code = code.getBytes(StandardCharsets.UTF_8);
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Entry> codes = new ConcurrentHashMap<>();
+
+    private final long tickMillis;
+    private final List<Queue<Key>> wheel;
+    private final LongSupplier clock;
+    private volatile long currentTick;
+    private final ScheduledExecutorService sweeper;
+
+    @Autowired
+    public InMemoryOtpStore(@Value("${app.otp.memory.tick-seconds:5}") int tickSeconds,
+            @Value("${app.otp.memory.wheel-slots:256}") int wheelSlots) {
+        this(TimeUnit.SECONDS.toMillis(tickSeconds), wheelSlots, System::currentTimeMillis, true);
+    }
+
+    // Tests pass their own clock and call sweep() themselves
+    InMemoryOtpStore(long tickMillis, int wheelSlots, LongSupplier clock, boolean startSweeper) {
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.wheel = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.currentTick = clock.getAsLong() / tickMillis;
+        if (!startSweeper) {
+            this.sweeper = null;
+            return;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-store-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(String email, Otp.OtpType type, String otpCode, Duration ttl) {
+        Key key = new Key(email, type);
+        long now = clock.getAsLong();
+        Entry entry = new Entry(otpCode, now + ttl.toMillis());
+        codes.put(key, entry);
+        schedule(key, entry.expiresAtMillis);
+    }
+
+    @Override
+    public boolean verify(String email, Otp.OtpType type, String otpCode) {
+        Key key = new Key(email, type);
+        Entry entry = codes.get(key);
+        if (entry == null || otpCode == null) {
+            return false;
+        }
+        if (clock.getAsLong() >= entry.expiresAtMillis) {
+            codes.remove(key, entry);
+            return false;
+        }
+        // Count the attempt before comparing so concurrent guesses cannot exceed the limit
+        if (entry.used.get() || entry.attempts.incrementAndGet() > MAX_ATTEMPTS) {
+            return false;
+        }
+        if (MessageDigest.isEqual(entry.code, otpCode.getBytes(StandardCharsets.UTF_8))
+                && entry.used.compareAndSet(false, true)) {
+            codes.remove(key, entry);
+            return true;
+        }
+        return false;
+    }
+
+    private void schedule(Key key, long expiresAtMillis) {
+        long tick = Math.max(expiresAtMillis / tickMillis, currentTick + 1);
+        wheel.get((int) (tick % wheel.size())).add(key);
+    }
+
+    // Drains the slot(s) for the ticks that have passed; keys whose code was replaced
+    // or that belong to a later lap of the wheel are rescheduled instead of removed
+    synchronized void sweep() {
+        try {
+            long now = clock.getAsLong();
+            long nowTick = now / tickMillis;
+            while (currentTick < nowTick) {
+                currentTick++;
+                Queue<Key> slot = wheel.get((int) (currentTick % wheel.size()));
+                int size = slot.size();
+                for (int i = 0; i < size; i++) {
+                    Key key = slot.poll();
+                    if (key == null) {
+                        break;
+                    }
+                    Entry entry = codes.get(key);
+                    if (entry == null) {
+                        continue;
+                    }
+                    if (entry.expiresAtMillis <= now) {
+                        codes.remove(key, entry);
+                    } else if (entry.expiresAtMillis / tickMillis > currentTick) {
+                        schedule(key, entry.expiresAtMillis);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("OTP store sweep failed: " + e.getMessage());
+        }
+    }
+
+    // Codes currently held (expired ones stay until their slot is swept)
+    int size() {
+        return codes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/*
+ * In-memory inverted index with BM25 ranking (not thread-safe - callers use a read/write lock).
+ * Every document gets an internal int id in insertion order, so each term's postings are an
+ * append-only pair of sorted int arrays (doc id, weighted term frequency). Updating a document
+ * marks the old internal id deleted and appends a new one; once enough deleted ids pile up the
+ * postings are compacted. Queries are conjunctive: the rarest term drives the scan and the other
+ * terms are found by galloping search in their postings, so cost follows the smallest posting list.
+ */
+public class InvertedIndex {
+
+    public record Hit(long key, double score) {
+    }
+
+    public record Result(long totalHits, List<Hit> hits) {
+    }
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it",
+            "of", "on", "or", "the", "to", "was", "were", "with");
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        // First position >= from whose doc is >= target (galloping, then binary search)
+        int advance(int from, int target) {
+            int bound = 1;
+            while (from + bound < size && docs[from + bound] < target) {
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(docs, from + (bound >> 1), Math.min(size, from + bound + 1), target);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docsByKey = new HashMap<>();
+    private long[] keys = new long[1024];
+    private long[] ownerA = new long[1024];
+    private long[] ownerB = new long[1024];
+    private int[] lengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int nextDoc;
+    private int liveDocs;
+    private long liveLength;
+
+    /**
+     * Lower-cased letter/digit runs without stop words
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Add or replace a document; 'weightedTerms' maps each term to its (field-weighted) frequency.
+     * ownerA/ownerB are opaque ids the query filter can check (e.g. doctor and patient).
+     */
+    public void put(long key, long ownerAId, long ownerBId, Map<String, Integer> weightedTerms) {
+        remove(key);
+        if (weightedTerms.isEmpty()) {
+            return;
+        }
+        if (nextDoc == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            ownerA = Arrays.copyOf(ownerA, capacity);
+            ownerB = Arrays.copyOf(ownerB, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int doc = nextDoc++;
+        int length = 0;
+        for (Map.Entry<String, Integer> term : weightedTerms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new Postings()).add(doc, term.getValue());
+            length += term.getValue();
+        }
+        keys[doc] = key;
+        ownerA[doc] = ownerAId;
+        ownerB[doc] = ownerBId;
+        lengths[doc] = length;
+        docsByKey.put(key, doc);
+        liveDocs++;
+        liveLength += length;
+    }
+
+    public boolean remove(long key) {
+        Integer doc = docsByKey.remove(key);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        liveDocs--;
+        liveLength -= lengths[doc];
+        return true;
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    public int terms() {
+        return postings.size();
+    }
+
+    public boolean needsCompaction() {
+        int dead = nextDoc - liveDocs;
+        return dead > 10_000 && dead > nextDoc / 4;
+    }
+
+    /**
+     * Drop deleted documents from every posting list and renumber the rest (order is kept, so postings stay sorted)
+     */
+    public void compact() {
+        int[] remap = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                keys[live] = keys[doc];
+                ownerA[live] = ownerA[doc];
+                ownerB[live] = ownerB[doc];
+                lengths[live] = lengths[doc];
+                docsByKey.put(keys[live], live);
+                live++;
+            }
+        }
+        postings.values().removeIf(list -> {
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = remap[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[kept] = doc;
+                    list.freqs[kept] = list.freqs[i];
+                    kept++;
+                }
+            }
+            list.size = kept;
+            return kept == 0;
+        });
+        deleted.clear();
+        nextDoc = live;
+    }
+
+    /**
+     * Documents containing every term, ranked by BM25; 'offset'/'limit' select the page of hits
+     */
+    public Result search(List<String> terms, LongPredicate ownerAFilter, LongPredicate ownerBFilter, int offset, int limit) {
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms.stream().distinct().toList()) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return new Result(0, List.of());
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        double averageLength = liveDocs == 0 ? 1 : (double) liveLength / liveDocs;
+        double[] idf = new double[lists.size()];
+        for (int t = 0; t < lists.size(); t++) {
+            // Document frequency still counts deleted documents until the next compaction
+            int df = lists.get(t).size;
+            idf[t] = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+        }
+
+        int wanted = offset + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score).thenComparing(Hit::key, Comparator.reverseOrder()));
+        int[] cursors = new int[lists.size()];
+        long totalHits = 0;
+        Postings driver = lists.get(0);
+
+        candidates:
+        for (int i = 0; i < driver.size; i++) {
+            int doc = driver.docs[i];
+            if (deleted.get(doc) || !ownerAFilter.test(ownerA[doc]) || !ownerBFilter.test(ownerB[doc])) {
+                continue;
+            }
+            double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double score = idf[0] * driver.freqs[i] * (K1 + 1) / (driver.freqs[i] + norm);
+            for (int t = 1; t < lists.size(); t++) {
+                Postings list = lists.get(t);
+                int position = list.advance(cursors[t], doc);
+                cursors[t] = position;
+                if (position >= list.size) {
+                    break candidates;
+                }
+                if (list.docs[position] != doc) {
+                    continue candidates;
+                }
+                int freq = list.freqs[position];
+                score += idf[t] * freq * (K1 + 1) / (freq + norm);
+            }
+            totalHits++;
+            if (wanted > 0 && (top.size() < wanted || score > top.peek().score())) {
+                top.add(new Hit(keys[doc], score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::key));
+        List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+        return new Result(totalHits, page);
+    }
+}
@@ -0,0 +1,70 @@
+package com.healthcare.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.healthcare.entity.Otp;
+import com.healthcare.entity.OtpRateWindow;
+import com.healthcare.repository.OtpRateWindowRepository;
+
+/*
+ * Cluster variant of the OTP sliding window: the same ring of timestamps, stored in one
+ * otp_rate_windows row per (email, type) and updated under a row lock - a primary key lookup, no COUNT.
+ * Idle rows are purged by OtpPurgeJob.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.rate-limiter", havingValue = "database")
+public class JpaOtpRateLimiter implements OtpRateLimiter {
+
+    private final OtpRateWindowRepository windowRepository;
+    private final int limit;
+    private final long windowMillis;
+
+    public JpaOtpRateLimiter(OtpRateWindowRepository windowRepository,
+            @Value("${app.otp.rate-limit.max-requests:3}") int limit,
+            @Value("${app.otp.rate-limit.window-minutes:60}") long windowMinutes) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("app.otp.rate-limit.max-requests must be at least 1");
+        }
+        if (windowMinutes < 1) {
+            throw new IllegalArgumentException("app.otp.rate-limit.window-minutes must be at least 1");
+        }
+        this.windowRepository = windowRepository;
+        this.limit = limit;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+    }
+
+    @Override
+    @Transactional
+    public boolean tryAcquire(String email, Otp.OtpType type) {
+        windowRepository.insertIfAbsent(email, type.ordinal());
+        // OtpPurgeJob may delete a stale row between the insert and the lock - create it once more
+        OtpRateWindow window = windowRepository.findForUpdate(email, type).orElseGet(() -> {
+            windowRepository.insertIfAbsent(email, type.ordinal());
+            return windowRepository.findForUpdate(email, type)
+                    .orElseThrow(() -> new IllegalStateException("OTP rate window missing for " + email));
+        });
+
+        long now = System.currentTimeMillis();
+        // Keep only the timestamps still inside the window (oldest first)
+        long[] recent = Arrays.stream(window.getIssuedAt().split(","))
+                .filter(value -> !value.isEmpty())
+                .mapToLong(Long::parseLong)
+                .filter(issuedAt -> now - issuedAt < windowMillis)
+                .toArray();
+        if (recent.length >= limit) {
+            return false;
+        }
+
+        window.setIssuedAt(Arrays.stream(recent).mapToObj(String::valueOf).collect(Collectors.joining(","))
+                + (recent.length > 0 ? "," : "") + now);
+        windowRepository.save(window);
+        return true;
+    }
+}
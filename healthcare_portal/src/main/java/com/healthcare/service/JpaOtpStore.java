@@ -0,0 +1,67 @@
+package com.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.healthcare.entity.Otp;
+import com.healthcare.repository.OtpRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * OTP store backed by the otps table - use this when several nodes share the same users
+ * (a code sent by one node has to be verifiable on another).
+ */
+@Component
+@Transactional
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    public void save(String email, Otp.OtpType type, String otpCode, Duration ttl) {
+        // Delete any existing OTP for this email and type
+        otpRepository.deleteByEmailAndType(email, type);
+
+        Otp otp = Otp.builder()
+                .email(email)
+                .otpCode(otpCode)
+                .type(type)
+                .expiryTime(LocalDateTime.now().plus(ttl))
+                .isUsed(false)
+                .attempts(0)
+                .build();
+        otpRepository.save(otp);
+    }
+
+    @Override
+    public boolean verify(String email, Otp.OtpType type, String otpCode) {
+        Optional<Otp> otpEntity = otpRepository.findLatestValidOtp(email, type);
+        if (otpEntity.isEmpty() || otpCode == null) {
+            return false;
+        }
+
+        Otp otpObj = otpEntity.get();
+        if (!otpObj.canAttempt()) {
+            return false;
+        }
+
+        if (MessageDigest.isEqual(otpObj.getOtpCode().getBytes(StandardCharsets.UTF_8),
+                otpCode.getBytes(StandardCharsets.UTF_8))) {
+            otpObj.setIsUsed(true);
+        } else {
+            otpObj.incrementAttempts();
+        }
+        otpRepository.save(otpObj);
+        return otpObj.getIsUsed();
+    }
+}
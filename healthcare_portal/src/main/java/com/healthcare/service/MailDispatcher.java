@@ -0,0 +1,241 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+
+/*
+ * Bounded queue + fixed set of workers for outgoing mail (replaces a new Thread per email).
+ * A message submitted with a key that is still queued replaces the queued one (e.g. a second OTP
+ * for the same address - only the latest code is valid anyway). When the queue is full new
+ * messages are rejected with a 503 instead of piling up threads blocked on SMTP.
+ * A worker takes whatever is queued (up to batch-size), renders it and sends it with one
+ * send(MimeMessage...) call - one SMTP connection for the whole batch.
+ */
+@Component
+public class MailDispatcher {
+
+    /**
+     * An email handed to the dispatcher: rendered on a worker, sent in a batch with whatever else is
+     * queued, then told the outcome
+     */
+    @FunctionalInterface
+    public interface MailTask {
+
+        // Messages to send; an empty list sends nothing and reports nothing (e.g. an outbox row taken over meanwhile)
+        List<MimeMessage> prepare() throws Exception;
+
+        default void onSent() {
+        }
+
+        default void onFailed(Exception e) {
+        }
+    }
+
+    private record Job(String type, MailTask task, long enqueuedAt) {
+    }
+
+    // A place in the queue; a coalesced submit swaps the job while the slot is still queued
+    private static final class Slot {
+        private final String key;
+        private volatile Job job;
+
+        private Slot(String key, Job job) {
+            this.key = key;
+            this.job = job;
+        }
+    }
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<Slot> queue;
+    private final ConcurrentHashMap<String, Slot> pending = new ConcurrentHashMap<>();
+    private final AtomicLong uniqueKeys = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+    private final Counter coalescedCounter;
+    private final DistributionSummary batchSizes;
+
+    public MailDispatcher(JavaMailSender mailSender,
+            @Value("${app.mail.dispatcher.workers:4}") int workerCount,
+            @Value("${app.mail.dispatcher.queue-capacity:500}") int queueCapacity,
+            @Value("${app.mail.dispatcher.batch-size:20}") int batchSize,
+            @Value("${app.mail.dispatcher.virtual-threads:true}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = Counter.builder("mail.dispatch.rejected").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("mail.dispatch.coalesced").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("mail.dispatch.batch").register(meterRegistry);
+        Gauge.builder("mail.dispatch.queue", queue, BlockingQueue::size).register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = virtualThreads
+                ? Thread.ofVirtual().name("mail-", 1).factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "mail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread worker = factory.newThread(this::work);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queue a message; a queued message with the same key is replaced instead of sending both
+     */
+    public void submit(String type, String coalesceKey, MailTask task) {
+        Job job = new Job(type, task, System.nanoTime());
+        boolean[] coalesced = new boolean[1];
+        // Replace, enqueue or reject under the key's lock, so a worker or another submit never sees half of it
+        Slot slot = pending.compute(coalesceKey, (key, queued) -> {
+            if (queued != null) {
+                // The older message is still waiting - its slot in the queue now sends this one
+                queued.job = job;
+                coalesced[0] = true;
+                return queued;
+            }
+            Slot added = new Slot(key, job);
+            return queue.offer(added) ? added : null;
+        });
+        if (coalesced[0]) {
+            coalescedCounter.increment();
+        } else if (slot == null) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Email service is busy right now. Please try again shortly.");
+        }
+    }
+
+    /**
+     * Queue a message that is never coalesced
+     */
+    public void submit(String type, MailTask task) {
+        submit(type, type + "#" + uniqueKeys.incrementAndGet(), task);
+    }
+
+    private void work() {
+        List<Slot> slots = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                slots.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(slots, batchSize - 1);
+            sendBatch(slots);
+            slots.clear();
+        }
+    }
+
+    private void sendBatch(List<Slot> slots) {
+        long started = System.nanoTime();
+        List<Job> jobs = new ArrayList<>(slots.size());
+        List<List<MimeMessage>> jobMessages = new ArrayList<>(slots.size());
+        List<MimeMessage> batch = new ArrayList<>();
+        for (Slot slot : slots) {
+            // Once the slot is out of the map a new submit with its key queues a new slot
+            pending.remove(slot.key, slot);
+            Job job = slot.job;
+            List<MimeMessage> messages;
+            try {
+                messages = job.task().prepare();
+            } catch (Exception e) {
+                finish(job, e, started);
+                continue;
+            }
+            if (!messages.isEmpty()) {
+                jobs.add(job);
+                jobMessages.add(messages);
+                batch.addAll(messages);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        Map<Object, Exception> failedMessages = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(batch.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+
+        for (int i = 0; i < jobs.size(); i++) {
+            Exception failure = batchFailure;
+            for (MimeMessage message : jobMessages.get(i)) {
+                if (failure == null) {
+                    failure = failedMessages.get(message);
+                }
+            }
+            finish(jobs.get(i), failure, started);
+        }
+    }
+
+    private void finish(Job job, Exception failure, long started) {
+        String outcome = failure == null ? "sent" : "failed";
+        try {
+            if (failure == null) {
+                job.task().onSent();
+            } else {
+                // Log the error - the request that queued the message has already returned
+                System.err.println("Email sending failed (" + job.type() + "): " + failure.getMessage());
+                job.task().onFailed(failure);
+            }
+        } catch (Exception e) {
+            System.err.println("Recording the email outcome failed (" + job.type() + "): " + e.getMessage());
+        }
+        long finished = System.nanoTime();
+        Timer.builder("mail.dispatch.latency").tag("type", job.type()).tag("outcome", outcome)
+                .register(meterRegistry).record(finished - job.enqueuedAt(), TimeUnit.NANOSECONDS);
+        Timer.builder("mail.dispatch.send").tag("type", job.type()).tag("outcome", outcome)
+                .register(meterRegistry).record(finished - started, TimeUnit.NANOSECONDS);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+}
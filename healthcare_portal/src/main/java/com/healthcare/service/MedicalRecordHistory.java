@@ -0,0 +1,299 @@
+package com.healthcare.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.MedicalRecordRevisionDTO;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.entity.MedicalRecordRevision;
+import com.healthcare.repository.MedicalRecordRevisionRepository;
+
+/*
+ * Version history of diagnosis/prescription/notes. The medical_records row keeps the current text
+ * (reads of the latest version are unchanged); every change appends a revision that only holds a
+ * delta against the previous one - per field the length of the unchanged prefix and suffix plus the
+ * replaced middle - deflate-compressed. Every snapshot-interval revisions a full snapshot is written
+ * instead, so rebuilding any revision applies at most snapshot-interval - 1 deltas.
+ * A delta is only valid against the text it was computed from: before appending, the latest revision is
+ * rebuilt and compared with the record's current text, and if they differ (changed while history was
+ * disabled, by the bulk import, or by a manual UPDATE) that text is stored as a snapshot first.
+ * Callers hold the record row lock. Revisions carry the record's doctor, so the history of a deleted
+ * record stays readable by the doctor who had it last.
+ */
+@Component
+public class MedicalRecordHistory {
+
+    public record Texts(String diagnosis, String prescription, String notes) {
+
+        public static Texts of(MedicalRecord record) {
+            return new Texts(record.getDiagnosis(), record.getPrescription(), record.getNotes());
+        }
+
+        String[] fields() {
+            return new String[] { diagnosis, prescription, notes };
+        }
+    }
+
+    private record Rebuilt(Texts texts, MedicalRecordRevision last) {
+    }
+
+    private static final byte UNCHANGED = 0;
+    private static final byte CLEARED = 1;
+    private static final byte REPLACED = 2;
+    private static final byte EDITED = 3;
+
+    private final MedicalRecordRevisionRepository revisionRepository;
+    private final boolean enabled;
+    private final int snapshotInterval;
+
+    public MedicalRecordHistory(MedicalRecordRevisionRepository revisionRepository,
+            @Value("${app.records.history.enabled:true}") boolean enabled,
+            @Value("${app.records.history.snapshot-interval:10}") int snapshotInterval) {
+        this.revisionRepository = revisionRepository;
+        this.enabled = enabled;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * Append a revision for a change from 'previous' (null for a new record) to 'current'
+     */
+    public void recordChange(Long recordId, Long doctorId, Texts previous, Texts current, Long editedBy) {
+        if (!enabled || current.equals(previous)) {
+            return;
+        }
+        // A new record has no revisions yet - no need to look
+        int latest = previous == null ? 0 : catchUp(recordId, doctorId, previous, false);
+        int revision = latest + 1;
+        boolean snapshot = previous == null || (revision - 1) % snapshotInterval == 0;
+        save(recordId, doctorId, revision, snapshot, snapshot ? encodeSnapshot(current) : encodeDelta(previous, current),
+                editedBy);
+    }
+
+    /**
+     * Keep a record's final text and doctor in its history before the row is deleted
+     */
+    public void recordDeletion(Long recordId, Long doctorId, Texts last) {
+        if (enabled) {
+            catchUp(recordId, doctorId, last, true);
+        }
+    }
+
+    // Latest revision once the history ends at 'texts' (and 'doctorId' if required), writing a snapshot if it did not
+    private int catchUp(Long recordId, Long doctorId, Texts texts, boolean sameDoctor) {
+        Integer latest = revisionRepository.findLatestRevision(recordId).orElse(null);
+        if (latest != null) {
+            Rebuilt stored = rebuildOrNull(recordId, latest);
+            if (stored != null && stored.texts().equals(texts)
+                    && (!sameDoctor || Objects.equals(stored.last().getDoctorId(), doctorId))) {
+                return latest;
+            }
+        }
+        // Record written before history existed, or changed without it
+        int revision = latest == null ? 1 : latest + 1;
+        save(recordId, doctorId, revision, true, encodeSnapshot(texts), null);
+        return revision;
+    }
+
+    public List<MedicalRecordRevisionDTO> listRevisions(Long recordId) {
+        return revisionRepository.findRevisionInfo(recordId).stream()
+                .map(row -> MedicalRecordRevisionDTO.builder()
+                        .medicalRecordId(recordId)
+                        .revision((Integer) row[0])
+                        .editedBy((Long) row[2])
+                        .savedAt((LocalDateTime) row[3])
+                        .build())
+                .toList();
+    }
+
+    public MedicalRecordRevisionDTO getRevision(Long recordId, int revision) {
+        Rebuilt rebuilt = rebuild(recordId, revision);
+        if (rebuilt == null) {
+            throw new ResourceNotFoundException("Revision " + revision + " not found for medical record " + recordId);
+        }
+        return MedicalRecordRevisionDTO.builder()
+                .medicalRecordId(recordId)
+                .revision(revision)
+                .editedBy(rebuilt.last().getEditedBy())
+                .savedAt(rebuilt.last().getUpdatedOn())
+                .diagnosis(rebuilt.texts().diagnosis())
+                .prescription(rebuilt.texts().prescription())
+                .notes(rebuilt.texts().notes())
+                .build();
+    }
+
+    // Newest snapshot at or before the revision plus the deltas after it; null if the revision does not exist
+    private Rebuilt rebuild(Long recordId, int revision) {
+        Integer snapshotRevision = revisionRepository.findSnapshotRevision(recordId, revision).orElse(null);
+        if (snapshotRevision == null) {
+            return null;
+        }
+        List<MedicalRecordRevision> chain = revisionRepository
+                .findByMedicalRecordIdAndRevisionBetweenOrderByRevision(recordId, snapshotRevision, revision);
+        MedicalRecordRevision last = chain.get(chain.size() - 1);
+        if (last.getRevision() != revision) {
+            return null;
+        }
+        Texts texts = null;
+        for (MedicalRecordRevision step : chain) {
+            texts = step.getSnapshot() ? decodeSnapshot(step.getPayload()) : applyDelta(texts, step.getPayload());
+        }
+        return new Rebuilt(texts, last);
+    }
+
+    // A chain that no longer rebuilds (written before deltas were checked) is treated like a missing one
+    private Rebuilt rebuildOrNull(Long recordId, int revision) {
+        try {
+            return rebuild(recordId, revision);
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+    }
+
+    private void save(Long recordId, Long doctorId, int revision, boolean snapshot, byte[] payload, Long editedBy) {
+        revisionRepository.save(MedicalRecordRevision.builder()
+                .medicalRecordId(recordId)
+                .doctorId(doctorId)
+                .revision(revision)
+                .snapshot(snapshot)
+                .payload(payload)
+                .editedBy(editedBy)
+                .build());
+    }
+
+    static byte[] encodeSnapshot(Texts texts) {
+        return write(out -> {
+            for (String field : texts.fields()) {
+                writeString(out, field);
+            }
+        });
+    }
+
+    static Texts decodeSnapshot(byte[] payload) {
+        return read(payload, in -> new Texts(readString(in), readString(in), readString(in)));
+    }
+
+    static byte[] encodeDelta(Texts previous, Texts current) {
+        String[] before = previous.fields();
+        String[] after = current.fields();
+        return write(out -> {
+            for (int i = 0; i < after.length; i++) {
+                if (Objects.equals(before[i], after[i])) {
+                    out.writeByte(UNCHANGED);
+                } else if (after[i] == null) {
+                    out.writeByte(CLEARED);
+                } else if (before[i] == null) {
+                    out.writeByte(REPLACED);
+                    writeString(out, after[i]);
+                } else {
+                    writeEdit(out, before[i], after[i]);
+                }
+            }
+        });
+    }
+
+    static Texts applyDelta(Texts base, byte[] payload) {
+        String[] fields = base.fields();
+        return read(payload, in -> {
+            for (int i = 0; i < fields.length; i++) {
+                byte op = in.readByte();
+                if (op == CLEARED) {
+                    fields[i] = null;
+                } else if (op == REPLACED) {
+                    fields[i] = readString(in);
+                } else if (op == EDITED) {
+                    int prefix = in.readInt();
+                    int suffix = in.readInt();
+                    String middle = readString(in);
+                    if (fields[i] == null || prefix < 0 || suffix < 0 || prefix + suffix > fields[i].length()) {
+                        throw new IOException("Delta does not fit the previous revision");
+                    }
+                    fields[i] = fields[i].substring(0, prefix) + middle + fields[i].substring(fields[i].length() - suffix);
+                }
+            }
+            return new Texts(fields[0], fields[1], fields[2]);
+        });
+    }
+
+    // Keep the common prefix/suffix, store only the replaced middle (never splitting a surrogate pair)
+    private static void writeEdit(DataOutputStream out, String before, String after) throws IOException {
+        int max = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(after.charAt(prefix - 1))) {
+            prefix--;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(after.charAt(after.length() - suffix))) {
+            suffix--;
+        }
+        out.writeByte(EDITED);
+        out.writeInt(prefix);
+        out.writeInt(suffix);
+        writeString(out, after.substring(prefix, after.length() - suffix));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T read(byte[] payload, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt medical record revision", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.healthcare.service;
+
+import java.io.InputStream;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.healthcare.dto.ImportJobDTO;
+
+public interface MedicalRecordImportService {
+
+    // Queue an import of legacy medical records from a CSV or NDJSON file
+    ImportJobDTO startImport(MultipartFile file, String format);
+
+    // Same from a raw request body, streamed to disk (for files larger than the multipart limit)
+    ImportJobDTO startImport(InputStream body, String fileName, String format);
+
+    // Progress of an import job
+    ImportJobDTO getJob(String jobId);
+}
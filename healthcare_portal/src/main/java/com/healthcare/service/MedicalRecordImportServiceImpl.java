@@ -0,0 +1,545 @@
+package com.healthcare.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.config.AttachmentJsonMigration;
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.dto.ImportJobDTO;
+import com.healthcare.dto.MedicalRecordImportRow;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.security.FieldEncryptor;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Bulk import of legacy medical records (CSV with a header row, or NDJSON - one JSON object per line).
+ * createMedicalRecord runs 5+ queries per record and inserts one row at a time; here every reference is
+ * checked against id sets loaded once up front (patients, doctors, appointment -> patient/doctor, appointments
+ * that already have a record) and valid rows are written with batched plain-JDBC INSERTs, one transaction
+ * per batch (rewriteBatchedStatements=true makes each batch a single multi-row statement on MySQL).
+ * Appointment statuses are left alone - legacy appointments are historical - but has_medical_record is set
+ * in the same transaction as the inserts. Imported rows get updated_on = NOW(),
+ * so the search index catch-up picks them up. Jobs run one at a time on a background thread; finished jobs
+ * are kept for app.import.job-retention-minutes.
+ */
+@Service
+public class MedicalRecordImportServiceImpl implements MedicalRecordImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO medical_records "
+            + "(patient_id, doctor_id, appointment_id, record_date, diagnosis, diagnosis_preview, prescription, notes, attachments, "
+            + "creation_date, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_DATE, NOW())";
+    private static final String FLAG_SQL = "UPDATE appointments SET has_medical_record = 1 WHERE id = ?";
+    private static final int MAX_TEXT_BYTES = 48_000; // encrypted and base64 encoded this still fits a TEXT column
+    private static final int MAX_ERRORS = 100;
+
+    private interface RowSource {
+        // Next row, null at the end; throws InvalidInputException for a row that cannot be parsed
+        MedicalRecordImportRow next() throws IOException;
+
+        // Line the row last returned (or rejected) by next() starts on
+        long line();
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String fileName;
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "QUEUED";
+        volatile String failure;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile long startedNanos;
+        volatile long finishedNanos;
+
+        Job(String fileName) {
+            this.fileName = fileName;
+        }
+
+        void reject(long line, String reason) {
+            rejected.incrementAndGet();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+    }
+
+    private record Appointment(long patientId, long doctorId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final FieldEncryptor encryptor;
+    private final AttachmentJsonMigration attachmentJsonMigration;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "medical-record-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-queued-jobs:5}")
+    private int maxQueuedJobs;
+
+    @Value("${app.import.max-file-size-bytes:2147483648}")
+    private long maxFileSizeBytes;
+
+    @Value("${app.import.job-retention-minutes:1440}")
+    private long jobRetentionMinutes;
+
+    @Autowired
+    public MedicalRecordImportServiceImpl(DataSource dataSource, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper, FieldEncryptor encryptor,
+            AttachmentJsonMigration attachmentJsonMigration) {
+        this(jdbcTemplate, streaming(dataSource), transactionTemplate, objectMapper, encryptor, attachmentJsonMigration);
+    }
+
+    MedicalRecordImportServiceImpl(JdbcTemplate jdbcTemplate, JdbcTemplate streamingJdbcTemplate,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper, FieldEncryptor encryptor,
+            AttachmentJsonMigration attachmentJsonMigration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.encryptor = encryptor;
+        this.attachmentJsonMigration = attachmentJsonMigration;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // MySQL streams a result set row by row only with fetch size Integer.MIN_VALUE
+    private static JdbcTemplate streaming(DataSource dataSource) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(Integer.MIN_VALUE);
+        return template;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ImportJobDTO startImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidInputException("Import file cannot be empty");
+        }
+        String resolvedFormat = resolveFormat(file.getOriginalFilename(), format);
+        checkQueue();
+
+        Path upload = null;
+        try {
+            // The multipart file is already on disk - move it out of the request's reach instead of copying it
+            upload = Files.createTempFile("medical-record-import-", "." + resolvedFormat);
+            file.transferTo(upload);
+        } catch (IOException e) {
+            deleteQuietly(upload);
+            throw new InvalidInputException("Could not read the uploaded file: " + e.getMessage());
+        }
+        return enqueue(file.getOriginalFilename(), upload, resolvedFormat);
+    }
+
+    @Override
+    public ImportJobDTO startImport(InputStream body, String fileName, String format) {
+        String resolvedFormat = resolveFormat(fileName, format);
+        checkQueue();
+
+        Path upload = null;
+        long size = 0;
+        try {
+            upload = Files.createTempFile("medical-record-import-", "." + resolvedFormat);
+            try (InputStream in = body; OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxFileSizeBytes) {
+                        throw new InvalidInputException("Import file is larger than " + maxFileSizeBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            deleteQuietly(upload);
+            throw new InvalidInputException("Could not read the uploaded file: " + e.getMessage());
+        } catch (InvalidInputException e) {
+            deleteQuietly(upload);
+            throw e;
+        }
+        if (size == 0) {
+            deleteQuietly(upload);
+            throw new InvalidInputException("Import file cannot be empty");
+        }
+        return enqueue(fileName, upload, resolvedFormat);
+    }
+
+    private void checkQueue() {
+        evictFinishedJobs();
+        long waiting = jobs.values().stream().filter(job -> "QUEUED".equals(job.status)).count();
+        if (waiting >= maxQueuedJobs) {
+            throw new ServiceUnavailableException("Too many imports queued, please try again later");
+        }
+    }
+
+    private ImportJobDTO enqueue(String fileName, Path upload, String format) {
+        Job job = new Job(fileName);
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job, upload, format));
+        return toDTO(job);
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete import file " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ImportJobDTO getJob(String jobId) {
+        evictFinishedJobs();
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found: " + jobId);
+        }
+        return toDTO(job);
+    }
+
+    private void run(Job job, Path upload, String format) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        job.startedNanos = System.nanoTime();
+        try (Reader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            Set<Long> patients = loadIds("SELECT id FROM users WHERE role = 'ROLE_PATIENT'");
+            Set<Long> doctors = loadIds("SELECT id FROM users WHERE role = 'ROLE_DOCTOR'");
+            Set<Long> recordedAppointments = loadIds("SELECT appointment_id FROM medical_records");
+            Map<Long, Appointment> appointments = new HashMap<>();
+            streamingJdbcTemplate.query("SELECT id, patient_id, doctor_id FROM appointments",
+                    rs -> {
+                        appointments.put(rs.getLong(1), new Appointment(rs.getLong(2), rs.getLong(3)));
+                    });
+
+            RowSource source = "csv".equals(format) ? csvSource(reader) : ndjsonSource(new BufferedReader(reader));
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            List<Long> batchLines = new ArrayList<>(batchSize);
+            while (true) {
+                MedicalRecordImportRow row;
+                try {
+                    row = source.next();
+                } catch (InvalidInputException e) {
+                    job.rowsRead.incrementAndGet();
+                    job.reject(source.line(), e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                long line = source.line();
+                job.rowsRead.incrementAndGet();
+                String problem = validate(row, patients, doctors, appointments, recordedAppointments);
+                if (problem != null) {
+                    job.reject(line, problem);
+                    continue;
+                }
+                recordedAppointments.add(row.getAppointmentId());
+                batch.add(toParameters(row));
+                batchLines.add(line);
+                if (batch.size() == batchSize) {
+                    flush(job, batch, batchLines);
+                }
+            }
+            flush(job, batch, batchLines);
+            // Imported attachments arrive as JSON - move them into the attachments table
+            attachmentJsonMigration.migratePending();
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.failure = e.getMessage();
+            System.err.println("Medical record import " + job.id + " failed: " + e.getMessage());
+        } finally {
+            job.finishedNanos = System.nanoTime();
+            job.finishedAt = LocalDateTime.now();
+            deleteQuietly(upload);
+            System.out.println("Medical record import " + job.id + " " + job.status + ": " + job.imported.get()
+                    + " imported, " + job.rejected.get() + " rejected, " + recordsPerSecond(job) + " records/s");
+        }
+    }
+
+    // One transaction per batch; if the batch fails (e.g. a record created meanwhile for the same appointment)
+    // its rows are retried one by one so only the offending rows are rejected
+    private void flush(Job job, List<Object[]> batch, List<Long> batchLines) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                jdbcTemplate.batchUpdate(FLAG_SQL, batch.stream().map(row -> new Object[] { row[2] }).toList());
+            });
+            job.imported.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                Object[] row = batch.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, row);
+                        jdbcTemplate.update(FLAG_SQL, row[2]);
+                    });
+                    job.imported.incrementAndGet();
+                } catch (DataAccessException rowFailure) {
+                    job.reject(batchLines.get(i), rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        long done = job.imported.get() + job.rejected.get();
+        if (done / 100_000 != (done - batch.size()) / 100_000) {
+            System.out.println("Medical record import " + job.id + ": " + job.imported.get() + " imported, "
+                    + job.rejected.get() + " rejected, " + recordsPerSecond(job) + " records/s");
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private String validate(MedicalRecordImportRow row, Set<Long> patients, Set<Long> doctors,
+            Map<Long, Appointment> appointments, Set<Long> recordedAppointments) {
+        if (row.getPatientId() == null || row.getDoctorId() == null || row.getAppointmentId() == null) {
+            return "patientId, doctorId and appointmentId are required";
+        }
+        if (row.getRecordDate() == null) {
+            return "recordDate is required";
+        }
+        if (row.getRecordDate().isAfter(LocalDate.now())) {
+            return "recordDate is in the future";
+        }
+        if (!patients.contains(row.getPatientId())) {
+            return "unknown patient " + row.getPatientId();
+        }
+        if (!doctors.contains(row.getDoctorId())) {
+            return "unknown doctor " + row.getDoctorId();
+        }
+        Appointment appointment = appointments.get(row.getAppointmentId());
+        if (appointment == null) {
+            return "unknown appointment " + row.getAppointmentId();
+        }
+        if (appointment.patientId() != row.getPatientId() || appointment.doctorId() != row.getDoctorId()) {
+            return "appointment " + row.getAppointmentId() + " does not match the patient and doctor";
+        }
+        if (recordedAppointments.contains(row.getAppointmentId())) {
+            return "appointment " + row.getAppointmentId() + " already has a medical record";
+        }
+        for (String text : new String[] { row.getDiagnosis(), row.getPrescription(), row.getNotes() }) {
+            if (text != null && text.length() * 3 > MAX_TEXT_BYTES && text.getBytes(StandardCharsets.UTF_8).length > MAX_TEXT_BYTES) {
+                return "text longer than " + MAX_TEXT_BYTES + " bytes";
+            }
+        }
+        return null;
+    }
+
+    // Plain JDBC bypasses EncryptedTextConverter - encrypt the texts the same way here
+    private Object[] toParameters(MedicalRecordImportRow row) {
+        JsonNode attachments = row.getAttachments();
+        return new Object[] {
+                row.getPatientId(),
+                row.getDoctorId(),
+                row.getAppointmentId(),
+                Date.valueOf(row.getRecordDate()),
+                encryptor.encrypt(row.getDiagnosis()),
+                encryptor.encrypt(MedicalRecord.preview(row.getDiagnosis())),
+                encryptor.encrypt(row.getPrescription()),
+                encryptor.encrypt(row.getNotes()),
+                attachments == null || attachments.isNull() ? null : attachments.toString()
+        };
+    }
+
+    private Set<Long> loadIds(String sql) {
+        Set<Long> ids = new HashSet<>();
+        streamingJdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getLong(1));
+        });
+        return ids;
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        return new RowSource() {
+            private long read;
+            private long line;
+
+            @Override
+            public MedicalRecordImportRow next() throws IOException {
+                String text;
+                do {
+                    text = reader.readLine();
+                    if (text == null) {
+                        return null;
+                    }
+                    read++;
+                } while (text.isBlank());
+                line = read;
+                try {
+                    return objectMapper.readValue(text, MedicalRecordImportRow.class);
+                } catch (JsonProcessingException e) {
+                    throw new InvalidInputException("invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public long line() {
+                return line;
+            }
+        };
+    }
+
+    private RowSource csvSource(Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new InvalidInputException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Accept patientId, patient_id, PATIENT_ID ... (and a UTF-8 BOM on the first column)
+            columns.put(header.get(i).replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("patientid", "doctorid", "appointmentid", "recorddate")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidInputException("CSV header is missing column " + required);
+            }
+        }
+        return new RowSource() {
+            private long line;
+
+            @Override
+            public MedicalRecordImportRow next() throws IOException {
+                List<String> row;
+                do {
+                    line = csv.line();
+                    row = csv.next();
+                    if (row == null) {
+                        return null;
+                    }
+                } while (row.size() == 1 && row.get(0).isBlank());
+                try {
+                    String attachments = column(row, columns, "attachments");
+                    return MedicalRecordImportRow.builder()
+                            .patientId(toLong(column(row, columns, "patientid")))
+                            .doctorId(toLong(column(row, columns, "doctorid")))
+                            .appointmentId(toLong(column(row, columns, "appointmentid")))
+                            .recordDate(StringUtils.hasText(column(row, columns, "recorddate"))
+                                    ? LocalDate.parse(column(row, columns, "recorddate").trim()) : null)
+                            .diagnosis(column(row, columns, "diagnosis"))
+                            .prescription(column(row, columns, "prescription"))
+                            .notes(column(row, columns, "notes"))
+                            .attachments(StringUtils.hasText(attachments) ? objectMapper.readTree(attachments) : null)
+                            .build();
+                } catch (RuntimeException | IOException e) {
+                    throw new InvalidInputException("invalid value: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public long line() {
+                return line;
+            }
+        };
+    }
+
+    private static String column(List<String> row, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= row.size()) {
+            return null;
+        }
+        String value = row.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long toLong(String value) {
+        return StringUtils.hasText(value) ? Long.valueOf(value.trim()) : null;
+    }
+
+    private static String resolveFormat(String fileName, String format) {
+        String resolved = StringUtils.hasText(format) ? format : StringUtils.getFilenameExtension(fileName);
+        resolved = resolved == null ? "" : resolved.toLowerCase(Locale.ROOT);
+        if ("jsonl".equals(resolved)) {
+            resolved = "ndjson";
+        }
+        if (!"csv".equals(resolved) && !"ndjson".equals(resolved)) {
+            throw new InvalidInputException("Import format must be csv or ndjson");
+        }
+        return resolved;
+    }
+
+    private static long recordsPerSecond(Job job) {
+        long end = job.finishedNanos != 0 ? job.finishedNanos : System.nanoTime();
+        long elapsedNanos = Math.max(1, end - job.startedNanos);
+        return job.startedNanos == 0 ? 0 : job.imported.get() * 1_000_000_000L / elapsedNanos;
+    }
+
+    private static ImportJobDTO toDTO(Job job) {
+        return ImportJobDTO.builder()
+                .jobId(job.id)
+                .status(job.status)
+                .fileName(job.fileName)
+                .rowsRead(job.rowsRead.get())
+                .imported(job.imported.get())
+                .rejected(job.rejected.get())
+                .recordsPerSecond(recordsPerSecond(job))
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .failure(job.failure)
+                .errors(List.copyOf(job.errors))
+                .build();
+    }
+}
@@ -0,0 +1,287 @@
+package com.healthcare.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.entity.MedicalRecordTombstone;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.MedicalRecordTombstoneRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Full-text search over diagnosis, prescription and notes (instead of LIKE '%x%' scans of the TEXT columns).
+ * The index lives in memory on each node: it is built from the database in keyset batches after startup,
+ * MedicalRecordServiceImpl applies its own changes after the transaction commits (a rolled-back change never
+ * reaches the index), and records changed on other nodes are picked up by the catch-up poll on updated_on;
+ * deletes leave a tombstone row that the poll reads the same way. A failed build is retried until it completes.
+ * Hits are always re-read from the database, so a record deleted elsewhere drops out of the page even before that.
+ */
+@Component
+public class MedicalRecordSearchIndex {
+
+    private record Document(long recordId, long doctorId, long patientId, Map<String, Integer> terms) {
+    }
+
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final MedicalRecordTombstoneRepository tombstoneRepository;
+    private final InvertedIndex index = new InvertedIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer searchTimer;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int diagnosisBoost;
+    private final long buildRetryMs;
+    private final long tombstoneRetentionHours;
+
+    private volatile boolean ready;
+    // Records changed by live updates while the initial build runs - the build must not overwrite them with older rows
+    private Set<Long> changedDuringBuild = new HashSet<>();
+    private volatile LocalDateTime lastCatchUp = LocalDateTime.now();
+
+    public MedicalRecordSearchIndex(MedicalRecordRepository medicalRecordRepository,
+            MedicalRecordTombstoneRepository tombstoneRepository, MeterRegistry meterRegistry,
+            @Value("${app.search.enabled:true}") boolean enabled,
+            @Value("${app.search.batch-size:1000}") int batchSize,
+            @Value("${app.search.diagnosis-boost:2}") int diagnosisBoost,
+            @Value("${app.search.build-retry-ms:30000}") long buildRetryMs,
+            @Value("${app.search.tombstone-retention-hours:24}") long tombstoneRetentionHours) {
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.diagnosisBoost = diagnosisBoost;
+        this.buildRetryMs = buildRetryMs;
+        this.tombstoneRetentionHours = tombstoneRetentionHours;
+        this.searchTimer = Timer.builder("medical_records.search").register(meterRegistry);
+        Gauge.builder("medical_records.search.documents", this, search -> search.readLocked(search.index::size))
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::buildUntilReady, "record-search-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void buildUntilReady() {
+        // Changes made on other nodes from here on are picked up by the first catch-up after the build
+        lastCatchUp = LocalDateTime.now();
+        while (!build()) {
+            try {
+                Thread.sleep(buildRetryMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * One pass over all records; false if it failed (search keeps answering 503 until a pass completes)
+     */
+    boolean build() {
+        long started = System.currentTimeMillis();
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Object[]> rows = medicalRecordRepository.findSearchRowsAfter(afterId, PageRequest.of(0, batchSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<Document> documents = rows.stream().map(this::toDocument).toList();
+                lock.writeLock().lock();
+                try {
+                    for (Document document : documents) {
+                        if (!changedDuringBuild.contains(document.recordId())) {
+                            apply(document);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                afterId = documents.get(documents.size() - 1).recordId();
+            }
+            lock.writeLock().lock();
+            try {
+                changedDuringBuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("Medical record search index built: " + readLocked(index::size) + " records, "
+                    + readLocked(index::terms) + " terms in " + (System.currentTimeMillis() - started) + " ms");
+            return true;
+        } catch (Exception e) {
+            System.err.println("Building the medical record search index failed, retrying in " + buildRetryMs + " ms: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    // Records written or deleted by other nodes (this node's own changes are already in the index)
+    @Scheduled(fixedDelayString = "${app.search.catch-up-interval-ms:60000}")
+    public void catchUp() {
+        if (!enabled || !ready) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            // updated_on has second precision - overlap the previous poll a little
+            LocalDateTime since = lastCatchUp.minusSeconds(5);
+            List<Document> documents = medicalRecordRepository.findSearchRowsUpdatedSince(since).stream()
+                    .map(this::toDocument)
+                    .toList();
+            // Read after the updates: a record deleted in between is in both lists and ends up removed
+            List<Long> deletedIds = tombstoneRepository.findRecordIdsDeletedSince(since);
+            if (!documents.isEmpty() || !deletedIds.isEmpty()) {
+                lock.writeLock().lock();
+                try {
+                    documents.forEach(this::apply);
+                    deletedIds.forEach(index::remove);
+                    if (index.needsCompaction()) {
+                        index.compact();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            lastCatchUp = now;
+        } catch (Exception e) {
+            System.err.println("Medical record search catch-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * (Re)index a created or updated record once the current transaction commits
+     */
+    public void indexAfterCommit(MedicalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        Document document = toDocument(record.getId(), record.getDoctor().getId(), record.getPatient().getId(),
+                record.getDiagnosis(), record.getPrescription(), record.getNotes());
+        afterCommit(() -> change(document.recordId(), () -> apply(document)));
+    }
+
+    /**
+     * Drop a deleted record from the index once the current transaction commits; the tombstone is
+     * written in the transaction so the other nodes drop it too
+     */
+    public void removeAfterCommit(Long recordId) {
+        tombstoneRepository.save(MedicalRecordTombstone.builder().medicalRecordId(recordId).build());
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> change(recordId, () -> index.remove(recordId)));
+    }
+
+    // Tombstones only need to outlive the longest catch-up gap
+    @Scheduled(fixedDelayString = "${app.search.tombstone-purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        try {
+            tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusHours(tombstoneRetentionHours));
+        } catch (Exception e) {
+            System.err.println("Purging medical record tombstones failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ranked IDs of the records containing every word of the query; null doctorId/patientId means any
+     */
+    public InvertedIndex.Result search(String query, Long doctorId, Long patientId, int offset, int limit) {
+        if (!enabled || !ready) {
+            throw new ServiceUnavailableException("Medical record search is not available yet, please try again shortly");
+        }
+        List<String> terms = InvertedIndex.tokenize(query);
+        LongPredicate doctorFilter = doctorId == null ? id -> true : id -> id == doctorId;
+        LongPredicate patientFilter = patientId == null ? id -> true : id -> id == patientId;
+        long started = System.nanoTime();
+        try {
+            return readLocked(() -> index.search(terms, doctorFilter, patientFilter, offset, limit));
+        } finally {
+            searchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void change(Long recordId, Runnable update) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(recordId);
+            }
+            update.run();
+            if (index.needsCompaction()) {
+                index.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Document document) {
+        index.put(document.recordId(), document.doctorId(), document.patientId(), document.terms());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private <T> T readLocked(Supplier<T> read) {
+        lock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Document toDocument(Object[] row) {
+        return toDocument((Long) row[0], (Long) row[1], (Long) row[2], (String) row[3], (String) row[4], (String) row[5]);
+    }
+
+    // Diagnosis terms count diagnosisBoost times, so a match there ranks above one in the notes
+    private Document toDocument(long recordId, long doctorId, long patientId, String diagnosis, String prescription,
+            String notes) {
+        Map<String, Integer> terms = new HashMap<>();
+        InvertedIndex.tokenize(diagnosis).forEach(term -> terms.merge(term, diagnosisBoost, Integer::sum));
+        InvertedIndex.tokenize(prescription).forEach(term -> terms.merge(term, 1, Integer::sum));
+        InvertedIndex.tokenize(notes).forEach(term -> terms.merge(term, 1, Integer::sum));
+        return new Document(recordId, doctorId, patientId, terms);
+    }
+}
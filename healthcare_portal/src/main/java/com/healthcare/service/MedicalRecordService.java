@@ -5,6 +5,9 @@ import java.util.List;
 
 import com.healthcare.dto.MedicalRecordRequestDTO;
 import com.healthcare.dto.MedicalRecordResponseDTO;
+import com.healthcare.dto.MedicalRecordRevisionDTO;
+import com.healthcare.dto.MedicalRecordSearchResultDTO;
+import com.healthcare.dto.MedicalRecordSummaryDTO;
 import com.healthcare.dto.AppointmentResponseDTO;
 
 public interface MedicalRecordService {
@@ -36,15 +39,28 @@ public interface MedicalRecordService {
     // Get my medical records (for current user)
     List<MedicalRecordResponseDTO> getMyMedicalRecords();
     
+    // Summaries of my medical records (list screens - full text via getMedicalRecordById)
+    List<MedicalRecordSummaryDTO> getMyMedicalRecordSummaries();
+    
+    // Summaries of a patient's medical records
+    List<MedicalRecordSummaryDTO> getMedicalRecordSummariesByPatient(Long patientId);
+    
     // Get my patient medical records (for doctors)
     List<MedicalRecordResponseDTO> getMyPatientMedicalRecords();
     
     // Get available appointments for creating medical records
     List<AppointmentResponseDTO> getAvailableAppointmentsForMedicalRecord(Long patientId);
     
+    // Full-text search over diagnosis, prescription and notes (doctors see only their own records)
+    MedicalRecordSearchResultDTO searchMedicalRecords(String query, Long patientId, int page, int size);
+    
+    // Revisions of a medical record, newest first (without the text)
+    List<MedicalRecordRevisionDTO> getMedicalRecordHistory(Long id);
+    
+    // Diagnosis, prescription and notes as they were at a revision
+    MedicalRecordRevisionDTO getMedicalRecordRevision(Long id, int revision);
+    
     // Delete medical record
     void deleteMedicalRecord(Long id);
-    
-    // Check if medical record belongs to current user (for security annotations)
-    boolean isOwnMedicalRecord(Long medicalRecordId);
+
 } 
\ No newline at end of file
@@ -3,24 +3,36 @@ package com.healthcare.service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 import com.healthcare.custom_exceptions.ResourceNotFoundException;
 import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.config.AttachmentJsonMigration;
+import com.healthcare.dto.AttachmentDTO;
 import com.healthcare.dto.MedicalRecordRequestDTO;
 import com.healthcare.dto.MedicalRecordResponseDTO;
+import com.healthcare.dto.MedicalRecordRevisionDTO;
+import com.healthcare.dto.MedicalRecordSearchResultDTO;
+import com.healthcare.dto.MedicalRecordSummaryDTO;
 import com.healthcare.entity.MedicalRecord;
 import com.healthcare.entity.Appointment;
 import com.healthcare.entity.User;
 import com.healthcare.repository.MedicalRecordRepository;
 import com.healthcare.repository.AppointmentRepository;
 import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
 import com.healthcare.dto.AppointmentResponseDTO;
 
 import lombok.RequiredArgsConstructor;
@@ -32,9 +44,37 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
     private final MedicalRecordRepository medicalRecordRepository;
     private final UserRepository userRepository;
     private final AppointmentRepository appointmentRepository;
+    private final CurrentUser currentUser;
+    private final MedicalRecordSearchIndex searchIndex;
+    private final MedicalRecordHistory history;
+    private final AttachmentService attachmentService;
+    private final AttachmentJsonMigration attachmentJsonMigration;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.search.max-page-size:100}")
+    private int maxSearchPageSize;
+    
+    @Value("${app.search.max-results:1000}")
+    private int maxSearchResults;
+    
+    // Convert entities to DTOs, with the attachments of all of them in one query
+    private List<MedicalRecordResponseDTO> toDTOs(List<MedicalRecord> medicalRecords) {
+        if (medicalRecords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<AttachmentDTO>> attachments = attachmentService.getAttachmentsByRecord(
+                medicalRecords.stream().map(MedicalRecord::getId).toList());
+        return medicalRecords.stream()
+                .map(medicalRecord -> toDTO(medicalRecord, attachments.getOrDefault(medicalRecord.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
     
-    // Convert entity to DTO
     private MedicalRecordResponseDTO toDTO(MedicalRecord medicalRecord) {
+        return toDTOs(List.of(medicalRecord)).get(0);
+    }
+    
+    // Convert entity to DTO
+    private MedicalRecordResponseDTO toDTO(MedicalRecord medicalRecord, List<AttachmentDTO> attachments) {
         return MedicalRecordResponseDTO.builder()
                 .id(medicalRecord.getId())
                 .patientId(medicalRecord.getPatient().getId())
@@ -51,25 +91,26 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
                 .diagnosis(medicalRecord.getDiagnosis())
                 .prescription(medicalRecord.getPrescription())
                 .notes(medicalRecord.getNotes())
-                .attachments(medicalRecord.getAttachments())
+                // A record whose legacy JSON is not migrated yet shows it as it is until AttachmentJsonMigration gets to it
+                .attachments(attachments.isEmpty() && medicalRecord.getAttachments() != null
+                        ? medicalRecord.getAttachments() : attachmentService.toJson(attachments))
                 .departmentName(medicalRecord.getDoctor().getDepartment() != null ? medicalRecord.getDoctor().getDepartment().getName() : null)
                 .doctorSpecialization(medicalRecord.getDoctor().getSpecialization())
                 .build();
     }
     
     @Override
-    @Transactional
     public MedicalRecordResponseDTO createMedicalRecord(MedicalRecordRequestDTO dto) {
-        // Validate patient exists
-        User patient = userRepository.findById(dto.getPatientId())
-                .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + dto.getPatientId()));
-        
-        // Validate doctor exists
-        User doctor = userRepository.findById(dto.getDoctorId())
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + dto.getDoctorId()));
-        
-        // Validate appointment exists and belongs to the doctor and patient
-        Appointment appointment = appointmentRepository.findById(dto.getAppointmentId())
+        // Inline file data is decoded and written to attachment storage before the transaction starts, so no
+        // connection is held meanwhile; the record only gets rows referencing it
+        List<AttachmentDTO> attachments = attachmentService.storeJsonEntries(dto.getAttachments()); // Can be empty
+        return transactionTemplate.execute(status -> create(dto, attachments));
+    }
+    
+    private MedicalRecordResponseDTO create(MedicalRecordRequestDTO dto, List<AttachmentDTO> attachments) {
+        // Appointment with its patient, doctor and "has record" flag in one query; the appointment's
+        // patient/doctor are foreign keys, so matching them also proves the patient and doctor exist
+        Appointment appointment = appointmentRepository.findForMedicalRecord(dto.getAppointmentId())
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + dto.getAppointmentId()));
         
         // Check if appointment belongs to the specified doctor and patient
@@ -97,47 +138,65 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         }
         
         // Check if medical record already exists for this appointment
-        if (medicalRecordRepository.existsByAppointmentId(dto.getAppointmentId())) {
+        if (appointment.getHasMedicalRecord()) {
             throw new InvalidInputException("Medical record already exists for this appointment");
         }
         
+        // Automatically complete the appointment - only if it is still CONFIRMED; this row lock also
+        // serializes concurrent creates for the same appointment (the second one finds it COMPLETED)
+        if (appointmentRepository.completeWithMedicalRecord(appointment.getId()) == 0) {
+            throw new InvalidInputException("Medical record can only be created for a CONFIRMED appointment without one");
+        }
+        appointment.setStatus("COMPLETED"); // detached by the update, only used for the response
+        appointment.setHasMedicalRecord(true);
+        
         // Create medical record
         MedicalRecord medicalRecord = MedicalRecord.builder()
-                .patient(patient)
-                .doctor(doctor)
+                .patient(appointment.getPatient())
+                .doctor(appointment.getDoctor())
                 .appointment(appointment)
                 .recordDate(dto.getRecordDate())
                 .diagnosis(dto.getDiagnosis())
                 .prescription(dto.getPrescription())
                 .notes(dto.getNotes())
-                .attachments(dto.getAttachments()) // Can be null
                 .build();
         
-        MedicalRecord savedMedicalRecord = medicalRecordRepository.save(medicalRecord);
-        
-        // Automatically complete the appointment
-        appointment.setStatus("COMPLETED");
-        appointmentRepository.save(appointment);
+        MedicalRecord savedMedicalRecord;
+        try {
+            savedMedicalRecord = medicalRecordRepository.save(medicalRecord);
+        } catch (DataIntegrityViolationException e) {
+            // uk_medical_records_appointment - a record was written for this appointment by another path
+            throw new InvalidInputException("Medical record already exists for this appointment");
+        }
+        attachmentService.attachAll(savedMedicalRecord, attachments);
+        history.recordChange(savedMedicalRecord.getId(), savedMedicalRecord.getDoctor().getId(), null,
+                MedicalRecordHistory.Texts.of(savedMedicalRecord), currentUser.getId());
+        searchIndex.indexAfterCommit(savedMedicalRecord);
         
-        return toDTO(savedMedicalRecord);
+        return attachments.isEmpty() ? toDTO(savedMedicalRecord, List.of()) : toDTO(savedMedicalRecord);
     }
     
     @Override
-    @Transactional
     public MedicalRecordResponseDTO updateMedicalRecord(Long id, MedicalRecordRequestDTO dto) {
-        MedicalRecord medicalRecord = medicalRecordRepository.findById(id)
+        // The request's list is the record's attachments afterwards (the client resends {name, type, size} for
+        // files it keeps); without one they stay as they are. Legacy JSON is moved into rows first so those
+        // entries can be matched, and new files are stored before the transaction starts
+        List<AttachmentDTO> attachments = null;
+        if (StringUtils.hasText(dto.getAttachments())) {
+            attachmentJsonMigration.migrateRecord(id);
+            attachments = attachmentService.storeJsonEntries(dto.getAttachments());
+        }
+        List<AttachmentDTO> requested = attachments;
+        return transactionTemplate.execute(status -> update(id, dto, requested));
+    }
+    
+    private MedicalRecordResponseDTO update(Long id, MedicalRecordRequestDTO dto, List<AttachmentDTO> attachments) {
+        // Row lock: concurrent updates of one record append their revisions one after the other
+        MedicalRecord medicalRecord = medicalRecordRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with ID: " + id));
+        MedicalRecordHistory.Texts previousTexts = MedicalRecordHistory.Texts.of(medicalRecord);
         
-        // Check if current user has permission to update this record
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        // Only allow admin or the doctor who created the record to update it
-        if (!currentUser.getRole().name().equals("ROLE_ADMIN") && 
-            !medicalRecord.getDoctor().getId().equals(currentUser.getId())) {
-            throw new RuntimeException("Access denied: You can only update your own medical records");
-        }
+        // Only admin or the doctor who created the record get here (ResourceAccessManagers.medicalRecordAccess)
         
         // Validate patient exists
         User patient = userRepository.findById(dto.getPatientId())
@@ -162,6 +221,16 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
             throw new InvalidInputException("Record date must match the appointment date");
         }
         
+        // Moving the record to another appointment: that one must not have a record yet, and the flags follow
+        Long previousAppointmentId = medicalRecord.getAppointment().getId();
+        if (!previousAppointmentId.equals(appointment.getId())) {
+            if (appointment.getHasMedicalRecord()) {
+                throw new InvalidInputException("Medical record already exists for this appointment");
+            }
+            appointmentRepository.setHasMedicalRecord(previousAppointmentId, false);
+            appointmentRepository.setHasMedicalRecord(appointment.getId(), true);
+        }
+        
         // Update medical record
         medicalRecord.setPatient(patient);
         medicalRecord.setDoctor(doctor);
@@ -170,38 +239,30 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         medicalRecord.setDiagnosis(dto.getDiagnosis());
         medicalRecord.setPrescription(dto.getPrescription());
         medicalRecord.setNotes(dto.getNotes());
-        medicalRecord.setAttachments(dto.getAttachments());
         
         MedicalRecord updatedMedicalRecord = medicalRecordRepository.save(medicalRecord);
+        if (attachments != null) {
+            attachmentService.replaceAll(updatedMedicalRecord, attachments);
+        }
+        history.recordChange(id, doctor.getId(), previousTexts, MedicalRecordHistory.Texts.of(updatedMedicalRecord),
+                currentUser.getId());
+        searchIndex.indexAfterCommit(updatedMedicalRecord);
         return toDTO(updatedMedicalRecord);
     }
     
     @Override
     @Transactional
     public MedicalRecordResponseDTO getMedicalRecordById(Long id) {
-        MedicalRecord medicalRecord = medicalRecordRepository.findById(id)
+        // Only admin or the doctor who created the record get here (ResourceAccessManagers.medicalRecordAccess)
+        return medicalRecordRepository.findByIdWithDetails(id)
+                .map(this::toDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with ID: " + id));
-        
-        // Check if current user has permission to view this record
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        // Only allow admin or the doctor who created the record to view it
-        if (!currentUser.getRole().name().equals("ROLE_ADMIN") && 
-            !medicalRecord.getDoctor().getId().equals(currentUser.getId())) {
-            throw new RuntimeException("Access denied: You can only view your own medical records");
-        }
-        
-        return toDTO(medicalRecord);
     }
     
     @Override
     @Transactional
     public List<MedicalRecordResponseDTO> getAllMedicalRecords() {
-        return medicalRecordRepository.findAllWithDetails().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(medicalRecordRepository.findAllWithDetails());
     }
     
     @Override
@@ -210,9 +271,7 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         userRepository.findById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + patientId));
         
-        return medicalRecordRepository.findByPatientIdWithDetails(patientId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(medicalRecordRepository.findByPatientIdWithDetails(patientId));
     }
     
     @Override
@@ -221,17 +280,13 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         userRepository.findById(doctorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
         
-        return medicalRecordRepository.findByDoctorIdWithDetails(doctorId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(medicalRecordRepository.findByDoctorIdWithDetails(doctorId));
     }
     
     @Override
     @Transactional
     public List<MedicalRecordResponseDTO> getMedicalRecordsByDate(LocalDate date) {
-        return medicalRecordRepository.findByRecordDateWithDetails(date).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(medicalRecordRepository.findByRecordDateWithDetails(date));
     }
     
     @Override
@@ -243,85 +298,151 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         userRepository.findById(doctorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
         
-        return medicalRecordRepository.findByPatientIdAndDoctorIdWithDetails(patientId, doctorId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(medicalRecordRepository.findByPatientIdAndDoctorIdWithDetails(patientId, doctorId));
     }
     
     @Override
     @Transactional
     public List<MedicalRecordResponseDTO> getMyMedicalRecords() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
-            return medicalRecordRepository.findByPatientIdWithDetails(currentUser.getId()).stream()
-                    .map(this::toDTO)
-                    .collect(Collectors.toList());
-        } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-            return medicalRecordRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
-                    .map(this::toDTO)
-                    .collect(Collectors.toList());
+        if (currentUser.isPatient()) {
+            return toDTOs(medicalRecordRepository.findByPatientIdWithDetails(currentUser.getId()));
+        } else if (currentUser.isDoctor()) {
+            return toDTOs(medicalRecordRepository.findByDoctorIdWithDetails(currentUser.getId()));
         } else {
             // Admin can see all medical records
             return getAllMedicalRecords();
         }
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<MedicalRecordSummaryDTO> getMyMedicalRecordSummaries() {
+        if (currentUser.isPatient()) {
+            return medicalRecordRepository.findSummariesByPatientId(currentUser.getId());
+        } else if (currentUser.isDoctor()) {
+            return medicalRecordRepository.findSummariesByDoctorId(currentUser.getId());
+        } else {
+            // Admin can see all medical records
+            return medicalRecordRepository.findAllSummaries();
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<MedicalRecordSummaryDTO> getMedicalRecordSummariesByPatient(Long patientId) {
+        if (!userRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient not found with ID: " + patientId);
+        }
+        return medicalRecordRepository.findSummariesByPatientId(patientId);
+    }
+    
     @Override
     @Transactional
     public List<MedicalRecordResponseDTO> getMyPatientMedicalRecords() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-            return medicalRecordRepository.findByDoctorIdWithDetails(currentUser.getId()).stream()
-                    .map(this::toDTO)
-                    .collect(Collectors.toList());
+        if (currentUser.isDoctor()) {
+            return toDTOs(medicalRecordRepository.findByDoctorIdWithDetails(currentUser.getId()));
         } else {
             throw new RuntimeException("Only doctors can access patient medical records");
         }
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public MedicalRecordSearchResultDTO searchMedicalRecords(String query, Long patientId, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidInputException("Search query cannot be empty");
+        }
+        if (page < 0 || size < 1 || size > maxSearchPageSize) {
+            throw new InvalidInputException("Page must be >= 0 and size between 1 and " + maxSearchPageSize);
+        }
+        if ((long) (page + 1) * size > maxSearchResults) {
+            throw new InvalidInputException("Only the first " + maxSearchResults + " results can be paged through, please refine the search");
+        }
+        
+        // Admin searches every record, a doctor only the records they wrote (same rule as GET /{id})
+        Long doctorId;
+        if (currentUser.isAdmin()) {
+            doctorId = null;
+        } else if (currentUser.isDoctor()) {
+            doctorId = currentUser.getId();
+        } else {
+            throw new RuntimeException("Only doctors and admins can search medical records");
+        }
+        
+        InvertedIndex.Result result = searchIndex.search(query, doctorId, patientId, page * size, size);
+        List<MedicalRecord> found = result.hits().isEmpty() ? List.of()
+                : medicalRecordRepository.findByIdInWithDetails(result.hits().stream().map(InvertedIndex.Hit::key).toList());
+        Map<Long, MedicalRecord> records = found.stream().collect(Collectors.toMap(MedicalRecord::getId, Function.identity()));
+        Map<Long, List<AttachmentDTO>> attachments = found.isEmpty() ? Map.of()
+                : attachmentService.getAttachmentsByRecord(records.keySet());
+        
+        // Keep the ranking order; re-check ownership against the database in case the index is behind
+        List<MedicalRecordSearchResultDTO.Hit> hits = result.hits().stream()
+                .map(hit -> {
+                    MedicalRecord record = records.get(hit.key());
+                    if (record == null || (doctorId != null && !doctorId.equals(record.getDoctor().getId()))) {
+                        return null;
+                    }
+                    return MedicalRecordSearchResultDTO.Hit.builder()
+                            .score(hit.score())
+                            .record(toDTO(record, attachments.getOrDefault(record.getId(), List.of())))
+                            .build();
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        
+        return MedicalRecordSearchResultDTO.builder()
+                .query(query)
+                .page(page)
+                .size(size)
+                .totalHits(result.totalHits())
+                .hits(hits)
+                .build();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<MedicalRecordRevisionDTO> getMedicalRecordHistory(Long id) {
+        // Only admin or the record's doctor get here (ResourceAccessManagers.medicalRecordHistoryAccess) - also after a delete
+        List<MedicalRecordRevisionDTO> revisions = history.listRevisions(id);
+        if (revisions.isEmpty() && !medicalRecordRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Medical record not found with ID: " + id);
+        }
+        return revisions;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public MedicalRecordRevisionDTO getMedicalRecordRevision(Long id, int revision) {
+        return history.getRevision(id, revision);
+    }
+    
     @Override
     @Transactional
     public void deleteMedicalRecord(Long id) {
         MedicalRecord medicalRecord = medicalRecordRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with ID: " + id));
         
-        // Check if current user has permission to delete this record
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        // Only allow admin or the doctor who created the record to delete it
-        if (!currentUser.getRole().name().equals("ROLE_ADMIN") && 
-            !medicalRecord.getDoctor().getId().equals(currentUser.getId())) {
-            throw new RuntimeException("Access denied: You can only delete your own medical records");
-        }
-        
+        // Only admin or the doctor who created the record get here (ResourceAccessManagers.medicalRecordAccess)
+        attachmentService.detachAll(id);
+        history.recordDeletion(id, medicalRecord.getDoctor().getId(), MedicalRecordHistory.Texts.of(medicalRecord));
         medicalRecordRepository.delete(medicalRecord);
+        appointmentRepository.setHasMedicalRecord(medicalRecord.getAppointment().getId(), false);
+        searchIndex.removeAfterCommit(id);
     }
     
     @Override
     @Transactional
     public List<AppointmentResponseDTO> getAvailableAppointmentsForMedicalRecord(Long patientId) {
-        // Get current doctor from security context
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentDoctor = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (!currentDoctor.getRole().name().equals("ROLE_DOCTOR")) {
+        if (!currentUser.isDoctor()) {
             throw new RuntimeException("Only doctors can access appointment information for medical records");
         }
         
-        System.out.println("DEBUG: Looking for appointments for patientId=" + patientId + ", doctorId=" + currentDoctor.getId());
+        System.out.println("DEBUG: Looking for appointments for patientId=" + patientId + ", doctorId=" + currentUser.getId());
         
         // Get available appointments (PENDING or CONFIRMED) for the patient with this doctor that don't have medical records yet
         List<Appointment> availableAppointments = appointmentRepository.findByPatientIdAndDoctorIdAndNoMedicalRecord(
-                patientId, currentDoctor.getId());
+                patientId, currentUser.getId());
         
         System.out.println("DEBUG: Found " + availableAppointments.size() + " available appointments");
         availableAppointments.forEach(apt -> {
@@ -350,28 +471,4 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
                         .build())
                 .collect(Collectors.toList());
     }
-    
-    // Method to check if medical record belongs to current user (for security annotations)
-    public boolean isOwnMedicalRecord(Long medicalRecordId) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            MedicalRecord medicalRecord = medicalRecordRepository.findById(medicalRecordId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with ID: " + medicalRecordId));
-            
-            if (currentUser.getRole().name().equals("ROLE_PATIENT")) {
-                return medicalRecord.getPatient().getId().equals(currentUser.getId());
-            } else if (currentUser.getRole().name().equals("ROLE_DOCTOR")) {
-                return medicalRecord.getDoctor().getId().equals(currentUser.getId());
-            } else if (currentUser.getRole().name().equals("ROLE_ADMIN")) {
-                return true; // Admin can access all medical records
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.healthcare.service;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/*
+ * K-way merge of iterators that are each already sorted by 'order'.
+ * Holds one element per source in a heap, so taking n elements costs O(n log k)
+ * and nothing is pulled from a source before it is needed.
+ */
+public class MergingIterator<T> implements Iterator<T> {
+
+    private record Head<T>(T value, Iterator<T> source) {
+    }
+
+    private final PriorityQueue<Head<T>> heads;
+
+    public MergingIterator(List<? extends Iterator<T>> sources, Comparator<? super T> order) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.value(), b.value()));
+        for (Iterator<T> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head<>(source.next(), source));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        if (head.source().hasNext()) {
+            heads.add(new Head<>(head.source().next(), head.source()));
+        }
+        return head.value();
+    }
+}
@@ -0,0 +1,77 @@
+package com.healthcare.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.repository.OtpRateWindowRepository;
+import com.healthcare.repository.OtpRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Deletes expired and used rows from otps, and otp_rate_windows rows idle for longer than the rate limit
+ * window, in small batches.
+ * Each batch is its own short transaction (ids picked through an index, then deleted by primary key)
+ * with a pause in between, so the job never holds locks long enough to stall OTP inserts.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.otp.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class OtpPurgeJob {
+
+    private final OtpRepository otpRepository;
+    private final OtpRateWindowRepository rateWindowRepository;
+
+    @Value("${app.otp.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.otp.purge.pause-ms:200}")
+    private long pauseMillis;
+
+    @Value("${app.otp.rate-limit.window-minutes:60}")
+    private long rateWindowMinutes;
+
+    @Scheduled(fixedDelayString = "${app.otp.purge.interval-ms:300000}", initialDelayString = "${app.otp.purge.interval-ms:300000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = purgeBatches(() -> otpRepository.findExpiredIds(now, batchSize), otpRepository::deleteAllByIdInBatch)
+                + purgeBatches(() -> otpRepository.findUsedIds(batchSize), otpRepository::deleteAllByIdInBatch);
+        LocalDateTime staleBefore = now.minusMinutes(rateWindowMinutes);
+        int windows = purgeBatches(() -> rateWindowRepository.findStaleIds(staleBefore, batchSize),
+                ids -> rateWindowRepository.deleteStale(ids, staleBefore));
+        if (deleted > 0 || windows > 0) {
+            System.out.println("OTP purge removed " + deleted + " OTP rows and " + windows + " idle rate limit windows");
+        }
+    }
+
+    private int purgeBatches(Supplier<List<Long>> nextBatch, Consumer<List<Long>> delete) {
+        int deleted = 0;
+        List<Long> ids = nextBatch.get();
+        while (!ids.isEmpty()) {
+            delete.accept(ids);
+            deleted += ids.size();
+            if (ids.size() < batchSize || !pause()) {
+                break;
+            }
+            ids = nextBatch.get();
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
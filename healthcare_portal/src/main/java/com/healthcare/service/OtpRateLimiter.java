@@ -0,0 +1,16 @@
+package com.healthcare.service;
+
+import com.healthcare.entity.Otp;
+
+/*
+ * Sliding-window limit on how many OTPs one address can request per type.
+ * InMemoryOtpRateLimiter (default, app.otp.rate-limiter=memory) needs no SQL at all.
+ * JpaOtpRateLimiter (app.otp.rate-limiter=database) shares the windows between nodes.
+ */
+public interface OtpRateLimiter {
+
+    /**
+     * Record a request for (email, type) if the window still has room; false when the limit is reached
+     */
+    boolean tryAcquire(String email, Otp.OtpType type);
+}
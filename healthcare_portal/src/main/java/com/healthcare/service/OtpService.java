@@ -30,7 +30,7 @@ public interface OtpService {
     String generateOtp();
     
     /**
-     * Check if user can request new OTP
+     * Check if user can request new OTP (an allowed request is counted against the window)
      */
     boolean canRequestOtp(String email, Otp.OtpType type);
 }
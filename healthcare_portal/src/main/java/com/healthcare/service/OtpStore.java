@@ -0,0 +1,23 @@
+package com.healthcare.service;
+
+import java.time.Duration;
+
+import com.healthcare.entity.Otp;
+
+/*
+ * Storage for issued OTP codes.
+ * InMemoryOtpStore (default, app.otp.store=memory) keeps everything in-process - fine for a single node.
+ * JpaOtpStore (app.otp.store=database) keeps the otps table so several nodes can share codes.
+ */
+public interface OtpStore {
+
+    /**
+     * Store a new code for (email, type), replacing any code issued before
+     */
+    void save(String email, Otp.OtpType type, String otpCode, Duration ttl);
+
+    /**
+     * Check a code - a match consumes it, a mismatch counts as a failed attempt
+     */
+    boolean verify(String email, Otp.OtpType type, String otpCode);
+}
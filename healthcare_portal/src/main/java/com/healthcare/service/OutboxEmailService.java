@@ -0,0 +1,106 @@
+package com.healthcare.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.dto.DoctorDigestDTO;
+import com.healthcare.entity.EmailOutbox;
+import com.healthcare.repository.EmailOutboxRepository;
+import com.healthcare.security.FieldEncryptor;
+
+/*
+ * The EmailService everyone gets injected when app.mail.outbox.enabled=true (default):
+ * a call only inserts an email_outbox row, joining the caller's transaction - nothing is lost
+ * if SMTP is down or the process dies. EmailOutboxDispatcher does the sending.
+ * Payloads (OTP codes, names, digests) are encrypted with the medical record master key when
+ * app.mail.outbox.encrypt-payloads is on - a switch of its own, so turning off record encryption does not
+ * store them in plaintext; without a master key the application does not start. OTP rows expire together
+ * with the code they carry.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxEmailService implements EmailService {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final FieldEncryptor fieldEncryptor;
+    private final boolean encryptPayloads;
+
+    public OutboxEmailService(EmailOutboxRepository outboxRepository, ObjectMapper objectMapper,
+            FieldEncryptor fieldEncryptor, @Value("${app.mail.outbox.encrypt-payloads:true}") boolean encryptPayloads) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.fieldEncryptor = fieldEncryptor;
+        this.encryptPayloads = encryptPayloads;
+        if (encryptPayloads && !fieldEncryptor.hasMasterKey()) {
+            throw new IllegalStateException("app.mail.outbox.encrypt-payloads=true but no master key is configured - "
+                    + "set MEDICAL_RECORD_MASTER_KEY (32 bytes, base64 encoded)");
+        }
+    }
+
+    @Override
+    public void sendSignupOtp(String to, String otp) {
+        enqueue(EmailOutbox.EmailType.SIGNUP_OTP, to, otp, LocalDateTime.now().plusMinutes(OtpServiceImpl.OTP_EXPIRY_MINUTES));
+    }
+
+    @Override
+    public void sendPasswordResetOtp(String to, String otp) {
+        enqueue(EmailOutbox.EmailType.PASSWORD_RESET_OTP, to, otp,
+                LocalDateTime.now().plusMinutes(OtpServiceImpl.OTP_EXPIRY_MINUTES));
+    }
+
+    @Override
+    public void sendWelcomeEmail(String to, String firstName) {
+        enqueue(EmailOutbox.EmailType.WELCOME, to, firstName);
+    }
+
+    @Override
+    public void sendPasswordResetConfirmation(String to, String firstName) {
+        enqueue(EmailOutbox.EmailType.PASSWORD_RESET_CONFIRMATION, to, firstName);
+    }
+
+    @Override
+    public void sendAppointmentReminders(List<AppointmentReminderDTO> reminders) {
+        for (AppointmentReminderDTO reminder : reminders) {
+            try {
+                enqueue(EmailOutbox.EmailType.APPOINTMENT_REMINDER, reminder.getPatientEmail(),
+                        objectMapper.writeValueAsString(reminder));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize appointment reminder", e);
+            }
+        }
+    }
+
+    @Override
+    public void sendDoctorDigest(DoctorDigestDTO digest, Runnable onDelivered) {
+        try {
+            enqueue(EmailOutbox.EmailType.DOCTOR_DIGEST, digest.getDoctorEmail(), objectMapper.writeValueAsString(digest));
+            onDelivered.run();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize doctor digest", e);
+        }
+    }
+
+    private void enqueue(EmailOutbox.EmailType type, String to, String payload) {
+        enqueue(type, to, payload, null);
+    }
+
+    private void enqueue(EmailOutbox.EmailType type, String to, String payload, LocalDateTime expiresAt) {
+        outboxRepository.save(EmailOutbox.builder()
+                .type(type)
+                .recipient(to)
+                .payload(encryptPayloads ? fieldEncryptor.encryptAlways(payload) : payload)
+                .nextAttemptAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
@@ -0,0 +1,12 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.TimelinePageDTO;
+
+public interface TimelineService {
+
+    // One page of a patient's appointments, medical records and feedback, newest first
+    TimelinePageDTO getTimeline(Long patientId, String cursor, int size);
+
+    // Timeline of the current (patient) user
+    TimelinePageDTO getMyTimeline(String cursor, int size);
+}
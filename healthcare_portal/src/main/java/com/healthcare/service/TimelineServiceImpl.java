@@ -0,0 +1,161 @@
+package com.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.TimelineEntryDTO;
+import com.healthcare.dto.TimelinePageDTO;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.FeedbackRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Patient timeline: appointments, medical records and feedback in one feed, newest first.
+ * The three sources are read in parallel, each with a keyset query (WHERE (date, time, id) < cursor
+ * ORDER BY ... DESC LIMIT size + 1), and k-way merged; only 'size' entries are taken from the merge.
+ * The cursor is the (date, time, type, id) of the last entry returned, so paging never skips or repeats
+ * entries and every page costs the same no matter how deep the client has scrolled.
+ */
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    // Order of entries with the same timestamp (higher first): the appointment, then its record, then feedback
+    private enum EntryType {
+        FEEDBACK, MEDICAL_RECORD, APPOINTMENT
+    }
+
+    private record Cursor(LocalDate date, LocalTime time, EntryType type, long id) {
+    }
+
+    private static final Cursor START = new Cursor(LocalDate.of(9999, 12, 31), LocalTime.of(23, 59, 59),
+            EntryType.APPOINTMENT, Long.MAX_VALUE);
+
+    private static final Comparator<TimelineEntryDTO> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntryDTO::getDate)
+            .thenComparing(TimelineEntryDTO::getTime)
+            .thenComparing(entry -> EntryType.valueOf(entry.getType()))
+            .thenComparing(TimelineEntryDTO::getId)
+            .reversed();
+
+    private final AppointmentRepository appointmentRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final FeedbackRepository feedbackRepository;
+    private final UserRepository userRepository;
+    private final CurrentUser currentUser;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.timeline.max-page-size:100}")
+    private int maxPageSize;
+
+    public TimelineServiceImpl(AppointmentRepository appointmentRepository, MedicalRecordRepository medicalRecordRepository,
+            FeedbackRepository feedbackRepository, UserRepository userRepository, CurrentUser currentUser) {
+        this.appointmentRepository = appointmentRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.userRepository = userRepository;
+        this.currentUser = currentUser;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public TimelinePageDTO getMyTimeline(String cursor, int size) {
+        if (!currentUser.isPatient()) {
+            throw new InvalidInputException("Only patients have a timeline of their own");
+        }
+        return getTimeline(currentUser.getId(), cursor, size);
+    }
+
+    @Override
+    public TimelinePageDTO getTimeline(Long patientId, String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidInputException("Size must be between 1 and " + maxPageSize);
+        }
+        if (!userRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient not found with ID: " + patientId);
+        }
+        Cursor after = cursor == null || cursor.isBlank() ? START : decode(cursor);
+        // One extra row per source tells whether anything is left after this page
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        CompletableFuture<List<TimelineEntryDTO>> appointments = query(() -> appointmentRepository.findTimelinePage(
+                patientId, after.date(), after.time(), boundId(EntryType.APPOINTMENT, after), limit));
+        CompletableFuture<List<TimelineEntryDTO>> medicalRecords = query(() -> medicalRecordRepository.findTimelinePage(
+                patientId, after.date(), after.time(), boundId(EntryType.MEDICAL_RECORD, after), limit));
+        CompletableFuture<List<TimelineEntryDTO>> feedback = query(() -> feedbackRepository.findTimelinePage(
+                patientId, LocalDateTime.of(after.date(), after.time()), boundId(EntryType.FEEDBACK, after), limit));
+
+        List<Iterator<TimelineEntryDTO>> sources;
+        try {
+            sources = List.of(appointments.join().iterator(), medicalRecords.join().iterator(), feedback.join().iterator());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+
+        MergingIterator<TimelineEntryDTO> merged = new MergingIterator<>(sources, NEWEST_FIRST);
+        List<TimelineEntryDTO> entries = new ArrayList<>(size);
+        while (entries.size() < size && merged.hasNext()) {
+            entries.add(merged.next());
+        }
+        String nextCursor = merged.hasNext() ? encode(entries.get(entries.size() - 1)) : null;
+        return TimelinePageDTO.builder()
+                .entries(entries)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private CompletableFuture<List<TimelineEntryDTO>> query(Supplier<List<TimelineEntryDTO>> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    // Entries of 'type' with exactly the cursor's timestamp come after the cursor only if they sort below it:
+    // lower-ranked types all do, higher-ranked types none, the cursor's own type those with a lower id
+    private static long boundId(EntryType type, Cursor cursor) {
+        int byType = type.compareTo(cursor.type());
+        if (byType < 0) {
+            return Long.MAX_VALUE;
+        }
+        return byType > 0 ? Long.MIN_VALUE : cursor.id();
+    }
+
+    private static String encode(TimelineEntryDTO entry) {
+        String raw = entry.getDate() + "|" + entry.getTime() + "|" + entry.getType() + "|" + entry.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Cursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), EntryType.valueOf(parts[2]),
+                    Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new InvalidInputException("Invalid timeline cursor");
+        }
+    }
+}
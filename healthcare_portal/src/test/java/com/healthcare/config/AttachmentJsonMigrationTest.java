@@ -0,0 +1,122 @@
+package com.healthcare.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.service.AttachmentService;
+import com.healthcare.service.AttachmentStorage;
+
+/*
+ * The migration against an in-memory medical_records.attachments column: mocked JDBC answers the keyset
+ * query from it and clears it on the conditional UPDATE, inserted attachment rows are captured.
+ */
+class AttachmentJsonMigrationTest {
+
+    private static final String SHA256 = "ab".repeat(32);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AttachmentService attachmentService = mock(AttachmentService.class);
+    private final AttachmentStorage attachmentStorage = mock(AttachmentStorage.class);
+    private final AttachmentJsonMigration migration = new AttachmentJsonMigration(jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), attachmentService, attachmentStorage);
+
+    private final Map<Long, String> json = new TreeMap<>();
+    private final List<String> insertSql = new ArrayList<>();
+    private final List<Object[]> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM medical_records"), eq(Long.class), anyLong(), any()))
+                .thenAnswer(call -> json.keySet().stream().filter(id -> id > (long) call.getArgument(2)).limit(100).toList());
+        when(jdbcTemplate.queryForList(startsWith("SELECT attachments, creation_date"), anyLong()))
+                .thenAnswer(call -> {
+                    String value = json.get((long) call.getArgument(1));
+                    return value == null ? List.of() : List.of(Map.of("attachments", value));
+                });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(call -> {
+            insertSql.add(call.getArgument(0));
+            inserted.addAll(call.getArgument(1));
+            return new int[0];
+        });
+        when(jdbcTemplate.update(startsWith("UPDATE medical_records SET attachments = NULL"), anyLong(), anyString()))
+                .thenAnswer(call -> json.remove((long) call.getArgument(1), call.getArgument(2)) ? 1 : 0);
+        when(attachmentStorage.storageKey(anyString())).thenAnswer(call -> "ab/" + call.getArgument(0));
+        when(attachmentService.storeJsonEntries(anyString())).thenAnswer(call -> {
+            String value = call.getArgument(0);
+            if (value.contains("broken")) {
+                throw new InvalidInputException("Attachment data is not valid base64");
+            }
+            return List.of(AttachmentDTO.builder().name("lab.pdf").type("application/pdf").size(10L)
+                    .sha256(value.contains("name-only") ? null : SHA256).category("LAB_REPORT").build());
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        migration.shutdown();
+    }
+
+    @Test
+    void validRecordsBecomeRowsAndBrokenOnesKeepTheirJson() {
+        json.put(1L, "[{\"data\":\"ok\"}]");
+        json.put(2L, "[{\"data\":\"broken\"}]");
+        json.put(3L, "[{\"name\":\"name-only\"}]");
+        json.put(4L, "[{\"data\":\"ok\"}]");
+        migration.migrateNew();
+
+        assertEquals(List.of(2L, 3L), List.copyOf(json.keySet()));
+        assertEquals(2, inserted.size());
+        assertEquals(1L, inserted.get(0)[0]);
+        assertEquals(4L, inserted.get(1)[0]);
+        assertEquals("ab/" + SHA256, inserted.get(0)[6]);
+        assertTrue(insertSql.get(0).endsWith("ON DUPLICATE KEY UPDATE id = id"));
+    }
+
+    @Test
+    void laterRunsOnlyLookAtNewRecords() {
+        json.put(1L, "[{\"data\":\"broken\"}]");
+        migration.migrateNew();
+        // The next bulk import adds a record
+        json.put(2L, "[{\"data\":\"ok\"}]");
+        migration.migrateNew();
+
+        assertEquals(List.of(1L), List.copyOf(json.keySet()));
+        verify(attachmentService, times(1)).storeJsonEntries("[{\"data\":\"broken\"}]");
+        // Only the first run scans from the start
+        verify(jdbcTemplate, times(1)).queryForList(startsWith("SELECT id FROM medical_records"), eq(Long.class), eq(0L), any());
+    }
+
+    @Test
+    void singleRecordIsMigratedOnTheCallersThread() {
+        json.put(7L, "[{\"data\":\"ok\"}]");
+        migration.migrateRecord(7L);
+        migration.migrateRecord(8L);
+
+        assertTrue(json.isEmpty());
+        assertEquals(1, inserted.size());
+    }
+}
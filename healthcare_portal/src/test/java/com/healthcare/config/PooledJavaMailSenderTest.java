@@ -0,0 +1,122 @@
+package com.healthcare.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import com.healthcare.service.MailDispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/*
+ * Connection use against the embedded SMTP server: one connection per batch, and with the pool one
+ * connection across batches.
+ */
+class PooledJavaMailSenderTest {
+
+    private final EmbeddedSmtpServer smtpServer = new EmbeddedSmtpServer(0, 100, 0, 0);
+    private final PooledJavaMailSender pooledSender = new PooledJavaMailSender(2, 60_000, 10_000, 10_000, 100,
+            new SimpleMeterRegistry());
+
+    @BeforeEach
+    void start() throws IOException {
+        smtpServer.start();
+        pooledSender.setHost("localhost");
+        pooledSender.setPort(smtpServer.getPort());
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        pooledSender.destroy();
+        smtpServer.stop();
+    }
+
+    private static MimeMessage[] messages(JavaMailSenderImpl sender, int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(message(sender, "patient" + i + "@example.com"));
+        }
+        return messages.toArray(new MimeMessage[0]);
+    }
+
+    private static MimeMessage message(JavaMailSenderImpl sender, String to) throws MessagingException {
+        MimeMessage message = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("portal@example.com");
+        helper.setTo(to);
+        helper.setSubject("Test");
+        helper.setText("<p>Hello</p>", true);
+        return message;
+    }
+
+    @Test
+    void batchGoesOutOverOneConnection() throws MessagingException {
+        JavaMailSenderImpl plainSender = new JavaMailSenderImpl();
+        plainSender.setHost("localhost");
+        plainSender.setPort(smtpServer.getPort());
+
+        plainSender.send(messages(plainSender, 10));
+        assertEquals(10, smtpServer.getReceivedCount());
+        assertEquals(1, smtpServer.getConnectionCount());
+    }
+
+    @Test
+    void pooledConnectionIsReusedAcrossBatches() throws MessagingException {
+        pooledSender.send(messages(pooledSender, 10));
+        pooledSender.send(messages(pooledSender, 10));
+        pooledSender.send(message(pooledSender, "one@example.com"));
+
+        assertEquals(21, smtpServer.getReceivedCount());
+        assertEquals(1, smtpServer.getConnectionCount());
+    }
+
+    @Test
+    void dispatcherSendsQueuedMailAsOneBatch() throws InterruptedException {
+        MailDispatcher dispatcher = new MailDispatcher(pooledSender, 1, 100, 20, false, new SimpleMeterRegistry());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            dispatcher.submit("block", () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return List.of();
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch sent = new CountDownLatch(20);
+            for (int i = 0; i < 20; i++) {
+                String to = "patient" + i + "@example.com";
+                dispatcher.submit("welcome", new MailDispatcher.MailTask() {
+                    @Override
+                    public List<MimeMessage> prepare() throws MessagingException {
+                        return List.of(message(pooledSender, to));
+                    }
+
+                    @Override
+                    public void onSent() {
+                        sent.countDown();
+                    }
+                });
+            }
+            release.countDown();
+            assertTrue(sent.await(10, TimeUnit.SECONDS));
+            assertEquals(20, smtpServer.getReceivedCount());
+            assertEquals(1, smtpServer.getConnectionCount());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
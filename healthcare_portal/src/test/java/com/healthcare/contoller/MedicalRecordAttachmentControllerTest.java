@@ -0,0 +1,95 @@
+package com.healthcare.contoller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.service.AttachmentService;
+
+class MedicalRecordAttachmentControllerTest {
+
+    private static final String SHA256 = "ab".repeat(32);
+
+    private final AttachmentService attachmentService = mock(AttachmentService.class);
+    private final MedicalRecordAttachmentController controller = new MedicalRecordAttachmentController(attachmentService);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(controller, "sendfileMinBytes", 10L);
+        Path file = Files.write(directory.resolve(SHA256), new byte[100]);
+        when(attachmentService.getContentPath(SHA256)).thenReturn(file);
+        stored("application/pdf");
+    }
+
+    private void stored(String type) {
+        when(attachmentService.getAttachment(1L, SHA256))
+                .thenReturn(AttachmentDTO.builder().name("lab.pdf").type(type).size(100L).sha256(SHA256).build());
+    }
+
+    private ResponseEntity<Resource> download() throws IOException {
+        return controller.downloadAttachment(1L, SHA256, request, response);
+    }
+
+    @Test
+    void malformedRangeHeaderIs416() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=abc");
+        ResponseEntity<Resource> result = download();
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, result.getStatusCode());
+        assertEquals("bytes */100", result.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void rangePastTheEndIs416OnBothPaths() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=500-");
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, download().getStatusCode());
+
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, download().getStatusCode());
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+    }
+
+    @Test
+    void validRangeIsHandedToSendfile() throws IOException {
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        assertNull(download());
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(20L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void unparseableStoredTypeIsServedAsOctetStream() throws IOException {
+        stored("not a type");
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, download().getHeaders().getContentType());
+
+        stored("image/*");
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, download().getHeaders().getContentType());
+    }
+}
@@ -0,0 +1,130 @@
+package com.healthcare.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuthRateLimitFilterTest {
+
+    private static final String SIGNIN = "/api/auth/signin";
+
+    private static AuthRateLimitFilter filter(int ipPerMinute, int accountPerMinute, int maxTrackedKeys) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxTrackedKeys(maxTrackedKeys);
+        properties.setMaxBodyBytes(1024);
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPath(SIGNIN);
+        route.setIpPerMinute(ipPerMinute);
+        route.setAccountPerMinute(accountPerMinute);
+        properties.getRoutes().put("signin", route);
+        return new AuthRateLimitFilter(properties, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest signin(String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SIGNIN);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletResponse call(AuthRateLimitFilter filter, MockHttpServletRequest request, MockFilterChain chain)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static int status(AuthRateLimitFilter filter, String ip, String email) throws Exception {
+        return call(filter, signin(ip, "{\"email\":\"" + email + "\"}"), new MockFilterChain()).getStatus();
+    }
+
+    @Test
+    void rejectsPerIpOverLimitWithRetryAfter() throws Exception {
+        AuthRateLimitFilter filter = filter(2, 0, 1000);
+        assertEquals(200, status(filter, "10.0.0.1", "a@x.com"));
+        assertEquals(200, status(filter, "10.0.0.1", "b@x.com"));
+        MockHttpServletResponse response = call(filter, signin("10.0.0.1", "{}"), new MockFilterChain());
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+        assertEquals(200, status(filter, "10.0.0.2", "a@x.com"));
+    }
+
+    @Test
+    void rejectsPerAccountAcrossIpsIgnoringCase() throws Exception {
+        AuthRateLimitFilter filter = filter(0, 1, 1000);
+        assertEquals(200, status(filter, "10.0.0.1", "Victim@x.com"));
+        assertEquals(429, status(filter, "10.0.0.2", " victim@x.com"));
+    }
+
+    @Test
+    void replaysBodyToTheController() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 1000);
+        byte[] body = "{\"email\":\"a@x.com\",\"password\":\"secret\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = signin("10.0.0.1", new String(body, StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        call(filter, request, chain);
+        assertArrayEquals(body, chain.getRequest().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void refusesOversizedBodyWithoutForwarding() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 1000);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = call(filter, signin("10.0.0.1", "{\"email\":\"" + "a".repeat(2000) + "\"}"), chain);
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void refusesOversizedChunkedBody() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SIGNIN) {
+            @Override
+            public long getContentLengthLong() {
+                return -1; // chunked - the length is only known by reading
+            }
+        };
+        request.setContent(("{\"email\":\"" + "a".repeat(2000) + "\"}").getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        assertEquals(413, call(filter, request, chain).getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void ipSprayDoesNotResetAnAccountLockout() throws Exception {
+        AuthRateLimitFilter filter = filter(5, 2, 20);
+        assertEquals(200, status(filter, "10.0.0.1", "victim@x.com"));
+        assertEquals(200, status(filter, "10.0.0.1", "victim@x.com"));
+        assertEquals(429, status(filter, "10.0.0.1", "victim@x.com"));
+        // Many IPs with fresh emails push the map over its bound several times
+        for (int i = 0; i < 200; i++) {
+            status(filter, "192.168." + (i / 250) + "." + (i % 250), "spray" + i + "@x.com");
+        }
+        assertTrue(filter.trackedKeys() <= 20);
+        assertEquals(429, status(filter, "10.0.0.3", "victim@x.com"));
+    }
+
+    @Test
+    void ignoresOtherPaths() throws Exception {
+        AuthRateLimitFilter filter = filter(1, 1, 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/departments/public");
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call(filter, request, new MockFilterChain()).getStatus());
+        }
+    }
+}
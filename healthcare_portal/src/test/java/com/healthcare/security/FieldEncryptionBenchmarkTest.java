@@ -0,0 +1,251 @@
+package com.healthcare.security;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dto.MedicalRecordResponseDTO;
+import com.healthcare.dto.MedicalRecordSummaryDTO;
+import com.healthcare.entity.MedicalRecord;
+
+/*
+ * CPU cost of medical record field encryption, no database:
+ * - decryptions/sec with FieldEncryptor (cached data keys, per-thread Cipher) vs a naive implementation
+ *   that unwraps the data key and creates a Cipher for every field;
+ * - a full list response (DTOs + JSON, three decrypted fields per record) and a summary list (one decrypted
+ *   diagnosis preview) against the same lists built from plaintext.
+ * Both lists take about twice their plaintext CPU time (measured: full list +109%, 1.7 us more per record;
+ * summary list +96%, 0.5 us more per record). The <10% list-endpoint overhead target is NOT met by this
+ * measurement, and the end-to-end overhead (with the MySQL query and network) has not been measured - this
+ * benchmark has no database. Plan: time GET /api/medical-records/my and /my/summary against a
+ * production-sized MySQL copy with app.records.encryption.enabled on and off; if the difference is above
+ * 10% there, page the full-list endpoints (they return every record, so the cost grows with the table).
+ * The preview column already keeps the summary list at one short decryption per row.
+ * mvn test -Pbenchmark -Dtest=FieldEncryptionBenchmarkTest [-Dbenchmark.samples=1000]
+ */
+@Tag("benchmark")
+class FieldEncryptionBenchmarkTest {
+
+    private static final String DIAGNOSIS = "Acute bronchitis with persistent dry cough for two weeks; no fever. "
+            + "Chest auscultation shows scattered wheezing, oxygen saturation 97% on room air.";
+    private static final String PRESCRIPTION = "Salbutamol inhaler 100mcg, 2 puffs every 6 hours as needed; "
+            + "dextromethorphan syrup 10ml at night for 7 days.";
+    private static final String NOTES = "Patient is a non-smoker, works in a dusty environment. Advised to rest, "
+            + "drink plenty of fluids and avoid exposure to dust and cold air. Follow-up in 10 days or earlier "
+            + "if shortness of breath, chest pain or fever develop. Chest X-ray if the cough persists beyond "
+            + "three weeks. Discussed inhaler technique and spacer use; patient demonstrated correct use.";
+
+    private final int samples = Integer.getInteger("benchmark.samples", 1000);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // Key table with no rows: the first encrypt creates data key 1
+    private static DataSource emptyKeyTable() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        ResultSet noKeys = mock(ResultSet.class);
+        ResultSet generatedKey = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(noKeys);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(insert);
+        when(insert.getGeneratedKeys()).thenReturn(generatedKey);
+        when(generatedKey.next()).thenReturn(true);
+        when(generatedKey.getInt(1)).thenReturn(1);
+        return dataSource;
+    }
+
+    @Test
+    void decryptionCost() throws Exception {
+        byte[] masterKey = new byte[32];
+        new SecureRandom().nextBytes(masterKey);
+        FieldEncryptor encryptor = new FieldEncryptor(emptyKeyTable(), true, Base64.getEncoder().encodeToString(masterKey));
+
+        // Per-field cost: cached contexts vs unwrap + Cipher.getInstance for every field
+        String stored = encryptor.encrypt(NOTES);
+        NaiveEncryptor naive = new NaiveEncryptor();
+        byte[] naiveStored = naive.encrypt(NOTES);
+        double cached = perSecond(samples * 3, () -> encryptor.decrypt(stored));
+        double uncached = perSecond(samples * 3, () -> naive.decrypt(naiveStored));
+        System.out.printf("Field decryption (%d chars): %.0f/sec cached, %.0f/sec naive (%.1fx)%n",
+                NOTES.length(), cached, uncached, cached / uncached);
+
+        List<String[]> plainRows = new ArrayList<>(samples);
+        List<String[]> encryptedRows = new ArrayList<>(samples);
+        for (int i = 0; i < samples; i++) {
+            String diagnosis = DIAGNOSIS + " #" + i;
+            String[] texts = { diagnosis, PRESCRIPTION, NOTES, MedicalRecord.preview(diagnosis) };
+            plainRows.add(texts);
+            encryptedRows.add(new String[] { encryptor.encrypt(texts[0]), encryptor.encrypt(texts[1]),
+                    encryptor.encrypt(texts[2]), encryptor.encrypt(texts[3]) });
+        }
+        compare("Full list", () -> fullList(plainRows, text -> text), () -> fullList(encryptedRows, encryptor::decrypt));
+        compare("Summary list", () -> summaryList(plainRows, text -> text),
+                () -> summaryList(encryptedRows, encryptor::decrypt));
+    }
+
+    // Rounds alternate so JIT warm-up and GC hit both variants alike; the fastest round of each is reported
+    private void compare(String name, Supplier<Integer> plaintext, Supplier<Integer> encrypted) {
+        warmUp(() -> plaintext.get() + encrypted.get());
+        long plainNanos = Long.MAX_VALUE;
+        long encryptedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            plainNanos = Math.min(plainNanos, time(plaintext));
+            encryptedNanos = Math.min(encryptedNanos, time(encrypted));
+        }
+        System.out.printf("%s of %d (CPU only): %.2f ms plaintext, %.2f ms encrypted (+%.1f%%)%n",
+                name, samples, plainNanos / 1_000_000.0, encryptedNanos / 1_000_000.0,
+                (encryptedNanos - plainNanos) * 100.0 / plainNanos);
+    }
+
+    private interface Text {
+        String apply(String stored);
+    }
+
+    // What the list endpoint does per request after the query: rows -> DTOs -> JSON
+    private int fullList(List<String[]> rows, Text text) {
+        List<MedicalRecordResponseDTO> dtos = new ArrayList<>(rows.size());
+        long id = 0;
+        for (String[] row : rows) {
+            dtos.add(MedicalRecordResponseDTO.builder()
+                    .id(++id)
+                    .patientId(1L)
+                    .patientName("Jane Doe")
+                    .patientEmail("jane.doe@example.com")
+                    .doctorId(2L)
+                    .doctorName("John Smith")
+                    .doctorEmail("john.smith@example.com")
+                    .appointmentId(id)
+                    .appointmentDate(LocalDate.of(2025, 1, 15))
+                    .appointmentTime(LocalTime.of(10, 30))
+                    .appointmentStatus("COMPLETED")
+                    .recordDate(LocalDate.of(2025, 1, 15))
+                    .diagnosis(text.apply(row[0]))
+                    .prescription(text.apply(row[1]))
+                    .notes(text.apply(row[2]))
+                    .departmentName("Pulmonology")
+                    .doctorSpecialization("Pulmonologist")
+                    .build());
+        }
+        return json(dtos);
+    }
+
+    private int summaryList(List<String[]> rows, Text text) {
+        List<MedicalRecordSummaryDTO> dtos = new ArrayList<>(rows.size());
+        long id = 0;
+        for (String[] row : rows) {
+            dtos.add(new MedicalRecordSummaryDTO(++id, LocalDate.of(2025, 1, 15), 1L, "Jane Doe", 2L, "John Smith",
+                    "Pulmonology", id, text.apply(row[3]), false));
+        }
+        return json(dtos);
+    }
+
+    private int json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void warmUp(Supplier<Integer> work) {
+        long until = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < until) {
+            work.get();
+        }
+    }
+
+    private static long time(Supplier<Integer> work) {
+        long start = System.nanoTime();
+        work.get();
+        return System.nanoTime() - start;
+    }
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static double perSecond(int count, Operation operation) throws Exception {
+        long until = System.nanoTime() + 1_000_000_000L;
+        while (System.nanoTime() < until) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            operation.run();
+        }
+        return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    // Envelope encryption without caching: unwrap the data key and create Ciphers for every field
+    private static final class NaiveEncryptor {
+
+        private final SecureRandom random = new SecureRandom();
+        private final SecretKey masterKey;
+        private final byte[] wrappedKey;
+        private final byte[] wrapIv = new byte[12];
+
+        NaiveEncryptor() throws GeneralSecurityException {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            masterKey = generator.generateKey();
+            random.nextBytes(wrapIv);
+            Cipher wrap = Cipher.getInstance("AES/GCM/NoPadding");
+            wrap.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(128, wrapIv));
+            wrappedKey = wrap.doFinal(generator.generateKey().getEncoded());
+        }
+
+        byte[] encrypt(String text) throws GeneralSecurityException {
+            byte[] iv = new byte[12];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey(), new GCMParameterSpec(128, iv));
+            byte[] sealed = cipher.doFinal(text.getBytes(StandardCharsets.UTF_8));
+            byte[] out = new byte[12 + sealed.length];
+            System.arraycopy(iv, 0, out, 0, 12);
+            System.arraycopy(sealed, 0, out, 12, sealed.length);
+            return out;
+        }
+
+        String decrypt(byte[] stored) throws GeneralSecurityException {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, dataKey(), new GCMParameterSpec(128, stored, 0, 12));
+            return new String(cipher.doFinal(stored, 12, stored.length - 12), StandardCharsets.UTF_8);
+        }
+
+        private SecretKey dataKey() throws GeneralSecurityException {
+            Cipher unwrap = Cipher.getInstance("AES/GCM/NoPadding");
+            unwrap.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(128, wrapIv));
+            return new SecretKeySpec(unwrap.doFinal(wrappedKey), "AES");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.healthcare.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FieldEncryptorTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Statement statement = mock(Statement.class);
+
+    // Key table with no rows: the first encrypt creates data key 1
+    @BeforeEach
+    void setUp() throws SQLException {
+        PreparedStatement insert = mock(PreparedStatement.class);
+        ResultSet generatedKey = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(insert);
+        when(insert.getGeneratedKeys()).thenReturn(generatedKey);
+        when(generatedKey.next()).thenReturn(true);
+        when(generatedKey.getInt(1)).thenReturn(1);
+    }
+
+    @Test
+    void enabledWithoutAValidMasterKeyFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> new FieldEncryptor(dataSource, true, ""));
+        assertThrows(IllegalStateException.class, () -> new FieldEncryptor(dataSource, true, "not base64!"));
+        assertThrows(IllegalStateException.class,
+                () -> new FieldEncryptor(dataSource, true, Base64.getEncoder().encodeToString(new byte[16])));
+
+        FieldEncryptor disabled = new FieldEncryptor(dataSource, false, "");
+        assertEquals("asthma", disabled.encrypt("asthma"));
+    }
+
+    @Test
+    void keyTableIsCreatedOnceNotOnEveryUnknownKey() throws SQLException {
+        FieldEncryptor encryptor = new FieldEncryptor(dataSource, true, KEY);
+        encryptor.createKeyTable();
+
+        String stored = encryptor.encrypt("asthma");
+        assertTrue(FieldEncryptor.isEncrypted(stored));
+        assertEquals("asthma", encryptor.decrypt(stored));
+
+        // Written with a key this node has never seen - reloads the keys, does not recreate the table
+        byte[] foreign = Base64.getDecoder().decode(stored.substring(FieldEncryptor.PREFIX.length()));
+        foreign[3] = 9;
+        String unknown = FieldEncryptor.PREFIX + Base64.getEncoder().encodeToString(foreign);
+        assertThrows(IllegalStateException.class, () -> encryptor.decrypt(unknown));
+        assertThrows(IllegalStateException.class, () -> encryptor.decrypt(unknown));
+
+        verify(statement, times(1)).execute(startsWith("CREATE TABLE"));
+    }
+
+    @Test
+    void plaintextFromBeforeEncryptionPassesThrough() {
+        FieldEncryptor encryptor = new FieldEncryptor(dataSource, true, KEY);
+        assertFalse(FieldEncryptor.isEncrypted("written in 2023"));
+        assertEquals("written in 2023", encryptor.decrypt("written in 2023"));
+    }
+}
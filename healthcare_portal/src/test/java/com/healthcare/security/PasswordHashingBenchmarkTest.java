@@ -0,0 +1,64 @@
+package com.healthcare.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Logins/sec per core and for the whole hashing pool at a BCrypt strength.
+ * mvn test -Pbenchmark -Dtest=PasswordHashingBenchmarkTest [-Dbcrypt.strength=12] [-Dbenchmark.samples=50]
+ */
+@Tag("benchmark")
+class PasswordHashingBenchmarkTest {
+
+    private final int strength = Integer.getInteger("bcrypt.strength", 10);
+    private final int samples = Integer.getInteger("benchmark.samples", 20);
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(0, 64, 60_000, new SimpleMeterRegistry());
+    private final BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(strength, executor);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void loginsPerSecond() {
+        String rawPassword = "Benchmark@123";
+        String hash = passwordEncoder.encode(rawPassword);
+
+        // Single core: verify sequentially on this thread
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            passwordEncoder.matchesOnCurrentThread(rawPassword, hash);
+        }
+        double perHashMillis = (System.nanoTime() - start) / 1_000_000.0 / samples;
+        double perCore = 1000.0 / perHashMillis;
+
+        // Whole pool: enough concurrent callers to keep every hashing thread busy
+        int poolSize = executor.getPoolSize();
+        int total = samples * poolSize;
+        ExecutorService callers = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(total);
+            start = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> passwordEncoder.matches(rawPassword, hash), callers));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            callers.shutdown();
+        }
+        double poolPerSecond = total / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        System.out.printf("BCrypt strength %d: %.1f ms/verify, %.1f logins/sec per core, %.1f logins/sec across %d hashing threads%n",
+                strength, perHashMillis, perCore, poolPerSecond, poolSize);
+    }
+}
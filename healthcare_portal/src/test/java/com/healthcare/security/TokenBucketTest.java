@@ -0,0 +1,48 @@
+package com.healthcare.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void allowsBurstOfCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket(5, MINUTE);
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryConsume(now), "request " + i);
+        }
+        assertFalse(bucket.tryConsume(now));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        TokenBucket bucket = new TokenBucket(5, MINUTE);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(now);
+        }
+        long interval = MINUTE / 5;
+        assertEquals(interval, bucket.nanosUntilNextToken(now));
+        assertFalse(bucket.tryConsume(now + interval - 1));
+        assertTrue(bucket.tryConsume(now + interval));
+        assertFalse(bucket.tryConsume(now + interval));
+    }
+
+    @Test
+    void isFullOnlyOnceEveryTokenIsBack() {
+        TokenBucket bucket = new TokenBucket(2, MINUTE);
+        assertTrue(bucket.isFull(0));
+        bucket.tryConsume(0);
+        assertFalse(bucket.isFull(0));
+        assertFalse(bucket.isFull(MINUTE / 2 - 1));
+        assertTrue(bucket.isFull(MINUTE / 2));
+    }
+}
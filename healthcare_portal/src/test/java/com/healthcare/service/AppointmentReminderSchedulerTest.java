@@ -0,0 +1,97 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.dto.AppointmentReminderDTO;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.User;
+import com.healthcare.repository.AppointmentReminderRepository;
+import com.healthcare.repository.AppointmentRepository;
+
+/*
+ * One 1-hour reminder against an in-memory appointment_reminders table: markSent inserts into it,
+ * deleteByAppointmentId clears it. The appointment starts 59 minutes from now, so its reminder is due.
+ */
+class AppointmentReminderSchedulerTest {
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AppointmentReminderRepository reminderRepository = mock(AppointmentReminderRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final AppointmentReminderScheduler scheduler = new AppointmentReminderScheduler(appointmentRepository,
+            reminderRepository, emailService, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            true, new int[] { 60 }, 360, 30);
+
+    private final Set<Long> sentMarkers = new HashSet<>();
+    private final List<AppointmentReminderDTO> sent = new ArrayList<>();
+    private Appointment appointment;
+
+    @BeforeEach
+    void setUp() {
+        appointment = Appointment.builder()
+                .patient(User.builder().email("jane.doe@example.com").firstName("Jane").build())
+                .doctor(User.builder().firstName("John").lastName("Smith").build())
+                .status("CONFIRMED")
+                .build();
+        appointment.setId(7L);
+        moveTo(LocalDateTime.now().plusMinutes(59));
+
+        when(appointmentRepository.findConfirmedBetweenWithPeople(any(), any())).thenAnswer(call -> List.of(appointment));
+        when(appointmentRepository.findByIdInWithPeople(anyCollection())).thenAnswer(call -> List.of(appointment));
+        when(reminderRepository.findByAppointmentIdIn(anyCollection())).thenReturn(List.of());
+        when(reminderRepository.markSent(anyLong(), anyInt()))
+                .thenAnswer(call -> sentMarkers.add(call.getArgument(0)) ? 1 : 0);
+        when(reminderRepository.deleteByAppointmentId(anyLong()))
+                .thenAnswer(call -> sentMarkers.remove(call.getArgument(0)) ? 1 : 0);
+        doAnswer(call -> sent.addAll(call.getArgument(0))).when(emailService).sendAppointmentReminders(any());
+    }
+
+    private void moveTo(LocalDateTime start) {
+        appointment.setAppointmentDate(start.toLocalDate());
+        appointment.setAppointmentTime(start.toLocalTime().withNano(0));
+    }
+
+    @Test
+    void rescheduledAppointmentGetsItsReminderAgain() {
+        scheduler.loadWindow();
+        scheduler.tick();
+        assertEquals(1, sent.size());
+
+        // Moved a minute earlier after the reminder went out
+        moveTo(LocalDateTime.now().plusMinutes(58));
+        scheduler.onAppointmentRescheduled(appointment);
+        scheduler.tick();
+
+        assertEquals(2, sent.size());
+        assertEquals(appointment.getAppointmentTime(), sent.get(1).getAppointmentTime());
+    }
+
+    @Test
+    void otherChangesDoNotResendASentReminder() {
+        scheduler.loadWindow();
+        scheduler.tick();
+
+        appointment.setReason("Follow-up");
+        scheduler.onAppointmentChanged(appointment);
+        scheduler.tick();
+
+        assertEquals(1, sent.size());
+    }
+}
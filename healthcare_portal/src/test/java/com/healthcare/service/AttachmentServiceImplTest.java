@@ -0,0 +1,112 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.AttachmentDTO;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.entity.MedicalRecordAttachment;
+import com.healthcare.repository.MedicalRecordAttachmentRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.UserRepository;
+
+/*
+ * Updates resend the whole attachment list - {name, type, size} for files the record keeps, data for new ones.
+ */
+class AttachmentServiceImplTest {
+
+    private static final String LAB = "aa".repeat(32);
+    private static final String XRAY = "bb".repeat(32);
+    private static final String NEW = "cc".repeat(32);
+
+    private final MedicalRecordAttachmentRepository attachmentRepository = mock(MedicalRecordAttachmentRepository.class);
+    private final AttachmentStorage attachmentStorage = mock(AttachmentStorage.class);
+    private final AttachmentServiceImpl attachmentService = new AttachmentServiceImpl(mock(MedicalRecordRepository.class),
+            attachmentRepository, mock(UserRepository.class), attachmentStorage, null, new ObjectMapper());
+    private final MedicalRecord medicalRecord = new MedicalRecord();
+
+    @BeforeEach
+    void setUp() {
+        medicalRecord.setId(1L);
+        when(attachmentRepository.findByMedicalRecordIds(List.of(1L))).thenReturn(List.of(
+                AttachmentDTO.builder().name("lab.pdf").sha256(LAB).build(),
+                AttachmentDTO.builder().name("xray.png").sha256(XRAY).build()));
+    }
+
+    private static AttachmentDTO named(String name) {
+        return AttachmentDTO.builder().name(name).type("application/pdf").size(10L).category("OTHER").build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> saved() {
+        ArgumentCaptor<List<MedicalRecordAttachment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(attachmentRepository).saveAll(captor.capture());
+        return captor.getValue().stream().map(MedicalRecordAttachment::getSha256).toList();
+    }
+
+    @Test
+    void resentNamesKeepTheirFilesAndMissingOnesAreDetached() {
+        AttachmentDTO added = named("referral.pdf");
+        added.setSha256(NEW);
+        attachmentService.replaceAll(medicalRecord, List.of(named("lab.pdf"), added));
+
+        verify(attachmentRepository).deleteByMedicalRecordIdAndSha256In(1L, Set.of(XRAY));
+        assertEquals(List.of(NEW), saved());
+    }
+
+    @Test
+    void unchangedListTouchesNothing() {
+        attachmentService.replaceAll(medicalRecord, List.of(named("xray.png"), named("lab.pdf")));
+
+        verify(attachmentRepository, never()).deleteByMedicalRecordIdAndSha256In(anyLong(), anyCollection());
+        assertEquals(List.of(), saved());
+    }
+
+    @Test
+    void nameTheRecordDoesNotHaveIsRejected() {
+        assertThrows(InvalidInputException.class, () -> attachmentService.replaceAll(medicalRecord, List.of(named("scan.pdf"))));
+        // A new record has nothing to match
+        assertThrows(InvalidInputException.class, () -> attachmentService.attachAll(medicalRecord, List.of(named("lab.pdf"))));
+    }
+
+    @Test
+    void entriesWithoutContentParseToNameOnlyReferences() {
+        List<AttachmentDTO> parsed = attachmentService.storeJsonEntries(
+                "[{\"name\":\"lab.pdf\",\"type\":\"application/pdf\",\"size\":2048}]");
+
+        assertEquals(1, parsed.size());
+        assertEquals("lab.pdf", parsed.get(0).getName());
+        assertEquals(2048L, parsed.get(0).getSize());
+        assertNull(parsed.get(0).getSha256());
+    }
+
+    @Test
+    void removingAFileTheRecordDoesNotHaveIs404() {
+        when(attachmentRepository.deleteByMedicalRecordIdAndSha256In(eq(1L), any())).thenReturn(0);
+        assertThrows(ResourceNotFoundException.class, () -> attachmentService.removeAttachment(1L, NEW));
+
+        when(attachmentRepository.deleteByMedicalRecordIdAndSha256In(1L, List.of(LAB))).thenReturn(1);
+        attachmentService.removeAttachment(1L, LAB);
+        verify(attachmentRepository).deleteByMedicalRecordIdAndSha256In(1L, new ArrayList<>(List.of(LAB)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.repository.MedicalRecordAttachmentRepository;
+
+/*
+ * A real store in a temp directory; "referenced" plays the attachments table.
+ */
+class AttachmentSweepJobTest {
+
+    @TempDir
+    Path dir;
+
+    private final MedicalRecordAttachmentRepository attachmentRepository = mock(MedicalRecordAttachmentRepository.class);
+    private AttachmentStorage attachmentStorage;
+    private AttachmentSweepJob sweepJob;
+    private Set<String> referenced;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        attachmentStorage = new AttachmentStorage(dir.toString(), 1024);
+        sweepJob = new AttachmentSweepJob(attachmentStorage, attachmentRepository);
+        ReflectionTestUtils.setField(sweepJob, "graceMinutes", 60L);
+        referenced = Set.of();
+        when(attachmentRepository.findReferencedSha256(anyCollection())).thenAnswer(call -> call.<Collection<String>>getArgument(0)
+                .stream().filter(sha256 -> referenced.contains(sha256)).collect(Collectors.toSet()));
+    }
+
+    private String store(String content) {
+        return attachmentStorage.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).sha256();
+    }
+
+    private String storeTwoHoursAgo(String content) throws IOException {
+        String sha256 = store(content);
+        Files.setLastModifiedTime(attachmentStorage.locate(sha256), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        return sha256;
+    }
+
+    private boolean stored(String sha256) {
+        return Files.isRegularFile(dir.resolve(attachmentStorage.storageKey(sha256)));
+    }
+
+    @Test
+    void unreferencedContentIsDeletedAfterTheGracePeriod() throws IOException {
+        String removed = storeTwoHoursAgo("removed lab report");
+        String attached = storeTwoHoursAgo("attached x-ray");
+        String inFlight = store("upload whose row is not committed yet");
+        referenced = Set.of(attached);
+
+        sweepJob.sweep();
+
+        assertFalse(stored(removed));
+        assertTrue(stored(attached));
+        assertTrue(stored(inFlight));
+    }
+
+    @Test
+    void contentUploadedAgainIsKept() throws IOException {
+        String sha256 = storeTwoHoursAgo("same scan, uploaded again");
+        // Identical upload - the file already exists, the new attachments row comes with the transaction
+        store("same scan, uploaded again");
+
+        sweepJob.sweep();
+
+        assertTrue(stored(sha256));
+    }
+
+    @Test
+    void unfinishedUploadsAreCleanedUp() throws IOException {
+        Path part = Files.createFile(dir.resolve("tmp").resolve("upload-1.part"));
+        Files.setLastModifiedTime(part, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path current = Files.createFile(dir.resolve("tmp").resolve("upload-2.part"));
+
+        sweepJob.sweep();
+
+        assertFalse(Files.exists(part));
+        assertTrue(Files.exists(current));
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthcare.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.dto.DoctorDigestDTO;
+import com.healthcare.entity.DoctorDigestEvent;
+import com.healthcare.entity.User;
+import com.healthcare.repository.DoctorDigestEventRepository;
+import com.healthcare.repository.UserRepository;
+
+class DoctorDigestServiceTest {
+
+    private final DoctorDigestEventRepository eventRepository = mock(DoctorDigestEventRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final DoctorDigestService digestService = new DoctorDigestService(eventRepository, userRepository,
+            emailService, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(digestService, "enabled", true);
+        ReflectionTestUtils.setField(digestService, "maxEvents", 100);
+        ReflectionTestUtils.setField(digestService, "busyBackoffMs", 0L);
+        when(eventRepository.findDoctorIds()).thenReturn(List.of(1L, 2L));
+        when(eventRepository.lockByDoctor(eq(1L), anyInt())).thenReturn(List.of(event(10L, 1L)));
+        when(eventRepository.lockByDoctor(eq(2L), anyInt())).thenReturn(List.of(event(20L, 2L), event(21L, 2L)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(doctor(1L)));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor(2L)));
+    }
+
+    private static DoctorDigestEvent event(long id, long doctorId) {
+        DoctorDigestEvent event = DoctorDigestEvent.builder()
+                .doctorId(doctorId)
+                .appointmentId(id)
+                .eventType(DoctorDigestEvent.EventType.BOOKED)
+                .patientName("Pat Patient")
+                .appointmentDate(LocalDate.now())
+                .appointmentTime(LocalTime.NOON)
+                .status("SCHEDULED")
+                .build();
+        event.setId(id);
+        return event;
+    }
+
+    private static User doctor(long id) {
+        User doctor = new User();
+        doctor.setId(id);
+        doctor.setEmail("doctor" + id + "@example.com");
+        doctor.setFirstName("Doc");
+        doctor.setLastName(String.valueOf(id));
+        return doctor;
+    }
+
+    @Test
+    void eventsAreDeletedOnlyOnceTheDigestIsDelivered() {
+        // Doctor 1's send is accepted but never completes; doctor 2's goes out
+        doAnswer(invocation -> {
+            if (invocation.<DoctorDigestDTO>getArgument(0).getDoctorEmail().equals("doctor2@example.com")) {
+                invocation.<Runnable>getArgument(1).run();
+            }
+            return null;
+        }).when(emailService).sendDoctorDigest(any(), any());
+        digestService.sendDigests();
+
+        verify(eventRepository).deleteAllByIdInBatch(List.of(20L, 21L));
+        verify(eventRepository, never()).deleteAllByIdInBatch(List.of(10L));
+    }
+
+    @Test
+    void fullMailQueueOnlyHoldsBackThatDoctor() {
+        doThrow(new ServiceUnavailableException("busy"))
+                .doAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(1).run();
+                    return null;
+                })
+                .when(emailService).sendDoctorDigest(any(), any());
+        digestService.sendDigests();
+
+        // Doctor 1 was retried after the queue drained, doctor 2 went out normally
+        verify(eventRepository).deleteAllByIdInBatch(List.of(10L));
+        verify(eventRepository).deleteAllByIdInBatch(List.of(20L, 21L));
+    }
+
+    @Test
+    void failingDoctorDoesNotStopTheRun() {
+        doThrow(new IllegalStateException("bad payload"))
+                .doAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(1).run();
+                    return null;
+                })
+                .when(emailService).sendDoctorDigest(any(), any());
+        digestService.sendDigests();
+
+        verify(eventRepository, never()).deleteAllByIdInBatch(List.of(10L));
+        verify(eventRepository).deleteAllByIdInBatch(List.of(20L, 21L));
+    }
+
+    @Test
+    void nothingIsSentWhenThereAreNoEvents() {
+        when(eventRepository.findDoctorIds()).thenReturn(List.of());
+        digestService.sendDigests();
+        verify(emailService, never()).sendDoctorDigest(any(), any());
+    }
+}
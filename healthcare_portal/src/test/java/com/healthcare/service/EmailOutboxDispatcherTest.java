@@ -0,0 +1,143 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.entity.EmailOutbox;
+import com.healthcare.repository.EmailOutboxRepository;
+import com.healthcare.security.FieldEncryptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+class EmailOutboxDispatcherTest {
+
+    private final EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+    private final EmailServiceImpl smtpEmailService = mock(EmailServiceImpl.class);
+    private final MailDispatcher mailDispatcher = mock(MailDispatcher.class);
+    private final FieldEncryptor fieldEncryptor = mock(FieldEncryptor.class);
+    private final MimeMessage message = new MimeMessage((Session) null);
+    private final EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(outboxRepository, smtpEmailService,
+            mailDispatcher, new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper(),
+            fieldEncryptor, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffBaseSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxSeconds", 3600L);
+        when(fieldEncryptor.decrypt("ENC1:otp")).thenReturn("123456");
+        when(smtpEmailService.signupOtpMessage("a@x.com", "123456")).thenReturn(message);
+    }
+
+    private static EmailOutbox otpRow(long id, int attempts) {
+        EmailOutbox email = EmailOutbox.builder()
+                .type(EmailOutbox.EmailType.SIGNUP_OTP)
+                .recipient("a@x.com")
+                .payload("ENC1:otp")
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .claimToken("token-1")
+                .build();
+        email.setId(id);
+        return email;
+    }
+
+    @Test
+    void claimedRowsCarryTheTokenTheClaimWrote() {
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(otpRow(1L, 0)));
+        List<EmailOutbox> claimed = dispatcher.claimBatch();
+
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(outboxRepository).claim(eq(List.of(1L)), eq(EmailOutbox.Status.SENDING), token.capture(), any());
+        assertNotNull(token.getValue());
+        assertEquals(token.getValue(), claimed.get(0).getClaimToken());
+    }
+
+    @Test
+    void sentRowIsDeletedUnderItsClaim() throws Exception {
+        when(outboxRepository.renewLease(eq(1L), eq("token-1"), any(), any())).thenReturn(1);
+        MailDispatcher.MailTask task = dispatcher.mailTask(otpRow(1L, 0));
+        assertEquals(List.of(message), task.prepare());
+        task.onSent();
+
+        verify(smtpEmailService).signupOtpMessage("a@x.com", "123456");
+        verify(outboxRepository).deleteSent(1L, "token-1");
+    }
+
+    @Test
+    void rowReclaimedWhileQueuedIsNotSentAgain() throws Exception {
+        when(outboxRepository.renewLease(eq(1L), eq("token-1"), any(), any())).thenReturn(0);
+        assertEquals(List.of(), dispatcher.mailTask(otpRow(1L, 0)).prepare());
+
+        verify(smtpEmailService, never()).signupOtpMessage(anyString(), anyString());
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoffThenMarkedFailed() {
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.mailTask(otpRow(1L, 0)).onFailed(new MailSendException("SMTP down"));
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).markFailed(eq(1L), eq("token-1"), eq(EmailOutbox.Status.PENDING), next.capture(),
+                eq("SMTP down"));
+        assertEquals(30, Duration.between(before, next.getValue()).toSeconds(), 1);
+
+        dispatcher.mailTask(otpRow(2L, 2)).onFailed(new MailSendException("SMTP down"));
+        verify(outboxRepository).markFailed(eq(2L), eq("token-1"), eq(EmailOutbox.Status.FAILED), any(), eq("SMTP down"));
+    }
+
+    @Test
+    void rowIsReleasedUnderItsClaimWhenTheLocalQueueIsFull() {
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(otpRow(1L, 0)));
+        doThrow(new ServiceUnavailableException("busy")).when(mailDispatcher)
+                .submit(anyString(), anyString(), any(MailDispatcher.MailTask.class));
+        dispatcher.dispatch();
+
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(outboxRepository).claim(any(), any(), token.capture(), any());
+        verify(outboxRepository).release(eq(1L), eq(token.getValue()), eq(EmailOutbox.Status.PENDING), any());
+    }
+
+    @Test
+    void dispatchHandsClaimedRowsToTheMailWorkers() throws Exception {
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(otpRow(1L, 0)));
+        when(outboxRepository.renewLease(any(), any(), any(), any())).thenReturn(1);
+        doAnswer(invocation -> {
+            MailDispatcher.MailTask task = invocation.getArgument(2);
+            task.prepare();
+            task.onSent();
+            return null;
+        }).when(mailDispatcher).submit(eq("signup_otp"), eq("outbox#1"), any(MailDispatcher.MailTask.class));
+        dispatcher.dispatch();
+
+        verify(smtpEmailService).signupOtpMessage("a@x.com", "123456");
+        verify(outboxRepository).deleteSent(eq(1L), anyString());
+    }
+}
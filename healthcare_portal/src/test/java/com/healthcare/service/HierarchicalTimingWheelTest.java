@@ -0,0 +1,85 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    // 8 slots per level, 2 levels: 64 ticks of horizon
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 2, 0);
+
+    @Test
+    void keyFiresOnItsDeadlineTickNotBefore() {
+        wheel.schedule("a", 3 * TICK);
+        assertEquals(List.of(), wheel.advance(3 * TICK - 1));
+        assertEquals(List.of("a"), wheel.advance(3 * TICK));
+        assertFalse(wheel.contains("a"));
+    }
+
+    @Test
+    void deadlineBetweenTicksIsRoundedUp() {
+        wheel.schedule("a", 2 * TICK + 1);
+        assertEquals(List.of(), wheel.advance(2 * TICK));
+        assertEquals(List.of("a"), wheel.advance(3 * TICK));
+    }
+
+    @Test
+    void keysOnTheCoarseLevelCascadeDownAndFireOnTime() {
+        List<Long> deadlines = List.of(9L, 15L, 16L, 17L, 40L, 63L);
+        for (long deadline : deadlines) {
+            wheel.schedule("k" + deadline, deadline * TICK);
+        }
+        List<Long> fired = new ArrayList<>();
+        for (long tick = 1; tick <= 64; tick++) {
+            for (String key : wheel.advance(tick * TICK)) {
+                assertEquals(Long.parseLong(key.substring(1)), tick, key + " fired at tick " + tick);
+                fired.add(tick);
+            }
+        }
+        assertEquals(deadlines, fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancingManyTicksAtOnceReturnsEverythingDue() {
+        wheel.schedule("a", 5 * TICK);
+        wheel.schedule("b", 30 * TICK);
+        wheel.schedule("c", 50 * TICK);
+        assertEquals(List.of("a", "b"), wheel.advance(31 * TICK));
+        assertEquals(List.of("c"), wheel.advance(64 * TICK));
+    }
+
+    @Test
+    void rescheduleMovesAndCancelRemoves() {
+        wheel.schedule("a", 5 * TICK);
+        wheel.schedule("a", 20 * TICK);
+        wheel.schedule("b", 6 * TICK);
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+        assertEquals(List.of(), wheel.advance(19 * TICK));
+        assertEquals(List.of("a"), wheel.advance(20 * TICK));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        wheel.advance(10 * TICK);
+        wheel.schedule("late", 4 * TICK);
+        assertEquals(List.of("late"), wheel.advance(10 * TICK));
+    }
+
+    @Test
+    void deadlineBeyondTheHorizonIsRefused() {
+        assertEquals(63 * TICK, wheel.horizonMillis());
+        assertTrue(wheel.schedule("edge", 63 * TICK));
+        assertFalse(wheel.schedule("far", 64 * TICK));
+        assertFalse(wheel.contains("far"));
+    }
+}
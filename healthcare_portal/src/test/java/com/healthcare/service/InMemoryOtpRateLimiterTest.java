@@ -0,0 +1,68 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.entity.Otp;
+
+class InMemoryOtpRateLimiterTest {
+
+    private static final Otp.OtpType SIGNUP = Otp.OtpType.SIGNUP;
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryOtpRateLimiter limiter = new InMemoryOtpRateLimiter(3, 60, now::get);
+
+    @AfterEach
+    void shutdown() {
+        limiter.shutdown();
+    }
+
+    @Test
+    void allowsLimitRequestsPerWindow() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("a@x.com", SIGNUP));
+            now.addAndGet(MINUTE);
+        }
+        assertFalse(limiter.tryAcquire("a@x.com", SIGNUP));
+        assertTrue(limiter.tryAcquire("b@x.com", SIGNUP));
+        assertTrue(limiter.tryAcquire("a@x.com", Otp.OtpType.FORGOT_PASSWORD));
+    }
+
+    @Test
+    void windowSlidesWithTheOldestRequest() {
+        limiter.tryAcquire("a@x.com", SIGNUP);
+        now.addAndGet(30 * MINUTE);
+        limiter.tryAcquire("a@x.com", SIGNUP);
+        limiter.tryAcquire("a@x.com", SIGNUP);
+        now.addAndGet(29 * MINUTE);
+        assertFalse(limiter.tryAcquire("a@x.com", SIGNUP));
+        // The first request leaves the window, the two later ones are still in it
+        now.addAndGet(MINUTE);
+        assertTrue(limiter.tryAcquire("a@x.com", SIGNUP));
+        assertFalse(limiter.tryAcquire("a@x.com", SIGNUP));
+    }
+
+    @Test
+    void idleWindowsAreEvicted() {
+        limiter.tryAcquire("a@x.com", SIGNUP);
+        now.addAndGet(30 * MINUTE);
+        limiter.tryAcquire("b@x.com", SIGNUP);
+        now.addAndGet(30 * MINUTE);
+        limiter.evictIdle();
+        assertEquals(1, limiter.trackedKeys());
+    }
+
+    @Test
+    void limitBelowOneIsRejectedAtStartup() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryOtpRateLimiter(0, 60, now::get));
+    }
+}
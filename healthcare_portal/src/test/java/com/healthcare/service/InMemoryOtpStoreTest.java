@@ -0,0 +1,95 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.entity.Otp;
+
+class InMemoryOtpStoreTest {
+
+    private static final Otp.OtpType SIGNUP = Otp.OtpType.SIGNUP;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryOtpStore store = new InMemoryOtpStore(1000, 8, now::get, false);
+
+    @Test
+    void matchingCodeIsConsumedOnce() {
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofMinutes(10));
+        assertTrue(store.verify("a@x.com", SIGNUP, "123456"));
+        assertFalse(store.verify("a@x.com", SIGNUP, "123456"));
+    }
+
+    @Test
+    void codesAreKeptPerEmailAndType() {
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofMinutes(10));
+        assertFalse(store.verify("b@x.com", SIGNUP, "123456"));
+        assertFalse(store.verify("a@x.com", Otp.OtpType.FORGOT_PASSWORD, "123456"));
+        assertTrue(store.verify("a@x.com", SIGNUP, "123456"));
+    }
+
+    @Test
+    void locksAfterThreeWrongAttempts() {
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofMinutes(10));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(store.verify("a@x.com", SIGNUP, "000000"));
+        }
+        assertFalse(store.verify("a@x.com", SIGNUP, "123456"));
+    }
+
+    @Test
+    void newCodeReplacesTheOldOneAndResetsAttempts() {
+        store.save("a@x.com", SIGNUP, "111111", Duration.ofMinutes(10));
+        for (int i = 0; i < 3; i++) {
+            store.verify("a@x.com", SIGNUP, "000000");
+        }
+        store.save("a@x.com", SIGNUP, "222222", Duration.ofMinutes(10));
+        assertFalse(store.verify("a@x.com", SIGNUP, "111111"));
+        assertTrue(store.verify("a@x.com", SIGNUP, "222222"));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofSeconds(30));
+        now.addAndGet(30_000);
+        assertFalse(store.verify("a@x.com", SIGNUP, "123456"));
+    }
+
+    @Test
+    void sweepDropsExpiredCodesWithoutAccess() {
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofSeconds(3));
+        store.save("b@x.com", SIGNUP, "123456", Duration.ofSeconds(60));
+        now.addAndGet(5_000);
+        store.sweep();
+        assertEquals(1, store.size());
+        assertTrue(store.verify("b@x.com", SIGNUP, "123456"));
+    }
+
+    @Test
+    void codeLongerThanOneLapOfTheWheelSurvivesEarlierSweeps() {
+        // 8 slots of 1s: a 20s code passes its slot twice before it is due
+        store.save("a@x.com", SIGNUP, "123456", Duration.ofSeconds(20));
+        for (int second = 1; second < 20; second++) {
+            now.addAndGet(1000);
+            store.sweep();
+            assertEquals(1, store.size(), "second " + second);
+        }
+        now.addAndGet(1000);
+        store.sweep();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void replacedCodeIsNotRemovedByTheOldCodesSlot() {
+        store.save("a@x.com", SIGNUP, "111111", Duration.ofSeconds(2));
+        store.save("a@x.com", SIGNUP, "222222", Duration.ofSeconds(6));
+        now.addAndGet(3000);
+        store.sweep();
+        assertTrue(store.verify("a@x.com", SIGNUP, "222222"));
+    }
+}
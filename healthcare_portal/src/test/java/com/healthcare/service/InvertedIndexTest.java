@@ -0,0 +1,165 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private static Map<String, Integer> terms(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        InvertedIndex.tokenize(text).forEach(term -> terms.merge(term, 1, Integer::sum));
+        return terms;
+    }
+
+    private List<Long> keys(String query) {
+        return keys(query, id -> true, id -> true);
+    }
+
+    private List<Long> keys(String query, LongPredicate doctor, LongPredicate patient) {
+        return index.search(InvertedIndex.tokenize(query), doctor, patient, 0, 100).hits().stream()
+                .map(InvertedIndex.Hit::key)
+                .toList();
+    }
+
+    @Test
+    void tokenizeLowerCasesAndDropsStopWordsAndPunctuation() {
+        assertEquals(List.of("type", "2", "diabetes", "mellitus", "metformin", "500mg"),
+                InvertedIndex.tokenize("Type-2 Diabetes, mellitus: on the Metformin 500mg"));
+        assertEquals(List.of(), InvertedIndex.tokenize(null));
+    }
+
+    @Test
+    void everyQueryTermMustMatch() {
+        index.put(1, 10, 100, terms("acute bronchitis cough"));
+        index.put(2, 10, 100, terms("chronic cough"));
+        index.put(3, 10, 100, terms("acute sinusitis"));
+
+        assertEquals(List.of(1L), keys("acute cough"));
+        assertEquals(List.of(), keys("cough fracture"));
+        assertEquals(List.of(), keys("the and"));
+    }
+
+    @Test
+    void higherTermFrequencyAndShorterDocumentsRankFirst() {
+        index.put(1, 10, 100, terms("asthma"));
+        index.put(2, 10, 100, terms("asthma asthma inhaler"));
+        index.put(3, 10, 100, terms("asthma follow up visit routine check blood pressure normal"));
+        index.put(4, 10, 100, terms("migraine"));
+
+        List<Long> ranked = keys("asthma");
+        assertEquals(3, ranked.size());
+        assertEquals(3L, ranked.get(2));
+        assertTrue(ranked.indexOf(2L) < ranked.indexOf(3L));
+    }
+
+    @Test
+    void scoresMatchBm25ComputedByHand() {
+        Random random = new Random(42);
+        String[] vocabulary = { "fever", "cough", "rash", "pain", "nausea", "fatigue", "asthma", "insulin" };
+        List<Map<String, Integer>> documents = new ArrayList<>();
+        for (int key = 0; key < 200; key++) {
+            Map<String, Integer> document = new HashMap<>();
+            int words = 1 + random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                document.merge(vocabulary[random.nextInt(vocabulary.length)], 1 + random.nextInt(2), Integer::sum);
+            }
+            documents.add(document);
+            index.put(key, 0, 0, document);
+        }
+
+        List<String> query = List.of("fever", "rash");
+        double averageLength = documents.stream()
+                .mapToInt(document -> document.values().stream().mapToInt(Integer::intValue).sum())
+                .average().orElseThrow();
+        List<InvertedIndex.Hit> expected = new ArrayList<>();
+        for (int key = 0; key < documents.size(); key++) {
+            Map<String, Integer> document = documents.get(key);
+            if (!document.keySet().containsAll(query)) {
+                continue;
+            }
+            int length = document.values().stream().mapToInt(Integer::intValue).sum();
+            double score = 0;
+            for (String term : query) {
+                long df = documents.stream().filter(d -> d.containsKey(term)).count();
+                double idf = Math.log(1 + (documents.size() - df + 0.5) / (df + 0.5));
+                int freq = document.get(term);
+                score += idf * freq * 2.2 / (freq + 1.2 * (0.25 + 0.75 * length / averageLength));
+            }
+            expected.add(new InvertedIndex.Hit(key, score));
+        }
+        expected.sort(Comparator.comparingDouble(InvertedIndex.Hit::score).reversed().thenComparing(InvertedIndex.Hit::key));
+
+        InvertedIndex.Result result = index.search(query, id -> true, id -> true, 0, 10);
+        assertEquals(expected.size(), result.totalHits());
+        for (int i = 0; i < result.hits().size(); i++) {
+            assertEquals(expected.get(i).key(), result.hits().get(i).key());
+            assertEquals(expected.get(i).score(), result.hits().get(i).score(), 1e-9);
+        }
+    }
+
+    @Test
+    void ownerFiltersRestrictHits() {
+        index.put(1, 10, 100, terms("hypertension"));
+        index.put(2, 11, 100, terms("hypertension"));
+        index.put(3, 10, 101, terms("hypertension"));
+
+        assertEquals(List.of(1L, 3L), keys("hypertension", id -> id == 10, id -> true));
+        assertEquals(List.of(1L), keys("hypertension", id -> id == 10, id -> id == 100));
+    }
+
+    @Test
+    void pagesShareTheTotalHitCount() {
+        for (int key = 1; key <= 25; key++) {
+            index.put(key, 0, 0, terms("influenza"));
+        }
+        InvertedIndex.Result first = index.search(List.of("influenza"), id -> true, id -> true, 0, 10);
+        InvertedIndex.Result third = index.search(List.of("influenza"), id -> true, id -> true, 20, 10);
+
+        assertEquals(25, first.totalHits());
+        assertEquals(10, first.hits().size());
+        assertEquals(25, third.totalHits());
+        assertEquals(5, third.hits().size());
+        // Equal scores fall back to key order
+        assertEquals(21L, third.hits().get(0).key());
+    }
+
+    @Test
+    void updatedAndRemovedDocumentsStopMatching() {
+        index.put(1, 0, 0, terms("pneumonia"));
+        index.put(1, 0, 0, terms("recovered"));
+        index.put(2, 0, 0, terms("pneumonia"));
+        index.remove(2);
+
+        assertEquals(List.of(), keys("pneumonia"));
+        assertEquals(List.of(1L), keys("recovered"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compactionKeepsTheLiveDocuments() {
+        for (int round = 0; round < 3; round++) {
+            for (int key = 0; key < 6000; key++) {
+                index.put(key, key % 7, 0, terms(round == 2 ? "final note " + key : "draft"));
+            }
+        }
+        assertTrue(index.needsCompaction());
+        index.compact();
+
+        assertEquals(6000, index.size());
+        assertEquals(List.of(), keys("draft"));
+        assertEquals(List.of(4321L), keys("note 4321"));
+        assertEquals(6000 / 7 + 1, index.search(List.of("final"), id -> id == 0, id -> true, 0, 0).totalHits());
+    }
+}
@@ -0,0 +1,38 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.entity.Otp;
+import com.healthcare.entity.OtpRateWindow;
+import com.healthcare.repository.OtpRateWindowRepository;
+
+class JpaOtpRateLimiterTest {
+
+    private final OtpRateWindowRepository windowRepository = mock(OtpRateWindowRepository.class);
+
+    @Test
+    void windowBelowOneMinuteIsRejectedAtStartup() {
+        assertThrows(IllegalArgumentException.class, () -> new JpaOtpRateLimiter(windowRepository, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new JpaOtpRateLimiter(windowRepository, 0, 60));
+    }
+
+    @Test
+    void windowPurgedBetweenInsertAndLockIsCreatedAgain() {
+        JpaOtpRateLimiter limiter = new JpaOtpRateLimiter(windowRepository, 3, 60);
+        OtpRateWindow window = OtpRateWindow.builder().email("a@x.com").type(Otp.OtpType.SIGNUP).build();
+        when(windowRepository.findForUpdate("a@x.com", Otp.OtpType.SIGNUP))
+                .thenReturn(Optional.empty(), Optional.of(window));
+
+        assertTrue(limiter.tryAcquire("a@x.com", Otp.OtpType.SIGNUP));
+        verify(windowRepository, times(2)).insertIfAbsent("a@x.com", Otp.OtpType.SIGNUP.ordinal());
+    }
+}
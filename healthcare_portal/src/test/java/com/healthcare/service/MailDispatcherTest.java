@@ -0,0 +1,210 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+class MailDispatcherTest {
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final List<Integer> sendCalls = new CopyOnWriteArrayList<>();
+    private final MailDispatcher dispatcher = new MailDispatcher(mailSender, 1, 10, 20, false, new SimpleMeterRegistry());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        dispatcher.shutdown();
+    }
+
+    // An email that records its name once the send succeeded
+    private MailDispatcher.MailTask mail(String name, CountDownLatch done) {
+        return new MailDispatcher.MailTask() {
+            @Override
+            public List<MimeMessage> prepare() {
+                return List.of(new MimeMessage((Session) null));
+            }
+
+            @Override
+            public void onSent() {
+                sent.add(name);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                sent.add(name + " failed");
+                done.countDown();
+            }
+        };
+    }
+
+    // Occupies the only worker until release is counted down
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        dispatcher.submit("block", () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void recordSendCalls() {
+        doAnswer(invocation -> {
+            sendCalls.add(invocation.getArguments().length);
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void queuedMessageIsReplacedBySameKey() throws InterruptedException {
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.submit("otp", "otp:a@x.com", mail("first", done));
+        dispatcher.submit("otp", "otp:a@x.com", mail("second", done));
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("second"), sent);
+    }
+
+    @Test
+    void queuedMessagesGoOutInOneSend() throws InterruptedException {
+        recordSendCalls();
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit("welcome", mail("mail " + i, done));
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(5), sendCalls);
+        assertEquals(5, sent.size());
+    }
+
+    @Test
+    void onlyTheMessagesThatFailedAreReportedFailed() throws InterruptedException {
+        MimeMessage good = new MimeMessage((Session) null);
+        MimeMessage bad = new MimeMessage((Session) null);
+        doAnswer(invocation -> {
+            throw new MailSendException(Map.of(bad, new MessagingException("451 try later")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(2);
+        List<String> outcomes = new CopyOnWriteArrayList<>();
+        for (MimeMessage message : List.of(good, bad)) {
+            String name = message == good ? "good" : "bad";
+            dispatcher.submit("welcome", new MailDispatcher.MailTask() {
+                @Override
+                public List<MimeMessage> prepare() {
+                    return List.of(message);
+                }
+
+                @Override
+                public void onSent() {
+                    outcomes.add(name + " sent");
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    outcomes.add(name + " failed: " + e.getMessage());
+                    done.countDown();
+                }
+            });
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("good sent", "bad failed: 451 try later"), outcomes);
+    }
+
+    @Test
+    void fullQueueRejectsWithoutLeavingTheKeyBehind() throws InterruptedException {
+        MailDispatcher small = new MailDispatcher(mailSender, 1, 1, 20, false, new SimpleMeterRegistry());
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            small.submit("block", () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return List.of();
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch done = new CountDownLatch(2);
+            small.submit("otp", "otp:a@x.com", mail("a", done));
+            assertThrows(ServiceUnavailableException.class, () -> small.submit("otp", "otp:b@x.com", mail("b", done)));
+            assertEquals(1, small.pendingCount());
+
+            release.countDown();
+            // Once the queue drains, the rejected key can be submitted again and is sent
+            while (small.pendingCount() > 0) {
+                Thread.sleep(5);
+            }
+            small.submit("otp", "otp:b@x.com", mail("b", done));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("a", "b"), sent);
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentSubmitsToFullQueueAreAllRejected() throws InterruptedException {
+        MailDispatcher small = new MailDispatcher(mailSender, 1, 1, 20, false, new SimpleMeterRegistry());
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            small.submit("block", () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return List.of();
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            small.submit("filler", mail("filler", new CountDownLatch(1)));
+
+            ExecutorService callers = Executors.newFixedThreadPool(8);
+            try {
+                for (int i = 0; i < 10_000; i++) {
+                    callers.submit(() -> {
+                        try {
+                            small.submit("otp", "otp:a@x.com", mail("otp", new CountDownLatch(1)));
+                        } catch (ServiceUnavailableException e) {
+                            // expected - the queue is full
+                        }
+                    });
+                }
+            } finally {
+                callers.shutdown();
+                assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+            }
+            // Nothing was coalesced into a submit whose offer then failed
+            assertEquals(1, small.pendingCount());
+        } finally {
+            small.shutdown();
+        }
+    }
+}
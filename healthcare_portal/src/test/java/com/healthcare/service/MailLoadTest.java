@@ -0,0 +1,140 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.config.EmbeddedSmtpServer;
+import com.healthcare.config.PooledJavaMailSender;
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Mail load test against the embedded SMTP server: OTP + welcome emails through the dispatcher path
+ * (AsyncEmailService -> MailDispatcher -> pooled sender), no database. Prints throughput, the deepest
+ * dispatcher queue seen (the whole backlog on this path), SMTP connections used and p50/p99 delivery
+ * latency (EmailService call -> message accepted by the server).
+ * mvn test -Pbenchmark -Dtest=MailLoadTest [-Dload.messages=10000] [-Dsmtp.latency-ms=5] [-Dsmtp.failure-rate=0.01]
+ */
+@Tag("benchmark")
+class MailLoadTest {
+
+    private static final String RECIPIENT_PREFIX = "loadtest-";
+    private static final String RECIPIENT_DOMAIN = "@sandbox.test";
+
+    private final int messages = Integer.getInteger("load.messages", 10_000);
+    private final long timeoutSeconds = Long.getLong("load.timeout-seconds", 300);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmbeddedSmtpServer smtpServer = new EmbeddedSmtpServer(0, 1000, Long.getLong("smtp.latency-ms", 0),
+            Double.parseDouble(System.getProperty("smtp.failure-rate", "0")));
+    private final PooledJavaMailSender mailSender = new PooledJavaMailSender(4, 60_000, 10_000, 10_000, 100, meterRegistry);
+    private MailDispatcher mailDispatcher;
+    private EmailService emailService;
+
+    @BeforeEach
+    void start() throws IOException {
+        smtpServer.start();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        EmailTemplateRenderer renderer = new EmailTemplateRenderer(EmailTemplateBenchmarkTest.templateEngine());
+        renderer.precompile();
+        EmailServiceImpl smtpEmailService = new EmailServiceImpl(mailSender, renderer);
+        ReflectionTestUtils.setField(smtpEmailService, "fromEmail", "noreply@sandbox.test");
+        ReflectionTestUtils.setField(smtpEmailService, "appName", "Healthcare Portal");
+        mailDispatcher = new MailDispatcher(mailSender, 4, 500, 20, true, meterRegistry);
+        emailService = new AsyncEmailService(smtpEmailService, mailDispatcher);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        mailDispatcher.shutdown();
+        mailSender.destroy();
+        smtpServer.stop();
+    }
+
+    @Test
+    void deliveryThroughputAndLatency() throws InterruptedException {
+        long[] submittedAt = new long[messages];
+        long[] latencies = new long[messages];
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(messages);
+
+        smtpServer.setListener(message -> {
+            int index = indexOf(message.recipients().isEmpty() ? null : message.recipients().get(0));
+            if (index >= 0 && index < messages) {
+                int slot = delivered.getAndIncrement();
+                if (slot < messages) {
+                    latencies[slot] = message.receivedAtNanos() - submittedAt[index];
+                    done.countDown();
+                }
+            }
+        });
+
+        double maxQueueDepth = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            String to = RECIPIENT_PREFIX + i + RECIPIENT_DOMAIN;
+            submittedAt[i] = System.nanoTime();
+            while (!submit(i, to)) {
+                Thread.sleep(5); // dispatcher queue full - back off like a real caller would
+            }
+            maxQueueDepth = Math.max(maxQueueDepth, meterRegistry.get("mail.dispatch.queue").gauge().value());
+        }
+        long submitNanos = System.nanoTime() - start;
+
+        boolean complete = done.await(timeoutSeconds, TimeUnit.SECONDS);
+        long totalNanos = System.nanoTime() - start;
+
+        int count = Math.min(delivered.get(), messages);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("Mail load test: %d/%d delivered%s, %d rejected by the server, %d SMTP connections%n",
+                count, messages, complete ? "" : " (timed out)", smtpServer.getRejectedCount(),
+                smtpServer.getConnectionCount());
+        System.out.printf("  submitted in %.2f s (%.0f/s), delivered %.0f msg/s, max dispatcher queue %.0f%n",
+                submitNanos / 1e9, messages / (submitNanos / 1e9), count / (totalNanos / 1e9), maxQueueDepth);
+        if (count > 0) {
+            System.out.printf("  delivery latency p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[count - 1] / 1e6);
+        }
+    }
+
+    // Even messages are OTPs, odd ones welcome emails
+    private boolean submit(int i, String to) {
+        try {
+            if (i % 2 == 0) {
+                emailService.sendSignupOtp(to, String.format("%06d", i % 1_000_000));
+            } else {
+                emailService.sendWelcomeEmail(to, "Load Test " + i);
+            }
+            return true;
+        } catch (ServiceUnavailableException e) {
+            return false;
+        }
+    }
+
+    private static int indexOf(String recipient) {
+        if (recipient == null || !recipient.startsWith(RECIPIENT_PREFIX) || !recipient.endsWith(RECIPIENT_DOMAIN)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(recipient.substring(RECIPIENT_PREFIX.length(), recipient.length() - RECIPIENT_DOMAIN.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
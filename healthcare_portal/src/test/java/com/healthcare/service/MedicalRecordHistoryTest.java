@@ -0,0 +1,178 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.MedicalRecordRevisionDTO;
+import com.healthcare.entity.MedicalRecordRevision;
+import com.healthcare.repository.MedicalRecordRevisionRepository;
+
+/*
+ * Delta history against an in-memory revision table: every revision must rebuild to exactly the text
+ * it was saved with, including after changes that bypassed the history.
+ */
+class MedicalRecordHistoryTest {
+
+    private static final long RECORD = 1L;
+    private static final long DOCTOR = 5L;
+
+    private final MedicalRecordRevisionRepository revisionRepository = mock(MedicalRecordRevisionRepository.class);
+    private final List<MedicalRecordRevision> rows = new ArrayList<>();
+    private final MedicalRecordHistory history = new MedicalRecordHistory(revisionRepository, true, 4);
+
+    @BeforeEach
+    void setUp() {
+        when(revisionRepository.save(any())).thenAnswer(call -> {
+            MedicalRecordRevision row = call.getArgument(0);
+            row.setUpdatedOn(LocalDateTime.now());
+            rows.add(row);
+            return row;
+        });
+        when(revisionRepository.findLatestRevision(anyLong())).thenAnswer(call -> rows.stream()
+                .filter(row -> row.getMedicalRecordId().equals(call.getArgument(0)))
+                .map(MedicalRecordRevision::getRevision)
+                .max(Integer::compare));
+        when(revisionRepository.findSnapshotRevision(anyLong(), anyInt())).thenAnswer(call -> rows.stream()
+                .filter(row -> row.getMedicalRecordId().equals(call.getArgument(0)) && row.getSnapshot()
+                        && row.getRevision() <= (int) call.getArgument(1))
+                .map(MedicalRecordRevision::getRevision)
+                .max(Integer::compare));
+        when(revisionRepository.findByMedicalRecordIdAndRevisionBetweenOrderByRevision(anyLong(), anyInt(), anyInt()))
+                .thenAnswer(call -> rows.stream()
+                        .filter(row -> row.getMedicalRecordId().equals(call.getArgument(0))
+                                && row.getRevision() >= (int) call.getArgument(1) && row.getRevision() <= (int) call.getArgument(2))
+                        .sorted(Comparator.comparing(MedicalRecordRevision::getRevision))
+                        .toList());
+    }
+
+    private MedicalRecordHistory.Texts text(int revision) {
+        MedicalRecordRevisionDTO dto = history.getRevision(RECORD, revision);
+        return new MedicalRecordHistory.Texts(dto.getDiagnosis(), dto.getPrescription(), dto.getNotes());
+    }
+
+    private MedicalRecordRevision row(int revision) {
+        return rows.stream().filter(row -> row.getRevision() == revision).findFirst().orElseThrow();
+    }
+
+    @Test
+    void everyRevisionRebuildsToWhatWasSaved() {
+        Random random = new Random(3);
+        String[] words = { "fever", "cough", "°C", "ibuprofen 400mg", "", "rest", "follow-up in 2 weeks", "é" };
+        List<MedicalRecordHistory.Texts> saved = new ArrayList<>();
+        MedicalRecordHistory.Texts previous = null;
+        for (int i = 0; i < 40; i++) {
+            String[] fields = new String[3];
+            for (int f = 0; f < 3; f++) {
+                String base = previous == null ? "" : previous.fields()[f];
+                int choice = random.nextInt(5);
+                fields[f] = choice == 0 ? null
+                        : choice == 1 || base == null ? words[random.nextInt(words.length)]
+                        : base.substring(0, random.nextInt(base.length() + 1)) + words[random.nextInt(words.length)]
+                                + base.substring(random.nextInt(base.length() + 1));
+            }
+            MedicalRecordHistory.Texts current = new MedicalRecordHistory.Texts(fields[0], fields[1], fields[2]);
+            if (current.equals(previous)) {
+                continue;
+            }
+            history.recordChange(RECORD, DOCTOR, previous, current, 9L);
+            saved.add(current);
+            previous = current;
+        }
+
+        for (int revision = 1; revision <= saved.size(); revision++) {
+            assertEquals(saved.get(revision - 1), text(revision), "revision " + revision);
+            // Snapshot every 4 revisions - at most 3 deltas to apply
+            assertEquals((revision - 1) % 4 == 0, row(revision).getSnapshot(), "revision " + revision);
+        }
+    }
+
+    @Test
+    void changeMadeOutsideTheHistoryIsStoredAsASnapshotFirst() {
+        MedicalRecordHistory.Texts created = new MedicalRecordHistory.Texts("asthma", "inhaler", null);
+        history.recordChange(RECORD, DOCTOR, null, created, 9L);
+        // Bulk import / manual UPDATE rewrote the diagnosis without a revision
+        MedicalRecordHistory.Texts outOfBand = new MedicalRecordHistory.Texts("a", "inhaler", null);
+        MedicalRecordHistory.Texts edited = new MedicalRecordHistory.Texts("ab", "inhaler", "note");
+        history.recordChange(RECORD, DOCTOR, outOfBand, edited, 9L);
+
+        assertEquals(3, rows.size());
+        assertEquals(created, text(1));
+        assertEquals(outOfBand, text(2));
+        assertEquals(true, row(2).getSnapshot());
+        assertEquals(edited, text(3));
+    }
+
+    @Test
+    void recordWrittenBeforeHistoryStartsWithItsCurrentText() {
+        MedicalRecordHistory.Texts old = new MedicalRecordHistory.Texts("migraine", null, null);
+        MedicalRecordHistory.Texts edited = new MedicalRecordHistory.Texts("migraine with aura", null, null);
+        history.recordChange(RECORD, DOCTOR, old, edited, 9L);
+
+        assertEquals(old, text(1));
+        assertEquals(edited, text(2));
+    }
+
+    @Test
+    void deltaThatDoesNotFitIsReportedCorruptAndTheNextChangeRecovers() {
+        MedicalRecordHistory.Texts longer = new MedicalRecordHistory.Texts("chronic kidney disease", null, null);
+        MedicalRecordHistory.Texts edited = new MedicalRecordHistory.Texts("chronic kidney disease stage 2", null, null);
+        rows.add(MedicalRecordRevision.builder().medicalRecordId(RECORD).revision(1).snapshot(true)
+                .payload(MedicalRecordHistory.encodeSnapshot(new MedicalRecordHistory.Texts("ckd", null, null))).build());
+        // Written by an earlier version against text the history never saw
+        rows.add(MedicalRecordRevision.builder().medicalRecordId(RECORD).revision(2).snapshot(false)
+                .payload(MedicalRecordHistory.encodeDelta(longer, edited)).build());
+
+        assertThrows(UncheckedIOException.class, () -> history.getRevision(RECORD, 2));
+
+        MedicalRecordHistory.Texts next = new MedicalRecordHistory.Texts("ckd stage 3", null, null);
+        history.recordChange(RECORD, DOCTOR, edited, next, 9L);
+        assertEquals(edited, text(3));
+        assertEquals(next, text(4));
+    }
+
+    @Test
+    void deletionKeepsTheFinalTextAndDoctor() {
+        MedicalRecordHistory.Texts texts = new MedicalRecordHistory.Texts("otitis", "amoxicillin", null);
+        history.recordChange(RECORD, DOCTOR, null, texts, 9L);
+
+        history.recordDeletion(RECORD, DOCTOR, texts);
+        assertEquals(1, rows.size());
+
+        // The record moved to another doctor without a text change
+        history.recordDeletion(RECORD, 6L, texts);
+        assertEquals(2, rows.size());
+        assertEquals(6L, row(2).getDoctorId());
+        assertEquals(texts, text(2));
+    }
+
+    @Test
+    void missingRevisionIsNotFound() {
+        assertThrows(ResourceNotFoundException.class, () -> history.getRevision(RECORD, 1));
+    }
+
+    @Test
+    void editNextToAnEmojiKeepsTheSurrogatePairWhole() {
+        MedicalRecordHistory.Texts before = new MedicalRecordHistory.Texts("mask \uD83D\uDE37 worn", null, null);
+        MedicalRecordHistory.Texts after = new MedicalRecordHistory.Texts("mask \uD83D\uDE38 worn", null, null);
+        history.recordChange(RECORD, DOCTOR, null, before, 9L);
+        history.recordChange(RECORD, DOCTOR, before, after, 9L);
+
+        assertEquals(after, text(2));
+    }
+}
@@ -0,0 +1,230 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.config.AttachmentJsonMigration;
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.custom_exceptions.ResourceNotFoundException;
+import com.healthcare.dto.ImportJobDTO;
+import com.healthcare.security.FieldEncryptor;
+
+/*
+ * Imports against mocked JDBC: the id lookups answer from fixed tables and every batched INSERT row is
+ * captured, so parsing, validation and the per-line error report can be checked without a database.
+ */
+class MedicalRecordImportServiceImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JdbcTemplate streamingJdbcTemplate = mock(JdbcTemplate.class);
+    private final FieldEncryptor encryptor = mock(FieldEncryptor.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final MedicalRecordImportServiceImpl importService = new MedicalRecordImportServiceImpl(jdbcTemplate,
+            streamingJdbcTemplate, new TransactionTemplate(transactionManager),
+            new ObjectMapper().findAndRegisterModules(), encryptor, mock(AttachmentJsonMigration.class));
+    private final List<Object[]> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+        ReflectionTestUtils.setField(importService, "maxQueuedJobs", 5);
+        ReflectionTestUtils.setField(importService, "maxFileSizeBytes", 1000L);
+        ReflectionTestUtils.setField(importService, "jobRetentionMinutes", 60L);
+        when(encryptor.encrypt(ArgumentMatchers.<String>any())).thenAnswer(call -> call.getArgument(0));
+        table("SELECT id FROM users WHERE role = 'ROLE_PATIENT'", new long[] { 1 }, new long[] { 2 });
+        table("SELECT id FROM users WHERE role = 'ROLE_DOCTOR'", new long[] { 10 });
+        table("SELECT appointment_id FROM medical_records", new long[] { 102 });
+        table("SELECT id, patient_id, doctor_id FROM appointments",
+                new long[] { 100, 1, 10 }, new long[] { 101, 2, 10 }, new long[] { 102, 1, 10 }, new long[] { 103, 1, 10 });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(call -> {
+            if (call.<String>getArgument(0).startsWith("INSERT")) {
+                inserted.addAll(call.getArgument(1));
+            }
+            return new int[0];
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        importService.shutdown();
+    }
+
+    private void table(String sql, long[]... rows) throws SQLException {
+        doAnswer(call -> {
+            RowCallbackHandler handler = call.getArgument(1);
+            for (long[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                for (int i = 0; i < row.length; i++) {
+                    when(rs.getLong(i + 1)).thenReturn(row[i]);
+                }
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(streamingJdbcTemplate).query(eq(sql), any(RowCallbackHandler.class));
+    }
+
+    private ImportJobDTO importAndWait(String content, String fileName) throws InterruptedException {
+        ImportJobDTO job = importService.startImport(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), fileName, null);
+        for (int i = 0; i < 500 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(10);
+            job = importService.getJob(job.getJobId());
+        }
+        return job;
+    }
+
+    @Test
+    void csvWithBomQuotesAndNewlinesImportsTheValidRows() throws InterruptedException {
+        String csv = "\uFEFFpatient_id,doctor_id,appointment_id,record_date,diagnosis,notes\n"
+                + "1,10,100,2024-05-01,\"Asthma, mild\",\"line one\nline \"\"two\"\"\"\n"
+                + "2,10,101,2024-05-02,Eczema,\n"
+                + "1,10,102,2024-05-03,Duplicate,\n"
+                + "2,10,103,2024-05-04,Wrong patient,\n"
+                + "1,99,103,2024-05-05,Unknown doctor,\n"
+                + "1,10,abc,2024-05-06,Bad id,\n"
+                + "1,10,103,2999-01-01,Future,\n";
+        ImportJobDTO job = importAndWait(csv, "legacy.csv");
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(7, job.getRowsRead());
+        assertEquals(2, job.getImported());
+        assertEquals(5, job.getRejected());
+        assertEquals(List.of(
+                "line 5: appointment 102 already has a medical record",
+                "line 6: appointment 103 does not match the patient and doctor",
+                "line 7: unknown doctor 99",
+                "line 8: invalid value: For input string: \"abc\"",
+                "line 9: recordDate is in the future"), job.getErrors());
+
+        assertEquals(2, inserted.size());
+        assertEquals("Asthma, mild", inserted.get(0)[4]);
+        assertEquals("Asthma, mild", inserted.get(0)[5]);
+        assertEquals("line one\nline \"two\"", inserted.get(0)[7]);
+        assertEquals(null, inserted.get(1)[7]);
+    }
+
+    @Test
+    void ndjsonRejectsBrokenLinesAndDuplicatesWithinTheFile() throws InterruptedException {
+        String ndjson = "{\"patientId\":1,\"doctorId\":10,\"appointmentId\":100,\"recordDate\":\"2024-05-01\"}\n"
+                + "\n"
+                + "{not json}\n"
+                + "{\"patientId\":1,\"doctorId\":10,\"appointmentId\":100,\"recordDate\":\"2024-05-01\"}\n"
+                + "{\"patientId\":1,\"doctorId\":10,\"appointmentId\":103}\n";
+        ImportJobDTO job = importAndWait(ndjson, "legacy.jsonl");
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(1, job.getImported());
+        assertEquals(3, job.getRejected());
+        assertEquals("line 3", job.getErrors().get(0).substring(0, 6));
+        assertEquals(List.of(
+                "line 4: appointment 100 already has a medical record",
+                "line 5: recordDate is required"), job.getErrors().subList(1, 3));
+    }
+
+    @Test
+    void failedBatchFlagsOnlyTheAppointmentsWhoseRecordsWereInserted() throws InterruptedException {
+        // Flag updates count once their transaction commits; appointment 101 got a record from elsewhere meanwhile
+        List<Object> pendingFlags = new ArrayList<>();
+        List<Object> flagged = new ArrayList<>();
+        doAnswer(call -> flagged.addAll(pendingFlags)).when(transactionManager).commit(any());
+        doAnswer(call -> {
+            pendingFlags.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+        doAnswer(call -> {
+            pendingFlags.clear();
+            return null;
+        }).when(transactionManager).getTransaction(any());
+        doAnswer(call -> {
+            List<Object[]> rows = call.getArgument(1);
+            if (call.<String>getArgument(0).startsWith("INSERT")) {
+                if (rows.stream().anyMatch(row -> row[2].equals(101L))) {
+                    throw new DuplicateKeyException("Duplicate entry '101' for key 'uk_medical_records_appointment'");
+                }
+            } else {
+                rows.forEach(row -> pendingFlags.add(row[0]));
+            }
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        doAnswer(call -> {
+            if (call.getArgument(3).equals(101L)) {
+                throw new DuplicateKeyException("Duplicate entry '101' for key 'uk_medical_records_appointment'");
+            }
+            return 1;
+        }).when(jdbcTemplate).update(startsWith("INSERT"), any(Object[].class));
+        doAnswer(call -> {
+            pendingFlags.add(call.getArgument(1));
+            return 1;
+        }).when(jdbcTemplate).update(startsWith("UPDATE appointments"), any(Object[].class));
+
+        ImportJobDTO job = importAndWait("patientId,doctorId,appointmentId,recordDate\n"
+                + "1,10,100,2024-05-01\n"
+                + "2,10,101,2024-05-02\n", "legacy.csv");
+
+        assertEquals(1, job.getImported());
+        assertEquals(List.of("line 3: Duplicate entry '101' for key 'uk_medical_records_appointment'"), job.getErrors());
+        assertEquals(List.of(100L), flagged);
+    }
+
+    @Test
+    void bodyOverTheLimitOrInAnUnknownFormatIsRejected() {
+        byte[] large = new byte[1001];
+        assertThrows(InvalidInputException.class,
+                () -> importService.startImport(new ByteArrayInputStream(large), "big.csv", null));
+        assertThrows(InvalidInputException.class,
+                () -> importService.startImport(new ByteArrayInputStream(new byte[1]), "records.xlsx", null));
+        assertThrows(InvalidInputException.class,
+                () -> importService.startImport(new ByteArrayInputStream(new byte[0]), "empty.csv", null));
+    }
+
+    @Test
+    void finishedJobsExpire() throws InterruptedException {
+        ImportJobDTO job = importAndWait("patientId,doctorId,appointmentId,recordDate\n", "empty-rows.csv");
+        assertEquals("COMPLETED", job.getStatus());
+
+        ReflectionTestUtils.setField(importService, "jobRetentionMinutes", 0L);
+        Thread.sleep(5);
+        String jobId = job.getJobId();
+        assertThrows(ResourceNotFoundException.class, () -> importService.getJob(jobId));
+    }
+
+    @Test
+    void csvReaderSplitsQuotedFieldsAndCountsLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"b,c\",\"d\r\ne\"\r\n,,\n\"x\"\"y\""));
+
+        assertEquals(List.of("a", "b,c", "d\r\ne"), csv.next());
+        assertEquals(3, csv.line());
+        assertEquals(List.of("", "", ""), csv.next());
+        assertEquals(List.of("x\"y"), csv.next());
+        assertEquals(null, csv.next());
+    }
+}
@@ -0,0 +1,92 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.healthcare.custom_exceptions.ServiceUnavailableException;
+import com.healthcare.entity.MedicalRecordTombstone;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.MedicalRecordTombstoneRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MedicalRecordSearchIndexTest {
+
+    private final MedicalRecordRepository medicalRecordRepository = mock(MedicalRecordRepository.class);
+    private final MedicalRecordTombstoneRepository tombstoneRepository = mock(MedicalRecordTombstoneRepository.class);
+    private final MedicalRecordSearchIndex searchIndex = new MedicalRecordSearchIndex(medicalRecordRepository,
+            tombstoneRepository, new SimpleMeterRegistry(), true, 1000, 2, 0, 24);
+
+    private static Object[] row(long id, String diagnosis) {
+        return new Object[] { id, 10L, 100L, diagnosis, null, null };
+    }
+
+    private List<Long> search(String query) {
+        return searchIndex.search(query, null, null, 0, 10).hits().stream().map(InvertedIndex.Hit::key).toList();
+    }
+
+    private void buildWith(List<Object[]> rows) {
+        when(medicalRecordRepository.findSearchRowsAfter(eq(0L), any())).thenReturn(rows);
+        when(medicalRecordRepository.findSearchRowsAfter(eq(rows.isEmpty() ? 0L : (Long) rows.get(rows.size() - 1)[0]), any()))
+                .thenReturn(List.of());
+        assertTrue(searchIndex.build());
+    }
+
+    @Test
+    void failedBuildKeepsAnswering503UntilARetrySucceeds() {
+        when(medicalRecordRepository.findSearchRowsAfter(eq(0L), any()))
+                .thenThrow(new IllegalStateException("database not reachable"))
+                .thenReturn(List.<Object[]>of(row(1, "asthma"), row(2, "eczema")));
+        doReturn(List.of()).when(medicalRecordRepository).findSearchRowsAfter(eq(2L), any());
+        assertFalse(searchIndex.build());
+        assertThrows(ServiceUnavailableException.class, () -> search("asthma"));
+
+        assertTrue(searchIndex.build());
+        assertEquals(List.of(1L), search("asthma"));
+    }
+
+    @Test
+    void catchUpDropsRecordsDeletedOnOtherNodes() {
+        buildWith(List.<Object[]>of(row(1, "asthma"), row(2, "asthma"), row(3, "asthma")));
+        when(medicalRecordRepository.findSearchRowsUpdatedSince(any())).thenReturn(List.<Object[]>of(row(3, "eczema")));
+        when(tombstoneRepository.findRecordIdsDeletedSince(any())).thenReturn(List.of(2L));
+        searchIndex.catchUp();
+
+        assertEquals(List.of(1L), search("asthma"));
+        assertEquals(List.of(3L), search("eczema"));
+    }
+
+    @Test
+    void recordUpdatedThenDeletedBetweenPollsEndsUpRemoved() {
+        buildWith(List.<Object[]>of(row(1, "asthma")));
+        when(medicalRecordRepository.findSearchRowsUpdatedSince(any())).thenReturn(List.<Object[]>of(row(1, "eczema")));
+        when(tombstoneRepository.findRecordIdsDeletedSince(any())).thenReturn(List.of(1L));
+        searchIndex.catchUp();
+
+        assertEquals(List.of(), search("eczema"));
+    }
+
+    @Test
+    void localDeleteWritesATombstoneForTheOtherNodes() {
+        buildWith(List.<Object[]>of(row(1, "asthma")));
+        searchIndex.removeAfterCommit(1L);
+
+        ArgumentCaptor<MedicalRecordTombstone> tombstone = ArgumentCaptor.forClass(MedicalRecordTombstone.class);
+        verify(tombstoneRepository).save(tombstone.capture());
+        assertEquals(1L, tombstone.getValue().getMedicalRecordId());
+        assertEquals(List.of(), search("asthma"));
+    }
+}
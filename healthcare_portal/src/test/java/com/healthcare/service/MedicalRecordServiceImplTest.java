@@ -0,0 +1,181 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.config.AttachmentJsonMigration;
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.dto.MedicalRecordRequestDTO;
+import com.healthcare.dto.MedicalRecordResponseDTO;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.MedicalRecord;
+import com.healthcare.entity.User;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
+
+/*
+ * Creating a record completes its appointment with one conditional UPDATE (clearAutomatically), so the
+ * appointment loaded for validation is detached afterwards and only used for the response. Moving or
+ * deleting a record keeps appointments.has_medical_record in sync by hand.
+ */
+class MedicalRecordServiceImplTest {
+
+    private static final LocalDate YESTERDAY = LocalDate.now().minusDays(1);
+
+    private final MedicalRecordRepository medicalRecordRepository = mock(MedicalRecordRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final MedicalRecordServiceImpl medicalRecordService = new MedicalRecordServiceImpl(medicalRecordRepository,
+            userRepository, appointmentRepository, mock(CurrentUser.class), mock(MedicalRecordSearchIndex.class),
+            mock(MedicalRecordHistory.class), mock(AttachmentService.class), mock(AttachmentJsonMigration.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    private final User patient = person(1L, "Jane", "Doe");
+    private final User doctor = person(2L, "John", "Smith");
+    private Appointment appointment;
+
+    private static User person(Long id, String firstName, String lastName) {
+        User user = User.builder().firstName(firstName).lastName(lastName).build();
+        user.setId(id);
+        return user;
+    }
+
+    private Appointment appointment(Long id) {
+        Appointment result = Appointment.builder()
+                .patient(patient)
+                .doctor(doctor)
+                .appointmentDate(YESTERDAY)
+                .appointmentTime(LocalTime.of(10, 30))
+                .status("CONFIRMED")
+                .hasMedicalRecord(false)
+                .build();
+        result.setId(id);
+        return result;
+    }
+
+    private MedicalRecordRequestDTO request(Long appointmentId) {
+        return MedicalRecordRequestDTO.builder()
+                .patientId(1L)
+                .doctorId(2L)
+                .appointmentId(appointmentId)
+                .recordDate(YESTERDAY)
+                .diagnosis("Acute bronchitis")
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        appointment = appointment(10L);
+        when(appointmentRepository.findForMedicalRecord(10L)).thenReturn(Optional.of(appointment));
+        when(medicalRecordRepository.save(any())).thenAnswer(call -> {
+            MedicalRecord saved = call.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+    }
+
+    @Test
+    void appointmentCompletedOrRecordedMeanwhileIsRejected() {
+        // The conditional UPDATE found it no longer CONFIRMED or already flagged
+        when(appointmentRepository.completeWithMedicalRecord(10L)).thenReturn(0);
+
+        InvalidInputException e = assertThrows(InvalidInputException.class,
+                () -> medicalRecordService.createMedicalRecord(request(10L)));
+        assertEquals("Medical record can only be created for a CONFIRMED appointment without one", e.getMessage());
+        verify(medicalRecordRepository, never()).save(any());
+    }
+
+    @Test
+    void uniqueAppointmentViolationIsReportedAsExistingRecord() {
+        when(appointmentRepository.completeWithMedicalRecord(10L)).thenReturn(1);
+        doThrow(new DataIntegrityViolationException(
+                "Duplicate entry '10' for key 'medical_records.uk_medical_records_appointment'"))
+                .when(medicalRecordRepository).save(any());
+
+        InvalidInputException e = assertThrows(InvalidInputException.class,
+                () -> medicalRecordService.createMedicalRecord(request(10L)));
+        assertEquals("Medical record already exists for this appointment", e.getMessage());
+    }
+
+    @Test
+    void responseShowsTheCompletedAppointmentWithoutReloadingIt() {
+        when(appointmentRepository.completeWithMedicalRecord(10L)).thenReturn(1);
+
+        MedicalRecordResponseDTO response = medicalRecordService.createMedicalRecord(request(10L));
+
+        assertEquals(5L, response.getId());
+        assertEquals(10L, response.getAppointmentId());
+        assertEquals("COMPLETED", response.getAppointmentStatus());
+        assertEquals("Jane Doe", response.getPatientName());
+        verify(appointmentRepository, times(1)).findForMedicalRecord(10L);
+        verify(appointmentRepository, never()).findById(any());
+    }
+
+    private MedicalRecord existingRecord() {
+        MedicalRecord record = MedicalRecord.builder()
+                .patient(patient)
+                .doctor(doctor)
+                .appointment(appointment)
+                .recordDate(YESTERDAY)
+                .diagnosis("Acute bronchitis")
+                .build();
+        record.setId(5L);
+        return record;
+    }
+
+    @Test
+    void movingARecordToAnotherAppointmentMovesTheFlag() {
+        when(medicalRecordRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(existingRecord()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(patient));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findById(11L)).thenReturn(Optional.of(appointment(11L)));
+
+        MedicalRecordResponseDTO response = medicalRecordService.updateMedicalRecord(5L, request(11L));
+
+        assertEquals(11L, response.getAppointmentId());
+        verify(appointmentRepository).setHasMedicalRecord(10L, false);
+        verify(appointmentRepository).setHasMedicalRecord(11L, true);
+    }
+
+    @Test
+    void movingARecordOntoAnAppointmentWithOneIsRejected() {
+        Appointment recorded = appointment(11L);
+        recorded.setHasMedicalRecord(true);
+        when(medicalRecordRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(existingRecord()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(patient));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findById(11L)).thenReturn(Optional.of(recorded));
+
+        assertThrows(InvalidInputException.class, () -> medicalRecordService.updateMedicalRecord(5L, request(11L)));
+        verify(appointmentRepository, never()).setHasMedicalRecord(any(), anyBoolean());
+    }
+
+    @Test
+    void deletingARecordClearsItsAppointmentsFlag() {
+        when(medicalRecordRepository.findById(5L)).thenReturn(Optional.of(existingRecord()));
+
+        medicalRecordService.deleteMedicalRecord(5L);
+
+        verify(appointmentRepository).setHasMedicalRecord(10L, false);
+    }
+}
@@ -0,0 +1,51 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.repository.OtpRateWindowRepository;
+import com.healthcare.repository.OtpRepository;
+
+class OtpPurgeJobTest {
+
+    private final OtpRepository otpRepository = mock(OtpRepository.class);
+    private final OtpRateWindowRepository rateWindowRepository = mock(OtpRateWindowRepository.class);
+    private final OtpPurgeJob purgeJob = new OtpPurgeJob(otpRepository, rateWindowRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(purgeJob, "batchSize", 2);
+        ReflectionTestUtils.setField(purgeJob, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(purgeJob, "rateWindowMinutes", 60L);
+    }
+
+    @Test
+    void windowsIdleForLongerThanTheRateLimitWindowAreDeletedInBatches() {
+        when(rateWindowRepository.findStaleIds(any(), eq(2))).thenReturn(List.of(1L, 2L), List.of(3L));
+        LocalDateTime before = LocalDateTime.now();
+
+        purgeJob.purge();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rateWindowRepository).deleteStale(eq(List.of(1L, 2L)), cutoff.capture());
+        verify(rateWindowRepository).deleteStale(List.of(3L), cutoff.getValue());
+        // The last request in a purged window is older than the 60 minute window
+        assertFalse(cutoff.getValue().isBefore(before.minusMinutes(60)));
+        assertTrue(cutoff.getValue().isBefore(before.minusMinutes(59)));
+        verify(otpRepository).findExpiredIds(any(), anyInt());
+    }
+}
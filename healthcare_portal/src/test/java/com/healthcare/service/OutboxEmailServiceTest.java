@@ -0,0 +1,76 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.entity.EmailOutbox;
+import com.healthcare.repository.EmailOutboxRepository;
+import com.healthcare.security.FieldEncryptor;
+
+class OutboxEmailServiceTest {
+
+    private final EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+    private final FieldEncryptor fieldEncryptor = withMasterKey();
+    private final OutboxEmailService emailService = new OutboxEmailService(outboxRepository, new ObjectMapper(),
+            fieldEncryptor, true);
+
+    private static FieldEncryptor withMasterKey() {
+        FieldEncryptor encryptor = mock(FieldEncryptor.class);
+        when(encryptor.hasMasterKey()).thenReturn(true);
+        return encryptor;
+    }
+
+    private EmailOutbox saved() {
+        ArgumentCaptor<EmailOutbox> row = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(outboxRepository).save(row.capture());
+        return row.getValue();
+    }
+
+    @Test
+    void otpIsStoredEncryptedAndExpiresWithTheCode() {
+        when(fieldEncryptor.encryptAlways("123456")).thenReturn("ENC1:sealed");
+        LocalDateTime before = LocalDateTime.now();
+        emailService.sendSignupOtp("a@x.com", "123456");
+
+        EmailOutbox row = saved();
+        assertEquals("ENC1:sealed", row.getPayload());
+        assertEquals(EmailOutbox.Status.PENDING, row.getStatus());
+        assertTrue(!row.getExpiresAt().isBefore(before.plusMinutes(OtpServiceImpl.OTP_EXPIRY_MINUTES)));
+    }
+
+    @Test
+    void otherMailsDoNotExpire() {
+        when(fieldEncryptor.encryptAlways("Asha")).thenReturn("ENC1:name");
+        emailService.sendWelcomeEmail("a@x.com", "Asha");
+
+        EmailOutbox row = saved();
+        assertEquals("ENC1:name", row.getPayload());
+        assertNull(row.getExpiresAt());
+    }
+
+    // Record encryption being off (FieldEncryptor.encrypt passing values through) does not matter here
+    @Test
+    void payloadEncryptionHasItsOwnSwitch() {
+        OutboxEmailService plaintext = new OutboxEmailService(outboxRepository, new ObjectMapper(), fieldEncryptor, false);
+        plaintext.sendSignupOtp("a@x.com", "123456");
+        assertEquals("123456", saved().getPayload());
+        verify(fieldEncryptor, never()).encryptAlways(anyString());
+
+        FieldEncryptor noKey = mock(FieldEncryptor.class);
+        assertThrows(IllegalStateException.class,
+                () -> new OutboxEmailService(outboxRepository, new ObjectMapper(), noKey, true));
+    }
+}
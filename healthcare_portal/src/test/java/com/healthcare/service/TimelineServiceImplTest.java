@@ -0,0 +1,167 @@
+package com.healthcare.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.custom_exceptions.InvalidInputException;
+import com.healthcare.dto.TimelineEntryDTO;
+import com.healthcare.dto.TimelinePageDTO;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.FeedbackRepository;
+import com.healthcare.repository.MedicalRecordRepository;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.security.CurrentUser;
+
+/*
+ * Paging through the merged timeline against in-memory sources that answer the keyset queries the
+ * way the JPQL does (strictly after (date, time, id), newest first, LIMIT).
+ */
+class TimelineServiceImplTest {
+
+    private static final long PATIENT = 7L;
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final MedicalRecordRepository medicalRecordRepository = mock(MedicalRecordRepository.class);
+    private final FeedbackRepository feedbackRepository = mock(FeedbackRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TimelineServiceImpl timelineService = new TimelineServiceImpl(appointmentRepository,
+            medicalRecordRepository, feedbackRepository, userRepository, mock(CurrentUser.class));
+
+    private final List<TimelineEntryDTO> appointments = new ArrayList<>();
+    private final List<TimelineEntryDTO> medicalRecords = new ArrayList<>();
+    private final List<TimelineEntryDTO> feedback = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timelineService, "maxPageSize", 100);
+        when(userRepository.existsById(PATIENT)).thenReturn(true);
+        when(appointmentRepository.findTimelinePage(eq(PATIENT), any(), any(), anyLong(), any()))
+                .thenAnswer(call -> page(appointments, call.getArgument(1), call.getArgument(2), call.getArgument(3),
+                        call.getArgument(4)));
+        when(medicalRecordRepository.findTimelinePage(eq(PATIENT), any(), any(), anyLong(), any()))
+                .thenAnswer(call -> page(medicalRecords, call.getArgument(1), call.getArgument(2), call.getArgument(3),
+                        call.getArgument(4)));
+        when(feedbackRepository.findTimelinePage(eq(PATIENT), any(), anyLong(), any()))
+                .thenAnswer(call -> {
+                    LocalDateTime at = call.getArgument(1);
+                    return page(feedback, at.toLocalDate(), at.toLocalTime(), call.getArgument(2), call.getArgument(3));
+                });
+    }
+
+    @AfterEach
+    void shutdown() {
+        timelineService.shutdown();
+    }
+
+    private static List<TimelineEntryDTO> page(List<TimelineEntryDTO> source, LocalDate date, LocalTime time, long id,
+            Pageable pageable) {
+        return source.stream()
+                .filter(entry -> entry.getDate().isBefore(date)
+                        || entry.getDate().equals(date) && (entry.getTime().isBefore(time)
+                                || entry.getTime().equals(time) && entry.getId() < id))
+                .sorted(Comparator.comparing(TimelineEntryDTO::getDate)
+                        .thenComparing(TimelineEntryDTO::getTime)
+                        .thenComparing(TimelineEntryDTO::getId)
+                        .reversed())
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    private static TimelineEntryDTO entry(String type, long id, LocalDate date, LocalTime time) {
+        return TimelineEntryDTO.builder().type(type).id(id).date(date).time(time).build();
+    }
+
+    private List<String> readAll(int size) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TimelinePageDTO page = timelineService.getTimeline(PATIENT, cursor, size);
+            page.getEntries().forEach(entry -> seen.add(entry.getType() + "#" + entry.getId()));
+            cursor = page.getNextCursor();
+            if (cursor != null) {
+                assertEquals(size, page.getEntries().size());
+            }
+        } while (cursor != null);
+        return seen;
+    }
+
+    @Test
+    void sameTimestampOrdersAppointmentThenRecordThenFeedback() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        LocalTime noon = LocalTime.NOON;
+        appointments.add(entry("APPOINTMENT", 5, day, noon));
+        medicalRecords.add(entry("MEDICAL_RECORD", 9, day, noon));
+        medicalRecords.add(entry("MEDICAL_RECORD", 3, day, noon));
+        feedback.add(entry("FEEDBACK", 1, day, noon));
+        appointments.add(entry("APPOINTMENT", 6, day.minusDays(1), noon));
+
+        List<String> expected = List.of("APPOINTMENT#5", "MEDICAL_RECORD#9", "MEDICAL_RECORD#3", "FEEDBACK#1",
+                "APPOINTMENT#6");
+        // Every page size splits the tie somewhere else - the cursor must resume exactly after it
+        for (int size = 1; size <= 6; size++) {
+            assertEquals(expected, readAll(size), "page size " + size);
+        }
+    }
+
+    @Test
+    void pagingVisitsEveryEntryOnceInMergedOrder() {
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        List<TimelineEntryDTO> all = new ArrayList<>();
+        long id = 1;
+        for (int i = 0; i < 300; i++) {
+            // Few distinct days and times, so ties across sources are common
+            LocalDate date = start.plusDays(random.nextInt(20));
+            LocalTime time = LocalTime.of(9 + random.nextInt(3), 0);
+            String type = List.of("APPOINTMENT", "MEDICAL_RECORD", "FEEDBACK").get(random.nextInt(3));
+            TimelineEntryDTO entry = entry(type, id++, date, time);
+            all.add(entry);
+            (type.equals("APPOINTMENT") ? appointments : type.equals("MEDICAL_RECORD") ? medicalRecords : feedback).add(entry);
+        }
+        List<String> expected = all.stream()
+                .sorted(Comparator.comparing(TimelineEntryDTO::getDate)
+                        .thenComparing(TimelineEntryDTO::getTime)
+                        .thenComparing(entry -> List.of("FEEDBACK", "MEDICAL_RECORD", "APPOINTMENT").indexOf(entry.getType()))
+                        .thenComparing(TimelineEntryDTO::getId)
+                        .reversed())
+                .map(entry -> entry.getType() + "#" + entry.getId())
+                .toList();
+
+        for (int size : new int[] { 1, 7, 50, 100 }) {
+            assertEquals(expected, readAll(size), "page size " + size);
+        }
+    }
+
+    @Test
+    void emptyTimelineHasNoCursor() {
+        TimelinePageDTO page = timelineService.getTimeline(PATIENT, null, 10);
+        assertEquals(List.of(), page.getEntries());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void invalidCursorOrPageSizeIsRejected() {
+        assertThrows(InvalidInputException.class, () -> timelineService.getTimeline(PATIENT, "not-a-cursor", 10));
+        assertThrows(InvalidInputException.class, () -> timelineService.getTimeline(PATIENT, null, 101));
+    }
+}